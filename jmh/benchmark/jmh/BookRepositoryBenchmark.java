@@ -0,0 +1,86 @@
+package benchmark.jmh;
+
+import model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.BookRepository;
+import repository.impl.ConcurrentBookRepository;
+import repository.impl.InMemoryBookRepository;
+import repository.impl.OffHeapBookRepository;
+import repository.impl.PrimitiveKeyBookRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tra cứu trên các BookRepository ở nhiều kích thước catalog
+ * InMemoryBookRepository không thread-safe: chỉ chạy nó với -t 1.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="BookRepositoryBenchmark -t 4 -p size=1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class BookRepositoryBenchmark {
+    @Param({"Concurrent", "PrimitiveKey", "OffHeap", "InMemory"})
+    public String repository;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private BookRepository books;
+    private String[] ids;
+
+    @Setup
+    public void setUp() {
+        switch (repository) {
+            case "InMemory": books = new InMemoryBookRepository(); break;
+            case "PrimitiveKey": books = new PrimitiveKeyBookRepository(); break;
+            case "OffHeap": books = new OffHeapBookRepository(); break;
+            default: books = new ConcurrentBookRepository(); break;
+        }
+        ids = load(books, size);
+    }
+
+    // Giá trị trả về được JMH đưa vào Blackhole nên JIT không loại bỏ được lượt tra cứu
+    @Benchmark
+    public Optional<Book> findById() {
+        return books.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Book> findByAuthor() {
+        return books.findByAuthor("author " + ThreadLocalRandom.current().nextInt(10_000));
+    }
+
+    static Book book(int i) {
+        return new Book("B" + i, "Title " + i, "Author " + (i % 10_000), "978-0-13-235088-4");
+    }
+
+    static String[] load(BookRepository repository, int size) {
+        String[] ids = new String[size];
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Book book = book(i);
+            ids[i] = book.getId();
+            books.add(book);
+        }
+        repository.saveAll(books);
+        return ids;
+    }
+}
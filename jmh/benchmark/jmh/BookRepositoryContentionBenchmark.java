@@ -0,0 +1,113 @@
+package benchmark.jmh;
+
+import model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.BookRepository;
+import repository.impl.ConcurrentBookRepository;
+import repository.impl.InMemoryBookRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tranh chấp trên BookRepository với workload 90% đọc / 10% ghi
+ * So sánh ConcurrentBookRepository với InMemoryBookRepository bọc trong một khóa toàn cục.
+ * Mỗi group gồm 9 luồng đọc và 1 luồng ghi; -t phải là bội của 10.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="BookRepositoryContentionBenchmark -t 40"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class BookRepositoryContentionBenchmark {
+    @Param({"Concurrent", "GlobalLock"})
+    public String repository;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private BookRepository books;
+    private String[] ids;
+
+    @Setup
+    public void setUp() {
+        books = "GlobalLock".equals(repository)
+                ? new GlobalLockBookRepository(new InMemoryBookRepository())
+                : new ConcurrentBookRepository();
+        ids = BookRepositoryBenchmark.load(books, size);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(9)
+    public Optional<Book> read() {
+        return books.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void write() {
+        books.findById(ids[ThreadLocalRandom.current().nextInt(ids.length)]).ifPresent(books::update);
+    }
+
+    /**
+     * Baseline: repository không thread-safe được tuần tự hóa bằng một khóa duy nhất
+     */
+    private static class GlobalLockBookRepository implements BookRepository {
+        private final BookRepository delegate;
+
+        GlobalLockBookRepository(BookRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void save(Book book) { delegate.save(book); }
+
+        @Override
+        public synchronized Optional<Book> findById(String id) { return delegate.findById(id); }
+
+        @Override
+        public synchronized List<Book> findAll() { return delegate.findAll(); }
+
+        @Override
+        public synchronized List<Book> findByAuthor(String author) { return delegate.findByAuthor(author); }
+
+        @Override
+        public synchronized List<Book> findAvailableBooks() { return delegate.findAvailableBooks(); }
+
+        @Override
+        public synchronized void update(Book book) { delegate.update(book); }
+
+        @Override
+        public synchronized void delete(String id) { delegate.delete(id); }
+
+        @Override
+        public synchronized boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+            return delegate.compareAndSetAvailable(id, expected, available);
+        }
+
+        @Override
+        public synchronized long count() { return delegate.count(); }
+
+        @Override
+        public synchronized long countAvailable() { return delegate.countAvailable(); }
+    }
+}
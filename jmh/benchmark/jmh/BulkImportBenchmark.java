@@ -0,0 +1,77 @@
+package benchmark.jmh;
+
+import model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.impl.ConcurrentBookRepository;
+import service.BookService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nhập catalog: gọi addBook từng cuốn so với addBooks cả lô
+ * Mỗi iteration nhập vào một repository rỗng; console được tắt để đo phần xử lý, không phải tốc độ terminal.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="BulkImportBenchmark -p size=1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class BulkImportBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private List<Book> feed;
+    private BookService bookService;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void silence() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        feed = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            feed.add(BookRepositoryBenchmark.book(i));
+        }
+        bookService = new BookService(new ConcurrentBookRepository());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void addBook() {
+        for (Book book : feed) {
+            bookService.addBook(book);
+        }
+    }
+
+    @Benchmark
+    public void addBooks() {
+        bookService.addBooks(feed);
+    }
+}
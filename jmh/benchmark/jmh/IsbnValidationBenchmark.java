@@ -0,0 +1,107 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.IsbnValidator;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kiểm tra ISBN: IsbnValidator so với cách dùng replaceAll + matches trước đây
+ * Dữ liệu gồm ISBN-13 có/không có gạch ngang, một phần sai check digit và một phần sai định dạng.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="IsbnValidationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IsbnValidationBenchmark {
+    private static final int INPUTS = 1 << 16;
+
+    private String[] inputs;
+
+    @Setup
+    public void setUp() {
+        inputs = inputs(INPUTS, new Random(42));
+        // ISBN-13 phải cho cùng kết quả với cách cài đặt cũ
+        for (String input : inputs) {
+            if (legacyIsValid(input) != IsbnValidator.isValid(input)) {
+                throw new IllegalStateException("Validators disagree on " + input);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean validator() {
+        return IsbnValidator.isValid(next());
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return legacyIsValid(next());
+    }
+
+    private String next() {
+        return inputs[ThreadLocalRandom.current().nextInt(INPUTS)];
+    }
+
+    private static String[] inputs(int count, Random random) {
+        String[] inputs = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder digits = new StringBuilder("978");
+            for (int d = 0; d < 9; d++) {
+                digits.append(random.nextInt(10));
+            }
+            int sum = 0;
+            for (int d = 0; d < 12; d++) {
+                int digit = digits.charAt(d) - '0';
+                sum += d % 2 == 0 ? digit : digit * 3;
+            }
+            int check = (10 - sum % 10) % 10;
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                check = (check + 1) % 10;
+            }
+            digits.append(check);
+            if (kind == 1) {
+                digits.setCharAt(5, 'A');
+            }
+            if (random.nextBoolean()) {
+                digits.insert(3, '-').insert(5, '-').insert(9, '-').insert(15, '-');
+            }
+            inputs[i] = digits.toString();
+        }
+        return inputs;
+    }
+
+    // Cách cài đặt cũ trong BookService (chỉ phần ISBN-13), giữ lại làm baseline
+    private static boolean legacyIsValid(String isbn) {
+        if (isbn == null || isbn.trim().isEmpty()) {
+            return false;
+        }
+        String cleanISBN = isbn.replaceAll("[\\s-]", "");
+        if (cleanISBN.length() == 13 && cleanISBN.matches("\\d{13}")) {
+            int sum = 0;
+            for (int i = 0; i < 12; i++) {
+                int digit = Character.getNumericValue(cleanISBN.charAt(i));
+                sum += (i % 2 == 0) ? digit : digit * 3;
+            }
+            int checkDigit = (10 - (sum % 10)) % 10;
+            return checkDigit == Character.getNumericValue(cleanISBN.charAt(12));
+        }
+        return false;
+    }
+}
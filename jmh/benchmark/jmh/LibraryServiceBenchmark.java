@@ -0,0 +1,148 @@
+package benchmark.jmh;
+
+import model.Book;
+import model.Member;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import repository.BookRepository;
+import repository.impl.ConcurrentBookRepository;
+import repository.impl.InMemoryMemberRepository;
+import report.ReportGenerator;
+import report.impl.BookReportGenerator;
+import service.BookService;
+import service.MemberService;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Các hot path ở tầng service: mượn/trả sách, đăng ký thành viên và xuất báo cáo
+ * Các service in ra console ở mỗi thao tác nên System.out được tắt trong lúc đo.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="LibraryServiceBenchmark -t 16"
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LibraryServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        BookService bookService;
+        List<Book> books;
+        String[] ids;
+        private PrintStream console;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            console = silenceConsole();
+            BookRepository repository = new ConcurrentBookRepository();
+            ids = BookRepositoryBenchmark.load(repository, size);
+            bookService = new BookService(repository);
+            books = repository.findAll();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Mỗi iteration bắt đầu lại từ một repository đúng size thành viên, và chỉ đăng ký thêm một lô cố định,
+     * để kích thước repository không lớn dần theo thời gian đo
+     */
+    @State(Scope.Benchmark)
+    public static class Registrations {
+        @Param({"10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        final AtomicLong sequence = new AtomicLong();
+        MemberService memberService;
+        private PrintStream console;
+
+        @Setup(Level.Trial)
+        public void silence() {
+            console = silenceConsole();
+        }
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            InMemoryMemberRepository repository = new InMemoryMemberRepository();
+            List<Member> members = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                members.add(member(i));
+            }
+            repository.saveAll(members);
+            memberService = new MemberService(repository);
+            sequence.set(size);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            System.setOut(console);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void borrowAndReturn(Catalog catalog, Blackhole blackhole) {
+        String id = catalog.ids[ThreadLocalRandom.current().nextInt(catalog.ids.length)];
+        try {
+            catalog.bookService.borrowBook(id);
+            catalog.bookService.returnBook(id);
+        } catch (IllegalStateException e) {
+            // Luồng khác đang giữ cuốn sách này - tranh chấp là một phần của workload
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = 1_000)
+    @Measurement(iterations = 10, batchSize = 1_000)
+    public void registerMember(Registrations registrations) {
+        long n = registrations.sequence.getAndIncrement();
+        registrations.memberService.registerMember(member(n));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void generateBookReport(Catalog catalog) {
+        ReportGenerator generator = new BookReportGenerator();
+        generator.generateReport(catalog.books);
+    }
+
+    private static Member member(long n) {
+        return new Member("M" + n, "Member " + n, "member" + n + "@email.com", "0123456789");
+    }
+
+    private static PrintStream silenceConsole() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return console;
+    }
+}
@@ -0,0 +1,90 @@
+package benchmark.jmh;
+
+import model.Member;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.MemberRepository;
+import repository.impl.InMemoryMemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * findByName: chỉ mục n-gram so với cách quét + toLowerCase trước đây
+ * Truy vấn là chuỗi con 3-6 ký tự của các tên có thật, giống người dùng đang gõ dở;
+ * dùng -bm sample để xem p99.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="MemberSearchBenchmark -bm sample -p size=1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class MemberSearchBenchmark {
+    private static final String[] FAMILY = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng"};
+    private static final String[] MIDDLE = {"Văn", "Thị", "Hữu", "Đức", "Minh", "Ngọc", "Thanh", "Quốc"};
+    private static final String[] GIVEN = {"An", "Bình", "Châu", "Dũng", "Giang", "Hà", "Hải", "Khánh", "Linh",
+            "Long", "Mai", "Nam", "Phúc", "Quân", "Sơn", "Tâm", "Thảo", "Trang", "Tuấn", "Vy"};
+    private static final int QUERIES = 1_000;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private MemberRepository repository;
+    private List<Member> members;
+    private String[] workload;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        repository = new InMemoryMemberRepository();
+        members = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = FAMILY[random.nextInt(FAMILY.length)] + " " + MIDDLE[random.nextInt(MIDDLE.length)]
+                    + " " + GIVEN[random.nextInt(GIVEN.length)] + " " + Integer.toString(i, 36);
+            members.add(new Member("M" + i, name, "member" + i + "@email.com", null));
+        }
+        repository.saveAll(members);
+
+        workload = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String name = members.get(random.nextInt(size)).getName();
+            int length = 3 + random.nextInt(4);
+            int start = random.nextInt(Math.max(1, name.length() - length));
+            workload[i] = name.substring(start, Math.min(name.length(), start + length));
+        }
+    }
+
+    @Benchmark
+    public List<Member> index() {
+        return repository.findByName(next());
+    }
+
+    // Cách cài đặt cũ của findByName
+    @Benchmark
+    public List<Member> scan() {
+        String name = next();
+        return members.stream()
+                .filter(member -> member.getName().toLowerCase().contains(name.toLowerCase()))
+                .collect(Collectors.toList());
+    }
+
+    private String next() {
+        return workload[ThreadLocalRandom.current().nextInt(QUERIES)];
+    }
+}
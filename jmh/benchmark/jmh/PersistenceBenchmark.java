@@ -0,0 +1,160 @@
+package benchmark.jmh;
+
+import model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.impl.ConcurrentBookRepository;
+import repository.impl.MappedBookRepository;
+import repository.wal.JournaledBookRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Persistence: tốc độ ghi bền vững qua WAL (fsync theo group commit) và thời gian khởi động
+ * Khởi động so sánh dựng lại catalog bằng save, phát lại WAL, nạp snapshot WAL và map snapshot vào bộ nhớ.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="PersistenceBenchmark -p size=1000000"
+ *       mvn test-compile exec:exec -Djmh.args="PersistenceBenchmark.durableSave -t 8"
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class PersistenceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Startup {
+        @Param({"10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        List<Book> books;
+        Path directory;
+        Path mappedSnapshot;
+        Path walOnly;
+        Path walSnapshot;
+
+        @Setup
+        public void setUp() throws IOException {
+            books = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                books.add(BookRepositoryBenchmark.book(i));
+            }
+            directory = Files.createTempDirectory("persistence-benchmark");
+
+            ConcurrentBookRepository catalog = new ConcurrentBookRepository();
+            catalog.saveAll(books);
+            mappedSnapshot = directory.resolve("catalog.snapshot");
+            MappedBookRepository.writeSnapshot(mappedSnapshot, catalog.streamAll());
+
+            walOnly = directory.resolve("wal-only");
+            try (JournaledBookRepository repository = new JournaledBookRepository(walOnly)) {
+                repository.saveAll(books);
+            }
+            walSnapshot = directory.resolve("wal-snapshot");
+            try (JournaledBookRepository repository = new JournaledBookRepository(walSnapshot)) {
+                repository.saveAll(books);
+                repository.snapshot();
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Journal {
+        final AtomicLong sequence = new AtomicLong();
+        Path directory;
+        JournaledBookRepository repository;
+
+        @Setup
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("wal-benchmark");
+            repository = new JournaledBookRepository(directory);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            repository.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    // Baseline: dựng lại catalog trong bộ nhớ từ dữ liệu đã có
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long rebuild(Startup startup) {
+        ConcurrentBookRepository repository = new ConcurrentBookRepository();
+        repository.saveAll(startup.books);
+        return repository.count();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long openMappedSnapshot(Startup startup) {
+        return new MappedBookRepository(startup.mappedSnapshot).count();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long replayWal(Startup startup) {
+        try (JournaledBookRepository repository = new JournaledBookRepository(startup.walOnly)) {
+            return repository.getRecoveredRecordCount();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public long loadWalSnapshot(Startup startup) {
+        try (JournaledBookRepository repository = new JournaledBookRepository(startup.walSnapshot)) {
+            return repository.count();
+        }
+    }
+
+    // Mỗi save chỉ trả về khi đã fsync; chạy nhiều luồng (-t) để thấy tác dụng của group commit
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public void durableSave(Journal journal) {
+        journal.repository.save(BookRepositoryBenchmark.book((int) journal.sequence.getAndIncrement()));
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package benchmark.jmh;
+
+import model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import report.impl.BookReportExporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Xuất báo cáo sách ra CSV và định dạng cột, có và không nén gzip
+ * Dữ liệu được sinh dạng stream nên bộ nhớ không phụ thuộc số dòng; định dạng chọn theo phần mở rộng file.
+ *
+ * Chạy: mvn test-compile exec:exec -Djmh.args="ReportExportBenchmark -p rows=1000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportExportBenchmark {
+    @Param({"books.csv", "books.csv.gz", "books.col", "books.col.gz"})
+    public String file;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public long rows;
+
+    private final BookReportExporter exporter = new BookReportExporter(Stream::empty);
+    private File target;
+
+    @Setup
+    public void setUp() throws IOException {
+        target = new File(Files.createTempDirectory("report-export").toFile(), file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target.toPath());
+        Files.deleteIfExists(target.getParentFile().toPath());
+    }
+
+    @Benchmark
+    public long export() {
+        return exporter.exportToFile(target, books(rows));
+    }
+
+    private static Stream<Book> books(long rowCount) {
+        return LongStream.range(0, rowCount).mapToObj(i -> {
+            Book book = new Book("B" + i, "Title " + i, "Author " + (i % 10_000), "978-0-13-235088-4");
+            book.setAvailable(i % 3 != 0);
+            return book;
+        });
+    }
+}
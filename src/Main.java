@@ -5,10 +5,12 @@ import repository.MemberRepository;
 import repository.impl.InMemoryBookRepository;
 import repository.impl.InMemoryMemberRepository;
 import repository.impl.DatabaseBookRepository;
+import repository.impl.ConcurrentBookRepository;
 import service.BookService;
 import service.LibraryService;
 import service.MemberService;
 import notification.NotificationService;
+import notification.impl.AsyncNotificationService;
 import notification.impl.EmailNotificationService;
 import notification.impl.SMSNotificationService;
 import notification.impl.PushNotificationService;
@@ -47,7 +49,12 @@ public class Main {
         // Demo Dependency Inversion Principle - thay đổi implementation
         System.out.println("🔄 DEMO: Thay đổi từ InMemory sang Database Repository");
         System.out.println("=====================================================");
-        BookRepository databaseRepo = new DatabaseBookRepository();
+        // Cần JDBC driver trong classpath, ví dụ: java -Dlibrary.jdbc.url=jdbc:h2:./library -cp out:h2.jar Main
+        String jdbcUrl = System.getProperty("library.jdbc.url");
+        BookRepository databaseRepo = jdbcUrl != null
+                ? new DatabaseBookRepository(jdbcUrl)
+                : new ConcurrentBookRepository();
+        System.out.println("Repository: " + databaseRepo.getClass().getSimpleName());
         BookService databaseBookService = new BookService(databaseRepo);
         
         // Cùng một BookService, nhưng với implementation khác
@@ -57,7 +64,8 @@ public class Main {
        
         
         // Demo Open/Closed Principle - có thể thay đổi implementation mà không sửa code
-        NotificationService notificationService = new EmailNotificationService();
+        // Decorator gửi bất đồng bộ: LibraryService không phải chờ kênh email gửi xong
+        AsyncNotificationService notificationService = new AsyncNotificationService(new EmailNotificationService());
         PaymentProcessor paymentProcessor = new CreditCardPaymentProcessor();
         ReportGenerator reportGenerator = new BookReportGenerator();
         
@@ -66,20 +74,25 @@ public class Main {
             paymentProcessor, reportGenerator
         );
         
-        // Demo Single Responsibility Principle
-        demonstrateSRP(bookService, memberService);
-        
-        // Demo Open/Closed Principle
-        demonstrateOCP(notificationService, paymentProcessor);
-        
-        // Demo Liskov Substitution Principle
-        demonstrateLSP();
-        
-        // Demo Interface Segregation Principle
-        demonstrateISP();
-        
-        // Demo Dependency Inversion Principle
-        demonstrateDIP(libraryService);
+        try {
+            // Demo Single Responsibility Principle
+            demonstrateSRP(bookService, memberService);
+            
+            // Demo Open/Closed Principle
+            demonstrateOCP(notificationService, paymentProcessor);
+            
+            // Demo Liskov Substitution Principle
+            demonstrateLSP();
+            
+            // Demo Interface Segregation Principle
+            demonstrateISP(memberService);
+            
+            // Demo Dependency Inversion Principle
+            demonstrateDIP(libraryService, notificationService);
+        } finally {
+            // Gửi nốt các thông báo còn trong hàng đợi rồi dừng worker
+            notificationService.close();
+        }
         
         System.out.println("\n🎉 Demo hoàn thành! Tất cả nguyên tắc SOLID đã được minh họa.");
     }
@@ -235,7 +248,7 @@ public class Main {
      * Demo Interface Segregation Principle (ISP)
      * Client không nên phụ thuộc vào interface mà họ không sử dụng
      */
-    private static void demonstrateISP() {
+    private static void demonstrateISP(MemberService memberService) {
         System.out.println("4️⃣ INTERFACE SEGREGATION PRINCIPLE (ISP)");
         System.out.println("==========================================");
         System.out.println("✓ Tách interface thành các phần nhỏ, cụ thể");
@@ -248,7 +261,7 @@ public class Main {
         bookReport.generateReport(java.util.Arrays.asList("Sample data"));
         
         // MemberReportGenerator implement nhiều interface
-        MemberReportGenerator memberReport = new MemberReportGenerator();
+        MemberReportGenerator memberReport = new MemberReportGenerator(memberService::streamAllMembers);
         System.out.println("👥 Member Report (with export and print capabilities):");
         memberReport.generateReport(java.util.Arrays.asList("Sample data"));
         
@@ -256,7 +269,19 @@ public class Main {
         if (memberReport instanceof ExportableReport) {
             ExportableReport exportable = (ExportableReport) memberReport;
             System.out.println("Supported formats: " + exportable.getSupportedFormats());
-            exportable.exportToFile(new java.io.File("member_report.pdf"));
+            // Xuất vào một thư mục tạm riêng và xóa ngay sau demo, không để lại file sau mỗi lần chạy
+            try {
+                java.nio.file.Path directory = java.nio.file.Files.createTempDirectory("member-report");
+                java.io.File file = directory.resolve("member_report.csv").toFile();
+                try {
+                    exportable.exportToFile(file);
+                } finally {
+                    java.nio.file.Files.deleteIfExists(file.toPath());
+                    java.nio.file.Files.delete(directory);
+                }
+            } catch (java.io.IOException e) {
+                System.out.println("❌ Export failed: " + e.getMessage());
+            }
         }
         
         // Demo print capability
@@ -272,7 +297,7 @@ public class Main {
      * Demo Dependency Inversion Principle (DIP)
      * Phụ thuộc vào abstraction, không phụ thuộc vào concrete class
      */
-    private static void demonstrateDIP(LibraryService libraryService) {
+    private static void demonstrateDIP(LibraryService libraryService, AsyncNotificationService notifications) {
         System.out.println("5️⃣ DEPENDENCY INVERSION PRINCIPLE (DIP)");
         System.out.println("========================================");
         System.out.println("✓ LibraryService phụ thuộc vào interface, không phụ thuộc vào concrete class");
@@ -284,12 +309,17 @@ public class Main {
         try {
             // Demo mượn sách
             libraryService.borrowBook("M001", "B001");
+            // Chờ email được gửi để output của demo giữ đúng thứ tự
+            notifications.flush();
             
             // Demo trả sách
             libraryService.returnBook("M001", "B001");
+            notifications.flush();
             
-            // Demo thanh toán phạt
+            // Demo thanh toán phạt: chỉ thu được khoản phạt đã ghi nhận
+            libraryService.assessFine("M001", 25.0);
             libraryService.processFinePayment("M001", 25.0);
+            notifications.flush();
             
             // Demo tạo báo cáo
             libraryService.generateLibraryReport();
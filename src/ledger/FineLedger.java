@@ -0,0 +1,320 @@
+package ledger;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sổ phạt của thư viện, lưu số tiền bằng long (cent) thay vì double
+ * Các bút toán được lưu theo cột trong mảng nguyên thủy (thành viên, số tiền, loại, thời điểm),
+ * không tạo object cho từng bút toán. Số dư còn nợ và tổng theo loại của mỗi thành viên được cập nhật
+ * ngay khi ghi nên tra cứu là O(1); báo cáo theo khoảng thời gian duyệt tuần tự các cột.
+ * Khoản thanh toán đang được xử lý được giữ chỗ (reservePayment) để không thu vượt số còn nợ.
+ */
+public class FineLedger {
+    /**
+     * Loại bút toán
+     */
+    public enum EntryType {
+        CHARGE,   // phát sinh phạt
+        PAYMENT,  // thành viên đã trả
+        WAIVER    // thư viện miễn phạt
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int TYPE_COUNT = EntryType.values().length;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Bảng băm địa chỉ mở: memberId -> slot + 1 (0 là ô trống), không boxing Integer khi tra cứu
+    private int[] slotTable = new int[INITIAL_CAPACITY * 2];
+    private int memberCount;
+    private String[] memberIds = new String[INITIAL_CAPACITY];
+    private long[] outstanding = new long[INITIAL_CAPACITY];
+    // Tổng theo loại bút toán của từng thành viên: chỉ số slot * TYPE_COUNT + loại
+    private long[] memberTotals = new long[INITIAL_CAPACITY * TYPE_COUNT];
+    // Số tiền đang được giữ chỗ cho các khoản thanh toán chưa xong
+    private long[] reserved = new long[INITIAL_CAPACITY];
+
+    // Các cột bút toán
+    private int[] entryMembers = new int[INITIAL_CAPACITY];
+    private long[] entryAmounts = new long[INITIAL_CAPACITY];
+    private byte[] entryTypes = new byte[INITIAL_CAPACITY];
+    private long[] entryTimes = new long[INITIAL_CAPACITY];
+    private int entryCount;
+
+    private final long[] totals = new long[TYPE_COUNT];
+    private long totalOutstanding;
+
+    public void charge(String memberId, long amountMinor) {
+        record(memberId, amountMinor, EntryType.CHARGE, System.currentTimeMillis());
+    }
+
+    public void recordPayment(String memberId, long amountMinor) {
+        record(memberId, amountMinor, EntryType.PAYMENT, System.currentTimeMillis());
+    }
+
+    public void waive(String memberId, long amountMinor) {
+        record(memberId, amountMinor, EntryType.WAIVER, System.currentTimeMillis());
+    }
+
+    public void record(String memberId, long amountMinor, EntryType type, long timestampMillis) {
+        if (memberId == null || amountMinor <= 0) {
+            throw new IllegalArgumentException("Member ID is required and amount must be positive");
+        }
+        lock.writeLock().lock();
+        try {
+            // Tính mọi tổng trước: nếu tràn số thì ném lỗi khi sổ chưa bị thay đổi gì
+            long delta = type == EntryType.CHARGE ? amountMinor : -amountMinor;
+            int existing = findSlot(memberId);
+            long memberOutstanding = Math.addExact(existing < 0 ? 0 : outstanding[existing], delta);
+            long memberTypeTotal = Math.addExact(
+                    existing < 0 ? 0 : memberTotals[existing * TYPE_COUNT + type.ordinal()], amountMinor);
+            long newTotalOutstanding = Math.addExact(totalOutstanding, delta);
+            long typeTotal = Math.addExact(totals[type.ordinal()], amountMinor);
+
+            int slot = existing < 0 ? addMember(memberId) : existing;
+            if (entryCount == entryAmounts.length) {
+                growEntries();
+            }
+            entryMembers[entryCount] = slot;
+            entryAmounts[entryCount] = amountMinor;
+            entryTypes[entryCount] = (byte) type.ordinal();
+            entryTimes[entryCount] = timestampMillis;
+            entryCount++;
+
+            outstanding[slot] = memberOutstanding;
+            memberTotals[slot * TYPE_COUNT + type.ordinal()] = memberTypeTotal;
+            totalOutstanding = newTotalOutstanding;
+            totals[type.ordinal()] = typeTotal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Giữ chỗ cho một khoản thanh toán sắp gửi đi; sau đó phải gọi settlePayment hoặc releasePayment
+     * Từ chối nếu số tiền vượt số còn nợ trừ các khoản đang giữ chỗ, kể cả khi nhiều luồng cùng trả.
+     */
+    public void reservePayment(String memberId, long amountMinor) {
+        if (memberId == null || amountMinor <= 0) {
+            throw new IllegalArgumentException("Member ID is required and amount must be positive");
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(memberId);
+            long payable = slot < 0 ? 0 : outstanding[slot] - reserved[slot];
+            if (amountMinor > payable) {
+                throw new IllegalArgumentException("Payment of " + Money.format(amountMinor)
+                        + " exceeds outstanding fines of " + Money.format(Math.max(payable, 0)));
+            }
+            reserved[slot] += amountMinor;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bỏ giữ chỗ khi thanh toán thất bại
+     */
+    public void releasePayment(String memberId, long amountMinor) {
+        lock.writeLock().lock();
+        try {
+            release(memberId, amountMinor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Thanh toán đã thành công: bỏ giữ chỗ và ghi bút toán PAYMENT trong cùng một lần khóa
+     */
+    public void settlePayment(String memberId, long amountMinor) {
+        lock.writeLock().lock();
+        try {
+            release(memberId, amountMinor);
+            try {
+                record(memberId, amountMinor, EntryType.PAYMENT, System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                reserved[findSlot(memberId)] += amountMinor;
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Số tiền thành viên còn nợ (cent); âm nghĩa là trả thừa
+     */
+    public long getOutstanding(String memberId) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(memberId);
+            return slot < 0 ? 0 : outstanding[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getTotalOutstanding() {
+        lock.readLock().lock();
+        try {
+            return totalOutstanding;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getTotal(EntryType type) {
+        lock.readLock().lock();
+        try {
+            return totals[type.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tổng số tiền của một loại bút toán trong khoảng [fromMillis, toMillis)
+     */
+    public long sumBetween(EntryType type, long fromMillis, long toMillis) {
+        byte wanted = (byte) type.ordinal();
+        lock.readLock().lock();
+        try {
+            long sum = 0;
+            for (int i = 0; i < entryCount; i++) {
+                long time = entryTimes[i];
+                if (entryTypes[i] == wanted && time >= fromMillis && time < toMillis) {
+                    sum += entryAmounts[i];
+                }
+            }
+            return sum;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tổng số tiền của một loại bút toán của một thành viên (dùng cho lịch sử/đối soát)
+     */
+    public long sumForMember(String memberId, EntryType type) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(memberId);
+            return slot < 0 ? 0 : memberTotals[slot * TYPE_COUNT + type.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Các thành viên còn nợ, theo thứ tự xuất hiện lần đầu trong sổ
+     */
+    public Map<String, Long> getOutstandingByMember() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> balances = new LinkedHashMap<>();
+            for (int slot = 0; slot < memberCount; slot++) {
+                if (outstanding[slot] > 0) {
+                    balances.put(memberIds[slot], outstanding[slot]);
+                }
+            }
+            return balances;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getEntryCount() {
+        lock.readLock().lock();
+        try {
+            return entryCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getMemberCount() {
+        lock.readLock().lock();
+        try {
+            return memberCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void release(String memberId, long amountMinor) {
+        int slot = findSlot(memberId);
+        if (slot < 0 || amountMinor <= 0 || amountMinor > reserved[slot]) {
+            throw new IllegalStateException("No reserved payment of " + Money.format(amountMinor)
+                    + " for member " + memberId);
+        }
+        reserved[slot] -= amountMinor;
+    }
+
+    private int findSlot(String memberId) {
+        int mask = slotTable.length - 1;
+        for (int i = hash(memberId) & mask; ; i = (i + 1) & mask) {
+            int entry = slotTable[i];
+            if (entry == 0) {
+                return -1;
+            }
+            if (memberIds[entry - 1].equals(memberId)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int addMember(String memberId) {
+        int created = memberCount;
+        if (created == outstanding.length) {
+            int capacity = created * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            outstanding = Arrays.copyOf(outstanding, capacity);
+            reserved = Arrays.copyOf(reserved, capacity);
+            memberTotals = Arrays.copyOf(memberTotals, capacity * TYPE_COUNT);
+        }
+        memberIds[created] = memberId;
+        memberCount++;
+        // Giữ hệ số tải <= 0.5 để chuỗi dò tuyến tính ngắn
+        if (memberCount * 2 > slotTable.length) {
+            rehash(slotTable.length * 2);
+        } else {
+            insert(slotTable, created);
+        }
+        return created;
+    }
+
+    private void rehash(int capacity) {
+        int[] table = new int[capacity];
+        for (int slot = 0; slot < memberCount; slot++) {
+            insert(table, slot);
+        }
+        slotTable = table;
+    }
+
+    private void insert(int[] table, int slot) {
+        int mask = table.length - 1;
+        int i = hash(memberIds[slot]) & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    private static int hash(String memberId) {
+        int h = memberId.hashCode();
+        // Trộn các bit cao xuống vì chỉ số lấy bằng phép AND
+        return h ^ (h >>> 16);
+    }
+
+    private void growEntries() {
+        int capacity = entryAmounts.length * 2;
+        entryMembers = Arrays.copyOf(entryMembers, capacity);
+        entryAmounts = Arrays.copyOf(entryAmounts, capacity);
+        entryTypes = Arrays.copyOf(entryTypes, capacity);
+        entryTimes = Arrays.copyOf(entryTimes, capacity);
+    }
+}
@@ -0,0 +1,47 @@
+package ledger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Chuyển đổi số tiền giữa double và đơn vị nhỏ nhất (cent) kiểu long
+ * Mọi phép cộng dồn trong sổ phạt đều làm trên long nên không có sai số làm tròn.
+ */
+public final class Money {
+    public static final int MINOR_UNITS_PER_MAJOR = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Làm tròn HALF_UP tới cent; chỉ dùng ở biên (dữ liệu double từ API cũ)
+     */
+    public static long toMinorUnits(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Invalid amount: " + amount);
+        }
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toMajorUnits(long minorUnits) {
+        return minorUnits / (double) MINOR_UNITS_PER_MAJOR;
+    }
+
+    /**
+     * Định dạng "$12.34" mà không đi qua double
+     */
+    public static String format(long minorUnits) {
+        StringBuilder text = new StringBuilder(16);
+        if (minorUnits < 0) {
+            text.append('-');
+        }
+        // Chia trước rồi mới lấy trị tuyệt đối: Math.abs(Long.MIN_VALUE) vẫn âm
+        long major = Math.abs(minorUnits / MINOR_UNITS_PER_MAJOR);
+        long cents = Math.abs(minorUnits % MINOR_UNITS_PER_MAJOR);
+        text.append('$').append(major).append('.');
+        if (cents < 10) {
+            text.append('0');
+        }
+        return text.append(cents).toString();
+    }
+}
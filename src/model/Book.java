@@ -1,5 +1,7 @@
 package model;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * Lớp Book đại diện cho một cuốn sách trong thư viện
  * Tuân thủ Single Responsibility Principle - chỉ quản lý thông tin sách
@@ -9,14 +11,13 @@ public class Book {
     private String title;
     private String author;
     private String isbn;
-    private boolean isAvailable;
+    private final AtomicBoolean isAvailable = new AtomicBoolean(true);
     
     public Book(String id, String title, String author, String isbn) {
         this.id = id;
         this.title = title;
         this.author = author;
         this.isbn = isbn;
-        this.isAvailable = true;
     }
     
     // Getters và Setters
@@ -32,13 +33,18 @@ public class Book {
     public String getIsbn() { return isbn; }
     public void setIsbn(String isbn) { this.isbn = isbn; }
     
-    public boolean isAvailable() { return isAvailable; }
-    public void setAvailable(boolean available) { isAvailable = available; }
+    public boolean isAvailable() { return isAvailable.get(); }
+    public void setAvailable(boolean available) { isAvailable.set(available); }
+    
+    // Chuyển trạng thái nguyên tử: chỉ thành công nếu trạng thái hiện tại đúng bằng expected
+    public boolean compareAndSetAvailable(boolean expected, boolean available) {
+        return isAvailable.compareAndSet(expected, available);
+    }
     
     @Override
     public String toString() {
         return String.format("Book{id='%s', title='%s', author='%s', isbn='%s', available=%s}", 
-                           id, title, author, isbn, isAvailable);
+                           id, title, author, isbn, isAvailable());
     }
 }
 
@@ -0,0 +1,23 @@
+package notification;
+
+/**
+ * Một thông báo cần gửi: nội dung và người nhận
+ * Dùng khi các thông báo được xếp hàng hoặc gửi theo lô
+ */
+public class Notification {
+    private final String message;
+    private final String recipient;
+    
+    public Notification(String message, String recipient) {
+        this.message = message;
+        this.recipient = recipient;
+    }
+    
+    public String getMessage() { return message; }
+    public String getRecipient() { return recipient; }
+    
+    @Override
+    public String toString() {
+        return String.format("Notification{recipient='%s', message='%s'}", recipient, message);
+    }
+}
@@ -1,10 +1,19 @@
 package notification;
 
+import java.util.List;
+
 /**
  * Interface cho dịch vụ thông báo
  * Tuân thủ Open/Closed Principle - mở để mở rộng, đóng để sửa đổi
  */
 public interface NotificationService {
     void sendNotification(String message, String recipient);
+    
+    // Gửi theo lô - mặc định gửi lần lượt, kênh nào hỗ trợ gửi lô thật thì override
+    default void sendNotifications(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            sendNotification(notification.getMessage(), notification.getRecipient());
+        }
+    }
 }
 
@@ -0,0 +1,227 @@
+package notification.impl;
+
+import notification.Notification;
+import notification.NotificationService;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorator gửi thông báo bất đồng bộ cho một kênh bất kỳ
+ * Luồng gọi chỉ đưa thông báo vào hàng đợi có giới hạn rồi trả về; các worker lấy theo lô và gửi qua kênh thật.
+ * Tuân thủ Open/Closed Principle - thêm hành vi mà không sửa Email/SMS/Push NotificationService
+ */
+public class AsyncNotificationService implements NotificationService, AutoCloseable {
+    /**
+     * Cách xử lý khi hàng đợi đầy
+     */
+    public enum OverflowPolicy {
+        BLOCK,        // chờ tới khi có chỗ trống
+        DROP,         // bỏ thông báo mới và tăng bộ đếm dropped
+        CALLER_RUNS   // gửi đồng bộ ngay trên luồng gọi
+    }
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long POLL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final NotificationService delegate;
+    private final BlockingQueue<Notification> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final ExecutorService workers;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    // Số thông báo đã vào hàng đợi và số đã gửi xong (kể cả lỗi), dùng cho flush()
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong settled = new AtomicLong();
+    private final Object settledMonitor = new Object();
+    private volatile boolean closed;
+
+    public AsyncNotificationService(NotificationService delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_WORKERS, DEFAULT_BATCH_SIZE, OverflowPolicy.BLOCK);
+    }
+
+    public AsyncNotificationService(NotificationService delegate, int capacity, int workerCount,
+                                    int batchSize, OverflowPolicy overflowPolicy) {
+        if (capacity <= 0 || workerCount <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Capacity, worker count and batch size must be positive");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.workers = newWorkerExecutor(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drainLoop);
+        }
+    }
+
+    @Override
+    public void sendNotification(String message, String recipient) {
+        if (closed) {
+            throw new IllegalStateException("Notification service is closed");
+        }
+        Notification notification = new Notification(message, recipient);
+        if (!enqueue(notification)) {
+            return;
+        }
+        // close() có thể đã chạy xong giữa lúc kiểm tra và lúc đưa vào hàng đợi: tự gửi để không mất thông báo
+        if (closed && queue.remove(notification)) {
+            deliverQueued(List.of(notification));
+        }
+    }
+
+    /**
+     * Chờ tới khi mọi thông báo đã vào hàng đợi trước lời gọi này được gửi xong
+     */
+    public void flush() {
+        long target = accepted.get();
+        synchronized (settledMonitor) {
+            while (settled.get() < target) {
+                try {
+                    settledMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Ngừng nhận thông báo mới, gửi hết những thông báo còn trong hàng đợi rồi dừng các worker
+     */
+    @Override
+    public void close() {
+        closed = true;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Notification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            deliverQueued(remaining);
+        }
+    }
+
+    private boolean enqueue(Notification notification) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    // Chờ theo từng nhịp ngắn thay vì put(): luồng gọi không bị kẹt mãi khi close() dừng các worker
+                    while (!queue.offer(notification, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (closed) {
+                            // Đã đóng trong lúc chờ: gửi ngay trên luồng gọi để không mất thông báo
+                            deliver(List.of(notification));
+                            return false;
+                        }
+                    }
+                    accepted.incrementAndGet();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                    return false;
+                }
+            case CALLER_RUNS:
+                if (queue.offer(notification)) {
+                    accepted.incrementAndGet();
+                    return true;
+                }
+                deliver(List.of(notification));
+                return false;
+            case DROP:
+            default:
+                if (queue.offer(notification)) {
+                    accepted.incrementAndGet();
+                    return true;
+                }
+                dropped.incrementAndGet();
+                return false;
+        }
+    }
+
+    private void drainLoop() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Notification first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                // Chỉ dừng khi đã đóng và hàng đợi đã rỗng (drain-on-shutdown)
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            deliverQueued(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliverQueued(List<Notification> batch) {
+        deliver(batch);
+        settled.addAndGet(batch.size());
+        synchronized (settledMonitor) {
+            settledMonitor.notifyAll();
+        }
+    }
+
+    private void deliver(List<Notification> batch) {
+        try {
+            delegate.sendNotifications(batch);
+        } catch (RuntimeException e) {
+            // Lỗi của kênh gửi không được làm chết worker
+            failed.addAndGet(batch.size());
+        }
+    }
+
+    /**
+     * Dùng virtual thread nếu JVM hỗ trợ (Java 21+), ngược lại dùng pool cố định các luồng daemon
+     */
+    private static ExecutorService newWorkerExecutor(int workerCount) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger sequence = new AtomicInteger();
+            return Executors.newFixedThreadPool(workerCount, task -> {
+                Thread thread = new Thread(task, "notification-worker-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package notification.impl;
+
+import notification.NotificationService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator gom các thông báo tới cùng một người nhận trong một khoảng thời gian thành một bản tổng hợp (digest)
+ * Ví dụ: thành viên mượn mười cuốn sách trong một lần chỉ nhận một tin nhắn thay vì mười.
+ * Các thông báo trùng nội dung trong cùng cửa sổ chỉ được gửi một lần.
+ */
+public class CoalescingNotificationService implements NotificationService, AutoCloseable {
+    private static final int DEFAULT_MAX_MESSAGES = 50;
+
+    private final NotificationService delegate;
+    private final long windowMillis;
+    private final int maxMessagesPerDigest;
+    private final Map<String, Digest> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private volatile boolean closed;
+
+    public CoalescingNotificationService(NotificationService delegate, long windowMillis) {
+        this(delegate, windowMillis, DEFAULT_MAX_MESSAGES);
+    }
+
+    public CoalescingNotificationService(NotificationService delegate, long windowMillis, int maxMessagesPerDigest) {
+        if (windowMillis <= 0 || maxMessagesPerDigest <= 0) {
+            throw new IllegalArgumentException("Window and max messages per digest must be positive");
+        }
+        this.delegate = delegate;
+        this.windowMillis = windowMillis;
+        this.maxMessagesPerDigest = maxMessagesPerDigest;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "notification-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void sendNotification(String message, String recipient) {
+        received.increment();
+        if (closed) {
+            deliver(recipient, List.of(message));
+            return;
+        }
+        Digest[] full = new Digest[1];
+        boolean[] direct = new boolean[1];
+        pending.compute(recipient, (key, digest) -> {
+            if (digest == null) {
+                // close() đặt cờ trước khi lấy các digest ra; digest tạo ngay trước đó được luồng gọi tự gửi sau compute()
+                if (closed) {
+                    direct[0] = true;
+                    return null;
+                }
+                Digest created = new Digest();
+                try {
+                    created.flushTask = scheduler.schedule(() -> flush(key, created), windowMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Bộ hẹn giờ đã dừng: gửi đồng bộ
+                    direct[0] = true;
+                    return null;
+                }
+                digest = created;
+            }
+            if (!digest.messages.add(message)) {
+                duplicates.increment();
+            }
+            // Digest đã đủ lớn: gửi ngay thay vì chờ hết cửa sổ
+            if (digest.messages.size() >= maxMessagesPerDigest) {
+                full[0] = digest;
+                return null;
+            }
+            return digest;
+        });
+        if (direct[0]) {
+            deliver(recipient, List.of(message));
+        } else if (full[0] != null) {
+            full[0].flushTask.cancel(false);
+            deliver(recipient, new ArrayList<>(full[0].messages));
+        } else if (closed) {
+            // close() đã chụp danh sách người nhận trong lúc compute() trên chưa xong: tự gửi digest vừa tạo
+            Digest orphan = pending.remove(recipient);
+            if (orphan != null) {
+                orphan.flushTask.cancel(false);
+                deliver(recipient, new ArrayList<>(orphan.messages));
+            }
+        }
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    /**
+     * Gửi ngay tất cả digest đang chờ rồi dừng bộ hẹn giờ
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (String recipient : new ArrayList<>(pending.keySet())) {
+            Digest digest = pending.remove(recipient);
+            if (digest != null) {
+                digest.flushTask.cancel(false);
+                deliver(recipient, new ArrayList<>(digest.messages));
+            }
+        }
+        scheduler.shutdown();
+    }
+
+    private void flush(String recipient, Digest digest) {
+        // remove(key, value) thất bại nghĩa là digest này đã được gửi do đầy hoặc do close()
+        if (pending.remove(recipient, digest)) {
+            deliver(recipient, new ArrayList<>(digest.messages));
+        }
+    }
+
+    private void deliver(String recipient, List<String> messages) {
+        delivered.increment();
+        if (messages.size() == 1) {
+            delegate.sendNotification(messages.get(0), recipient);
+            return;
+        }
+        StringBuilder digest = new StringBuilder("You have ").append(messages.size()).append(" notifications:");
+        for (String message : messages) {
+            digest.append(System.lineSeparator()).append("- ").append(message);
+        }
+        delegate.sendNotification(digest.toString(), recipient);
+    }
+
+    private static class Digest {
+        // LinkedHashSet: giữ thứ tự và loại bỏ nội dung trùng
+        private final Set<String> messages = new LinkedHashSet<>();
+        private ScheduledFuture<?> flushTask;
+    }
+}
@@ -0,0 +1,217 @@
+package notification.impl;
+
+import notification.Notification;
+import notification.NotificationService;
+import util.TokenBucket;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gửi một thông báo tới nhiều kênh (Email, SMS, Push...) song song
+ * Mỗi kênh có thể có giới hạn tốc độ riêng (token bucket) để bảo vệ gateway phía sau;
+ * thông báo vượt giới hạn bị bỏ qua và được đếm trong thống kê của kênh đó.
+ * Các kênh chạy trên pool có giới hạn; khi pool đầy kênh được gửi ngay trên luồng gọi.
+ * Luồng gọi chỉ chờ tối đa deliveryTimeout, kênh chậm hơn tiếp tục gửi ở nền.
+ * Tuân thủ Open/Closed Principle - LibraryService vẫn chỉ thấy một NotificationService
+ */
+public class CompositeNotificationService implements NotificationService, AutoCloseable {
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_000;
+    private static final long DEFAULT_DELIVERY_TIMEOUT_MILLIS = 5_000;
+
+    private final ThreadPoolExecutor executor;
+    private final long deliveryTimeoutMillis;
+    private final LongAdder timedOut = new LongAdder();
+    private volatile boolean closed;
+
+    public CompositeNotificationService() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_DELIVERY_TIMEOUT_MILLIS);
+    }
+
+    public CompositeNotificationService(int threads, int queueCapacity, long deliveryTimeoutMillis) {
+        if (threads <= 0 || queueCapacity <= 0 || deliveryTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Threads, queue capacity and delivery timeout must be positive");
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "notification-fanout-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.deliveryTimeoutMillis = deliveryTimeoutMillis;
+    }
+
+    public CompositeNotificationService addChannel(String name, NotificationService service) {
+        channels.add(new Channel(name, service, null));
+        return this;
+    }
+
+    public CompositeNotificationService addChannel(String name, NotificationService service,
+                                                   double messagesPerSecond, int burst) {
+        channels.add(new Channel(name, service, new TokenBucket(messagesPerSecond, burst)));
+        return this;
+    }
+
+    @Override
+    public void sendNotification(String message, String recipient) {
+        sendNotifications(List.of(new Notification(message, recipient)));
+    }
+
+    @Override
+    public void sendNotifications(List<Notification> notifications) {
+        if (closed) {
+            throw new IllegalStateException("Notification service is closed");
+        }
+        if (channels.size() == 1) {
+            channels.get(0).send(notifications);
+            return;
+        }
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(channels.size());
+        for (Channel channel : channels) {
+            try {
+                deliveries.add(CompletableFuture.runAsync(() -> channel.send(notifications), executor));
+            } catch (RejectedExecutionException e) {
+                // Pool đầy hoặc vừa bị close(): gửi ngay trên luồng gọi để không mất thông báo
+                channel.send(notifications);
+            }
+        }
+        awaitDeliveries(deliveries);
+    }
+
+    /**
+     * Số lần luồng gọi thôi chờ vì có kênh gửi quá deliveryTimeout
+     */
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    public Map<String, ChannelStatistics> getChannelStatistics() {
+        Map<String, ChannelStatistics> statistics = new LinkedHashMap<>();
+        for (Channel channel : channels) {
+            statistics.put(channel.name, channel.snapshot());
+        }
+        return statistics;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+    }
+
+    private void awaitDeliveries(List<CompletableFuture<Void>> deliveries) {
+        try {
+            CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0]))
+                    .get(deliveryTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Không giữ request lâu hơn giới hạn; các kênh chậm vẫn gửi tiếp ở nền
+            timedOut.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Channel.send đã tự bắt RuntimeException nên ở đây chỉ còn Error
+            throw new IllegalStateException("Notification delivery failed", e.getCause());
+        }
+    }
+
+    private static class Channel {
+        private final String name;
+        private final NotificationService service;
+        private final TokenBucket rateLimiter;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder deliveries = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Channel(String name, NotificationService service, TokenBucket rateLimiter) {
+            this.name = name;
+            this.service = service;
+            this.rateLimiter = rateLimiter;
+        }
+
+        void send(List<Notification> notifications) {
+            List<Notification> allowed = notifications;
+            if (rateLimiter != null) {
+                allowed = new ArrayList<>(notifications.size());
+                for (Notification notification : notifications) {
+                    if (rateLimiter.tryAcquire()) {
+                        allowed.add(notification);
+                    } else {
+                        dropped.increment();
+                    }
+                }
+                if (allowed.isEmpty()) {
+                    return;
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                service.sendNotifications(allowed);
+                sent.add(allowed.size());
+            } catch (RuntimeException e) {
+                // Lỗi của một kênh không được ảnh hưởng tới các kênh còn lại
+                failed.add(allowed.size());
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                deliveries.increment();
+                totalNanos.add(elapsed);
+                maxNanos.accumulateAndGet(elapsed, Math::max);
+            }
+        }
+
+        ChannelStatistics snapshot() {
+            long count = deliveries.sum();
+            double averageMillis = count == 0 ? 0 : totalNanos.sum() / (double) count / 1_000_000.0;
+            return new ChannelStatistics(sent.sum(), dropped.sum(), failed.sum(), averageMillis,
+                    maxNanos.get() / 1_000_000.0);
+        }
+    }
+
+    // Inner class for per-channel data
+    public static class ChannelStatistics {
+        private final long sent;
+        private final long dropped;
+        private final long failed;
+        private final double averageLatencyMillis;
+        private final double maxLatencyMillis;
+
+        public ChannelStatistics(long sent, long dropped, long failed,
+                                 double averageLatencyMillis, double maxLatencyMillis) {
+            this.sent = sent;
+            this.dropped = dropped;
+            this.failed = failed;
+            this.averageLatencyMillis = averageLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+        }
+
+        public long getSent() { return sent; }
+        public long getDropped() { return dropped; }
+        public long getFailed() { return failed; }
+        public double getAverageLatencyMillis() { return averageLatencyMillis; }
+        public double getMaxLatencyMillis() { return maxLatencyMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("ChannelStatistics{sent=%d, dropped=%d, failed=%d, avgLatency=%.2fms, maxLatency=%.2fms}",
+                               sent, dropped, failed, averageLatencyMillis, maxLatencyMillis);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package notification.impl;
+
+import notification.Notification;
+import notification.NotificationService;
+import notification.outbox.NotificationOutbox;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator ghi mọi thông báo vào outbox bền vững trước khi gửi qua kênh thật
+ * Luồng gọi chỉ ghi nối một bản ghi vào file memory-mapped rồi trả về; một luồng nền gửi và xác nhận (ACK).
+ * Nếu tiến trình chết giữa chừng, lần khởi động sau sẽ gửi lại các thông báo chưa được xác nhận.
+ * Thông báo gửi lỗi được thử lại với backoff tăng gấp đôi; sau maxAttempts lần thì được chuyển sang dead letter
+ * để outbox không đầy dần vì những thông báo không bao giờ gửi được. Dead letter vẫn xem được qua getDeadLetters()
+ * và gửi lại được qua requeueDeadLetters().
+ * Tuân thủ Open/Closed Principle - thêm độ bền mà không sửa Email/SMS/Push NotificationService
+ */
+public class OutboxNotificationService implements NotificationService, AutoCloseable {
+    private static final long POLL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final int DEFAULT_MAX_ATTEMPTS = 8;
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final NotificationService delegate;
+    private final NotificationOutbox outbox;
+    private final BlockingQueue<NotificationOutbox.Entry> queue = new LinkedBlockingQueue<>();
+    private final DelayQueue<Retry> retries = new DelayQueue<>();
+    private final int maxAttempts;
+    private final Thread deliveryThread;
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final int replayed;
+    private volatile boolean closed;
+
+    public OutboxNotificationService(NotificationService delegate, Path outboxFile) {
+        this(delegate, new NotificationOutbox(outboxFile));
+    }
+
+    public OutboxNotificationService(NotificationService delegate, NotificationOutbox outbox) {
+        this(delegate, outbox, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public OutboxNotificationService(NotificationService delegate, NotificationOutbox outbox, int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+        this.delegate = delegate;
+        this.outbox = outbox;
+        this.maxAttempts = maxAttempts;
+        // Gửi lại các thông báo chưa được xác nhận từ lần chạy trước, trước mọi thông báo mới
+        List<NotificationOutbox.Entry> pending = outbox.pending();
+        this.replayed = pending.size();
+        queue.addAll(pending);
+        this.deliveryThread = new Thread(this::deliveryLoop, "notification-outbox-delivery");
+        deliveryThread.setDaemon(true);
+        deliveryThread.start();
+    }
+
+    @Override
+    public void sendNotification(String message, String recipient) {
+        if (closed) {
+            throw new IllegalStateException("Notification service is closed");
+        }
+        Notification notification = new Notification(message, recipient);
+        long sequence = outbox.append(notification);
+        queue.add(new NotificationOutbox.Entry(sequence, notification));
+    }
+
+    public int getReplayedCount() {
+        return replayed;
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLettered.sum();
+    }
+
+    public int getPendingCount() {
+        return outbox.getPendingCount();
+    }
+
+    public List<Notification> getDeadLetters() {
+        List<Notification> result = new ArrayList<>();
+        for (NotificationOutbox.Entry entry : outbox.deadLetters()) {
+            result.add(entry.getNotification());
+        }
+        return result;
+    }
+
+    /**
+     * Đưa mọi dead letter trở lại hàng đợi gửi (vd: sau khi kênh gửi đã được sửa); trả về số thông báo
+     */
+    public int requeueDeadLetters() {
+        if (closed) {
+            throw new IllegalStateException("Notification service is closed");
+        }
+        List<NotificationOutbox.Entry> requeued = outbox.requeueDeadLetters();
+        queue.addAll(requeued);
+        return requeued.size();
+    }
+
+    /**
+     * Gửi hết các thông báo đang chờ rồi đóng outbox; thông báo còn đang chờ thử lại vẫn nằm trong outbox
+     * để lần sau gửi lại
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            deliveryThread.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        outbox.close();
+    }
+
+    private void deliveryLoop() {
+        List<Retry> due = new ArrayList<>();
+        List<NotificationOutbox.Entry> batch = new ArrayList<>();
+        while (true) {
+            // Các lần thử lại đã tới hạn được gửi trước thông báo mới
+            retries.drainTo(due);
+            for (Retry retry : due) {
+                deliver(retry.entry, retry.attempts + 1);
+            }
+            due.clear();
+
+            NotificationOutbox.Entry first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch);
+            for (NotificationOutbox.Entry entry : batch) {
+                deliver(entry, 1);
+            }
+            batch.clear();
+        }
+    }
+
+    private void deliver(NotificationOutbox.Entry entry, int attempt) {
+        Notification notification = entry.getNotification();
+        try {
+            delegate.sendNotification(notification.getMessage(), notification.getRecipient());
+        } catch (RuntimeException e) {
+            failed.increment();
+            if (attempt >= maxAttempts) {
+                // Bỏ cuộc: chuyển sang dead letter để bản ghi không chiếm chỗ trong outbox mãi mãi
+                outbox.deadLetter(entry);
+                deadLettered.increment();
+            } else {
+                retries.add(new Retry(entry, attempt, backoffMillis(attempt)));
+            }
+            return;
+        }
+        outbox.acknowledge(entry.getSequence());
+        delivered.increment();
+    }
+
+    private static long backoffMillis(int attempt) {
+        return Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 20));
+    }
+
+    /**
+     * Thông báo chờ tới lượt thử lại trong DelayQueue
+     */
+    private static class Retry implements Delayed {
+        private final NotificationOutbox.Entry entry;
+        private final int attempts;
+        private final long dueNanos;
+
+        Retry(NotificationOutbox.Entry entry, int attempts, long delayMillis) {
+            this.entry = entry;
+            this.attempts = attempts;
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package notification.outbox;
+
+import notification.Notification;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Outbox chỉ ghi nối (append-only) cho thông báo, dựa trên file memory-mapped
+ * Mỗi thông báo được ghi thành một bản ghi ENTRY; khi gửi xong thì ghi thêm bản ghi ACK.
+ * Thông báo bỏ cuộc sau nhiều lần gửi lỗi (dead letter) được chép sang file "<outbox>.dead" rồi mới ghi DEAD,
+ * nên vẫn đọc lại được qua deadLetters() và gửi lại được qua requeueDeadLetters().
+ * Luồng gọi chỉ ghi tuần tự vào vùng nhớ map, không bao giờ chờ fsync; một luồng nền gọi force() theo chu kỳ
+ * (group commit) ngoài khóa ghi, nên nhiều lần ghi chỉ tốn một lần fsync.
+ * Khi mở lại, các ENTRY chưa có ACK được trả về qua pending().
+ *
+ * Định dạng bản ghi: [int length][int crc32][byte type][long seq][payload], length = 0 đánh dấu hết dữ liệu.
+ */
+public class NotificationOutbox implements AutoCloseable {
+    private static final byte ENTRY = 1;
+    private static final byte ACK = 2;
+    private static final byte DEAD = 3;
+    private static final int HEADER_BYTES = 4 + 4;
+    private static final int FIXED_BODY_BYTES = 1 + 8;
+    private static final long INITIAL_CAPACITY = 8L * 1024 * 1024;
+    private static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 5;
+
+    /**
+     * Một thông báo đã được ghi vào outbox cùng số thứ tự của nó
+     */
+    public static class Entry {
+        private final long sequence;
+        private final Notification notification;
+
+        public Entry(long sequence, Notification notification) {
+            this.sequence = sequence;
+            this.notification = notification;
+        }
+
+        public long getSequence() { return sequence; }
+        public Notification getNotification() { return notification; }
+    }
+
+    private final Path file;
+    private final Path deadLetterFile;
+    private final Object deadLetterLock = new Object();
+    private final FileChannel channel;
+    private final long commitIntervalMillis;
+    private final Map<Long, Boolean> unacknowledged = new ConcurrentHashMap<>();
+    private final List<Entry> recovered;
+    private final Thread committer;
+    private final Object commitLock = new Object();
+    private MappedByteBuffer buffer;
+    private long nextSequence;
+    private long writtenSequence;
+    private long durableSequence;
+    private volatile boolean closed;
+
+    public NotificationOutbox(Path file) {
+        this(file, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    public NotificationOutbox(Path file, long commitIntervalMillis) {
+        this.file = file;
+        this.deadLetterFile = file.resolveSibling(file.getFileName() + ".dead");
+        this.commitIntervalMillis = commitIntervalMillis;
+        try {
+            this.recovered = compact(file);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_CAPACITY, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open notification outbox " + file, e);
+        }
+        // Sau khi compact, file chỉ còn các ENTRY chưa ACK: định vị con trỏ ghi ở cuối chúng
+        long maxSequence = 0;
+        for (Entry entry : recovered) {
+            unacknowledged.put(entry.sequence, Boolean.TRUE);
+            maxSequence = Math.max(maxSequence, entry.sequence);
+        }
+        buffer.position(scanEnd(buffer));
+        this.nextSequence = maxSequence + 1;
+        this.writtenSequence = maxSequence;
+        this.durableSequence = maxSequence;
+
+        this.committer = new Thread(this::commitLoop, "notification-outbox-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Các thông báo chưa được xác nhận từ lần chạy trước, theo thứ tự ghi
+     */
+    public List<Entry> pending() {
+        return recovered;
+    }
+
+    /**
+     * Ghi thông báo vào outbox (chỉ là một lần ghi tuần tự vào bộ nhớ) và trả về số thứ tự của nó
+     */
+    public long append(Notification notification) {
+        byte[] recipient = bytes(notification.getRecipient());
+        byte[] message = bytes(notification.getMessage());
+        ByteBuffer payload = ByteBuffer.allocate(4 + recipient.length + 4 + message.length);
+        payload.putInt(recipient.length).put(recipient).putInt(message.length).put(message).flip();
+        synchronized (this) {
+            ensureOpen();
+            long sequence = nextSequence++;
+            write(ENTRY, sequence, payload);
+            unacknowledged.put(sequence, Boolean.TRUE);
+            writtenSequence = sequence;
+            return sequence;
+        }
+    }
+
+    /**
+     * Đánh dấu thông báo đã gửi xong; lần mở lại sau sẽ không gửi lại nó
+     */
+    public void acknowledge(long sequence) {
+        settle(ACK, sequence);
+    }
+
+    /**
+     * Bỏ cuộc với thông báo không gửi được (dead letter): chép nó sang file dead letter (đã fsync) rồi ghi DEAD,
+     * nên lần mở lại sau không gửi lại nó nhưng vẫn đọc được qua deadLetters().
+     * Crash giữa hai bước thì thông báo được gửi lại rồi có thể nằm hai lần trong file dead letter.
+     */
+    public void deadLetter(Entry entry) {
+        synchronized (deadLetterLock) {
+            ensureOpen();
+            try (FileChannel target = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                target.write(encode(entry));
+                target.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write dead letter to " + deadLetterFile, e);
+            }
+        }
+        settle(DEAD, entry.sequence);
+    }
+
+    /**
+     * Các thông báo đã bỏ cuộc, theo thứ tự bỏ cuộc
+     */
+    public List<Entry> deadLetters() {
+        synchronized (deadLetterLock) {
+            try {
+                return readEntries(deadLetterFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read dead letters from " + deadLetterFile, e);
+            }
+        }
+    }
+
+    /**
+     * Ghi lại mọi dead letter vào outbox như thông báo mới rồi xóa file dead letter; trả về các Entry mới.
+     * Crash trước khi xóa xong thì các thông báo này có thể được gửi lại hai lần.
+     */
+    public List<Entry> requeueDeadLetters() {
+        synchronized (deadLetterLock) {
+            try {
+                List<Entry> requeued = new ArrayList<>();
+                for (Entry entry : readEntries(deadLetterFile)) {
+                    Notification notification = entry.notification;
+                    requeued.add(new Entry(append(notification), notification));
+                }
+                Files.deleteIfExists(deadLetterFile);
+                return requeued;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot requeue dead letters from " + deadLetterFile, e);
+            }
+        }
+    }
+
+    /**
+     * Chờ tới khi bản ghi có số thứ tự này đã được force xuống đĩa (dành cho caller cần bền vững đồng bộ)
+     */
+    public void awaitDurable(long sequence) throws InterruptedException {
+        synchronized (commitLock) {
+            while (durableSequence < sequence && !closed) {
+                commitLock.wait();
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return unacknowledged.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        committer.interrupt();
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MappedByteBuffer last;
+        synchronized (this) {
+            last = buffer;
+        }
+        last.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close notification outbox " + file, e);
+        }
+        synchronized (commitLock) {
+            commitLock.notifyAll();
+        }
+    }
+
+    private void settle(byte type, long sequence) {
+        synchronized (this) {
+            ensureOpen();
+            if (!unacknowledged.containsKey(sequence)) {
+                return;
+            }
+            // Ghi bản ghi trước rồi mới bỏ khỏi unacknowledged: ensureCapacity chỉ quay về đầu file
+            // khi mọi ENTRY đã có ACK/DEAD nằm trong file
+            write(type, sequence, ByteBuffer.allocate(0));
+            unacknowledged.remove(sequence);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Notification outbox is closed: " + file);
+        }
+    }
+
+    private void write(byte type, long sequence, ByteBuffer payload) {
+        int bodyLength = FIXED_BODY_BYTES + payload.remaining();
+        // Chừa chỗ cho bản ghi và 4 byte kết thúc (length = 0)
+        ensureCapacity(HEADER_BYTES + bodyLength + 4);
+
+        CRC32 crc = new CRC32();
+        ByteBuffer body = ByteBuffer.allocate(bodyLength);
+        body.put(type).putLong(sequence).put(payload).flip();
+        crc.update(body.duplicate());
+
+        int start = buffer.position();
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(body);
+        buffer.putInt(buffer.position(), 0);
+        // Ghi length sau cùng: bản ghi chỉ "tồn tại" khi đã ghi đầy đủ
+        buffer.putInt(start, bodyLength);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        try {
+            if (unacknowledged.isEmpty()) {
+                // Mọi thông báo đã được xác nhận: quay về đầu file thay vì tăng kích thước.
+                // Không cần force trước: crash mà ACK cũ chưa xuống đĩa chỉ làm mất những ENTRY đã gửi xong
+                buffer.putInt(0, 0);
+                buffer.position(0);
+                if (buffer.remaining() >= bytes) {
+                    return;
+                }
+            }
+            long size = Math.max(buffer.capacity() * 2L, buffer.position() + (long) bytes * 2);
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Notification outbox is full: " + file);
+            }
+            // Map mới dùng chung page cache với map cũ nên không cần force trước khi đổi
+            int position = buffer.position();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot grow notification outbox " + file, e);
+        }
+    }
+
+    private void commitLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(commitIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long target;
+            MappedByteBuffer current;
+            synchronized (this) {
+                target = writtenSequence;
+                current = buffer;
+            }
+            synchronized (commitLock) {
+                if (target == durableSequence) {
+                    continue;
+                }
+            }
+            // fsync ngoài khóa ghi: luồng gọi append() không bao giờ phải chờ đĩa.
+            // force() trên map hiện tại cũng đẩy các trang đã ghi qua map cũ (cùng page cache của file)
+            current.force();
+            synchronized (commitLock) {
+                durableSequence = target;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Đọc file cũ, giữ lại các ENTRY chưa ACK và ghi chúng sang file mới (thay thế nguyên tử)
+     */
+    private static List<Entry> compact(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return new ArrayList<>();
+        }
+        Map<Long, Entry> pending = new LinkedHashMap<>();
+        scan(file, (type, sequence, entry) -> {
+            if (type == ENTRY) {
+                pending.put(sequence, entry);
+            } else if (type == ACK || type == DEAD) {
+                pending.remove(sequence);
+            }
+        });
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : pending.values()) {
+                target.write(encode(entry));
+            }
+            target.write(ByteBuffer.allocate(4));
+            target.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Các ENTRY trong file (bỏ qua ACK/DEAD), dừng ở bản ghi hỏng đầu tiên
+     */
+    private static List<Entry> readEntries(Path source) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (Files.exists(source)) {
+            scan(source, (type, sequence, entry) -> {
+                if (type == ENTRY) {
+                    entries.add(entry);
+                }
+            });
+        }
+        return entries;
+    }
+
+    private interface RecordVisitor {
+        // entry chỉ khác null với bản ghi ENTRY
+        void visit(byte type, long sequence, Entry entry);
+    }
+
+    private static void scan(Path source, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (true) {
+                ByteBuffer body = nextRecord(data);
+                if (body == null) {
+                    return;
+                }
+                byte type = body.get();
+                long sequence = body.getLong();
+                Entry entry = null;
+                if (type == ENTRY) {
+                    String recipient = string(body);
+                    String message = string(body);
+                    entry = new Entry(sequence, new Notification(message, recipient));
+                }
+                visitor.visit(type, sequence, entry);
+            }
+        }
+    }
+
+    // Bản ghi ENTRY hoàn chỉnh (header + thân) để ghi thẳng vào file
+    private static ByteBuffer encode(Entry entry) {
+        byte[] recipient = bytes(entry.notification.getRecipient());
+        byte[] message = bytes(entry.notification.getMessage());
+        int bodyLength = FIXED_BODY_BYTES + 8 + recipient.length + message.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        record.position(HEADER_BYTES);
+        record.put(ENTRY).putLong(entry.sequence)
+                .putInt(recipient.length).put(recipient).putInt(message.length).put(message);
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate().flip().position(HEADER_BYTES));
+        record.putInt(0, bodyLength).putInt(4, (int) crc.getValue());
+        return record.flip();
+    }
+
+    /**
+     * Trả về phần thân của bản ghi kế tiếp, hoặc null khi gặp điểm kết thúc hay bản ghi hỏng (ghi dở lúc crash)
+     */
+    private static ByteBuffer nextRecord(ByteBuffer data) {
+        if (data.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int start = data.position();
+        int length = data.getInt(start);
+        if (length < FIXED_BODY_BYTES || length > data.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        int expectedCrc = data.getInt(start + 4);
+        ByteBuffer body = data.duplicate();
+        body.position(start + HEADER_BYTES).limit(start + HEADER_BYTES + length);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            return null;
+        }
+        data.position(start + HEADER_BYTES + length);
+        return body.slice();
+    }
+
+    private static int scanEnd(ByteBuffer data) {
+        ByteBuffer view = data.duplicate();
+        view.position(0);
+        while (nextRecord(view) != null) {
+            // chỉ di chuyển con trỏ tới cuối bản ghi hợp lệ cuối cùng
+        }
+        return view.position();
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer body) {
+        byte[] value = new byte[body.getInt()];
+        body.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
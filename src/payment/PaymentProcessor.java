@@ -1,5 +1,9 @@
 package payment;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface cho xử lý thanh toán
  * Tuân thủ Liskov Substitution Principle - các implementation có thể thay thế lẫn nhau
@@ -7,5 +11,44 @@ package payment;
 public interface PaymentProcessor {
     boolean processPayment(double amount, String accountNumber);
     String getPaymentMethod();
+    
+    /**
+     * Thanh toán kèm khóa idempotency do client sinh ra: gọi lại với cùng khóa là cùng một yêu cầu.
+     * Mặc định không chống trùng; xem IdempotentPaymentProcessor.
+     */
+    default boolean processPayment(String idempotencyKey, double amount, String accountNumber) {
+        return processPayment(amount, accountNumber);
+    }
+    
+    /**
+     * Xử lý nhiều khoản thanh toán; kết quả trả về theo đúng thứ tự yêu cầu.
+     * Mặc định xử lý tuần tự, implementation có thể xử lý song song.
+     * Khoản nào ném lỗi được trả về là false.
+     */
+    default List<Boolean> processPayments(List<PaymentRequest> payments) {
+        List<Boolean> results = new ArrayList<>(payments.size());
+        for (PaymentRequest payment : payments) {
+            boolean success;
+            try {
+                success = processPayment(payment.getIdempotencyKey(), payment.getAmount(), payment.getAccountNumber());
+            } catch (RuntimeException e) {
+                // Giống bản song song: lỗi của một khoản không làm mất kết quả của các khoản đã thu
+                success = false;
+            }
+            results.add(success);
+        }
+        return results;
+    }
+    
+    /**
+     * Mặc định chạy trên common pool; lỗi được trả về qua future, không ném ra ở luồng gọi.
+     * Implementation gọi gateway chặn (blocking) nên override với executor riêng, xem AbstractPaymentProcessor.
+     */
+    default CompletableFuture<Boolean> processPaymentAsync(double amount, String accountNumber) {
+        return CompletableFuture.supplyAsync(() -> processPayment(amount, accountNumber));
+    }
+    
+    default CompletableFuture<List<Boolean>> processPaymentsAsync(List<PaymentRequest> payments) {
+        return CompletableFuture.supplyAsync(() -> processPayments(payments));
+    }
 }
-
@@ -0,0 +1,30 @@
+package payment;
+
+/**
+ * Một yêu cầu thanh toán: số tiền, tài khoản và khóa idempotency (có thể null)
+ * Dùng khi nhiều khoản phạt được xử lý theo lô
+ */
+public class PaymentRequest {
+    private final String idempotencyKey;
+    private final double amount;
+    private final String accountNumber;
+    
+    public PaymentRequest(double amount, String accountNumber) {
+        this(null, amount, accountNumber);
+    }
+    
+    public PaymentRequest(String idempotencyKey, double amount, String accountNumber) {
+        this.idempotencyKey = idempotencyKey;
+        this.amount = amount;
+        this.accountNumber = accountNumber;
+    }
+    
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public double getAmount() { return amount; }
+    public String getAccountNumber() { return accountNumber; }
+    
+    @Override
+    public String toString() {
+        return String.format("PaymentRequest{account='%s', amount=%.2f}", accountNumber, amount);
+    }
+}
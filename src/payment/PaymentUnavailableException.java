@@ -0,0 +1,17 @@
+package payment;
+
+/**
+ * PaymentProcessor ném lỗi này khi chắc chắn chưa trừ tiền (gateway không kết nối được,
+ * bị từ chối trước khi gửi lệnh thu...), nên có thể an toàn thử lại qua kênh thanh toán khác
+ */
+public class PaymentUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public PaymentUnavailableException(String message) {
+        super(message);
+    }
+
+    public PaymentUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,140 @@
+package payment.impl;
+
+import payment.PaymentProcessor;
+import payment.PaymentRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lớp cơ sở cho các PaymentProcessor gọi tới gateway thanh toán
+ * Xử lý theo lô bằng cách pipeline nhiều yêu cầu cùng lúc, nhưng không quá maxInFlight yêu cầu
+ * tới gateway tại một thời điểm. Hàng đợi phía sau cũng có giới hạn: khi đầy, luồng gọi bị chặn
+ * cho tới khi có chỗ (backpressure) thay vì dồn vô hạn yêu cầu vào bộ nhớ.
+ * Gateway ở đây là bản giả lập cục bộ với độ trễ cấu hình được.
+ */
+public abstract class AbstractPaymentProcessor implements PaymentProcessor {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    // Số yêu cầu được chờ trong hàng đợi cho mỗi luồng gọi gateway
+    private static final int QUEUED_PER_THREAD = 4;
+    
+    private final int maxInFlight;
+    private final long gatewayLatencyMillis;
+    // Giới hạn số yêu cầu đã nhận mà chưa xong (đang chạy + đang chờ)
+    private final Semaphore admission;
+    private volatile ExecutorService executor;
+    
+    protected AbstractPaymentProcessor() {
+        this(DEFAULT_MAX_IN_FLIGHT, 0);
+    }
+    
+    protected AbstractPaymentProcessor(int maxInFlight, long gatewayLatencyMillis) {
+        if (maxInFlight <= 0 || gatewayLatencyMillis < 0) {
+            throw new IllegalArgumentException("Max in-flight must be positive and latency must not be negative");
+        }
+        this.maxInFlight = maxInFlight;
+        this.gatewayLatencyMillis = gatewayLatencyMillis;
+        this.admission = new Semaphore(admissionLimit());
+    }
+    
+    @Override
+    public List<Boolean> processPayments(List<PaymentRequest> payments) {
+        return processPaymentsAsync(payments).join();
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> processPaymentAsync(double amount, String accountNumber) {
+        return submit(() -> processPayment(amount, accountNumber));
+    }
+    
+    @Override
+    public CompletableFuture<List<Boolean>> processPaymentsAsync(List<PaymentRequest> payments) {
+        List<CompletableFuture<Boolean>> pending = new ArrayList<>(payments.size());
+        for (PaymentRequest payment : payments) {
+            // Một khoản ném lỗi được tính là thất bại, không làm hỏng cả lô: các khoản đã thu vẫn được trả về
+            pending.add(submit(() -> processPayment(payment.getIdempotencyKey(),
+                            payment.getAmount(), payment.getAccountNumber()))
+                    .handle((success, error) -> error == null && Boolean.TRUE.equals(success)));
+        }
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<Boolean> results = new ArrayList<>(pending.size());
+                    for (CompletableFuture<Boolean> result : pending) {
+                        results.add(result.join());
+                    }
+                    return results;
+                });
+    }
+    
+    /**
+     * Giả lập một lượt gọi tới gateway: chờ độ trễ mạng rồi kiểm tra dữ liệu
+     */
+    protected boolean callGateway(double amount, String accountNumber) {
+        if (gatewayLatencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(gatewayLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return amount > 0 && accountNumber != null && !accountNumber.trim().isEmpty();
+    }
+    
+    private int admissionLimit() {
+        return maxInFlight * (QUEUED_PER_THREAD + 1);
+    }
+    
+    /**
+     * Đưa yêu cầu vào pool; chặn luồng gọi khi đã có đủ số yêu cầu chưa xong
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            admission.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor()).whenComplete((result, error) -> admission.release());
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Pool cố định maxInFlight luồng daemon với hàng đợi có giới hạn, chỉ tạo khi lần đầu xử lý bất đồng bộ
+     * Hàng đợi chứa được toàn bộ số việc admission cho phép: permit được trả ngay khi việc xong, lúc luồng
+     * worker có thể chưa lấy việc tiếp theo, nên pool không bao giờ phải từ chối việc.
+     */
+    private ExecutorService executor() {
+        ExecutorService current = executor;
+        if (current == null) {
+            synchronized (this) {
+                current = executor;
+                if (current == null) {
+                    AtomicInteger sequence = new AtomicInteger();
+                    String prefix = "payment-" + getPaymentMethod().toLowerCase().replace(' ', '-') + "-";
+                    current = new ThreadPoolExecutor(maxInFlight, maxInFlight, 0, TimeUnit.MILLISECONDS,
+                            new LinkedBlockingQueue<>(admissionLimit()), task -> {
+                        Thread thread = new Thread(task, prefix + sequence.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor = current;
+                }
+            }
+        }
+        return current;
+    }
+}
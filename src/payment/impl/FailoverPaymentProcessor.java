@@ -0,0 +1,348 @@
+package payment.impl;
+
+import payment.PaymentProcessor;
+import payment.PaymentUnavailableException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Định tuyến thanh toán qua nhiều PaymentProcessor theo thứ tự ưu tiên (ví dụ CreditCard → PayPal → BankTransfer)
+ * Mỗi backend có một circuit breaker: khi tỉ lệ lỗi trong cửa sổ gần nhất vượt ngưỡng thì mạch mở và
+ * backend bị bỏ qua trong một khoảng thời gian, sau đó chỉ cho một lượt thử (half-open) để kiểm tra hồi phục.
+ * Lời gọi quá thời gian chờ được tính là lỗi; backend có độ trễ trung bình (EWMA) cao bị đẩy xuống sau
+ * các backend nhanh. Kết quả false là từ chối thanh toán, không phải lỗi, nên không chuyển sang backend khác.
+ *
+ * Chỉ chuyển sang backend kế tiếp khi chắc chắn backend trước chưa trừ tiền: mạch đang mở, hoặc backend ném
+ * PaymentUnavailableException. Timeout hay lỗi khác thì không biết tiền đã bị trừ hay chưa, nên lỗi được
+ * ném cho caller thay vì thu lại qua backend khác (tránh thu hai lần). Caller nên đối soát hoặc thử lại với
+ * cùng khóa idempotency (IdempotentPaymentProcessor).
+ * Số lời gọi backend đồng thời bị giới hạn (maxConcurrentCalls); khi đủ, thanh toán mới bị từ chối ngay bằng
+ * PaymentUnavailableException vì chưa gửi lệnh thu nào.
+ * Tuân thủ Liskov Substitution Principle - bản thân nó cũng là một PaymentProcessor
+ */
+public class FailoverPaymentProcessor implements PaymentProcessor, AutoCloseable {
+    /**
+     * Trạng thái circuit breaker
+     */
+    public enum CircuitState {
+        CLOSED,     // hoạt động bình thường
+        OPEN,       // đang bị bỏ qua
+        HALF_OPEN   // cho phép một lượt thử
+    }
+
+    private static final long DEFAULT_CALL_TIMEOUT_MILLIS = 2_000;
+    private static final int DEFAULT_WINDOW_SIZE = 20;
+    private static final int DEFAULT_MINIMUM_CALLS = 5;
+    private static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    private static final long DEFAULT_OPEN_MILLIS = 10_000;
+    private static final int DEFAULT_MAX_CONCURRENT_CALLS = 64;
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final List<Backend> backends = new ArrayList<>();
+    private final long callTimeoutMillis;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final long slowCallMillis;
+    private final ExecutorService executor;
+
+    public FailoverPaymentProcessor(List<PaymentProcessor> processors) {
+        this(processors, DEFAULT_CALL_TIMEOUT_MILLIS, DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS,
+                DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    public FailoverPaymentProcessor(List<PaymentProcessor> processors, long callTimeoutMillis, int windowSize,
+                                    int minimumCalls, double failureRateThreshold, long openMillis) {
+        this(processors, callTimeoutMillis, windowSize, minimumCalls, failureRateThreshold, openMillis,
+                DEFAULT_MAX_CONCURRENT_CALLS);
+    }
+
+    /**
+     * maxConcurrentCalls: số lời gọi backend chạy cùng lúc tối đa, kể cả lời gọi đã quá hạn nhưng chưa dừng
+     */
+    public FailoverPaymentProcessor(List<PaymentProcessor> processors, long callTimeoutMillis, int windowSize,
+                                    int minimumCalls, double failureRateThreshold, long openMillis,
+                                    int maxConcurrentCalls) {
+        if (processors.isEmpty()) {
+            throw new IllegalArgumentException("At least one payment processor is required");
+        }
+        if (callTimeoutMillis <= 0 || windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize
+                || failureRateThreshold <= 0 || failureRateThreshold > 1 || openMillis <= 0
+                || maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
+        for (PaymentProcessor processor : processors) {
+            backends.add(new Backend(processor, windowSize));
+        }
+        this.callTimeoutMillis = callTimeoutMillis;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        // Backend có độ trễ trung bình vượt nửa thời gian chờ bị coi là chậm
+        this.slowCallMillis = callTimeoutMillis / 2;
+        AtomicInteger sequence = new AtomicInteger();
+        // Không có hàng đợi: lời gọi chờ trong hàng đợi chỉ tiêu hết thời gian chờ của nó
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> {
+            Thread thread = new Thread(task, "payment-failover-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @Override
+    public boolean processPayment(double amount, String accountNumber) {
+        return processPayment(null, amount, accountNumber);
+    }
+
+    @Override
+    public boolean processPayment(String idempotencyKey, double amount, String accountNumber) {
+        RuntimeException lastFailure = null;
+        for (Backend backend : candidates()) {
+            if (!backend.tryAcquirePermission()) {
+                continue;
+            }
+            long start = System.nanoTime();
+            // Lượt gọi chưa được ghi nhận thành công/lỗi thì phải trả lại quyền thử (half-open) ở finally
+            boolean recorded = false;
+            Future<Boolean> call = null;
+            try {
+                call = executor.submit(() -> backend.processor.processPayment(idempotencyKey, amount, accountNumber));
+                boolean result = call.get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+                backend.onSuccess(System.nanoTime() - start);
+                recorded = true;
+                return result;
+            } catch (RejectedExecutionException e) {
+                if (executor.isShutdown()) {
+                    throw new IllegalStateException("Payment processor is closed", e);
+                }
+                // Chưa gửi lệnh thu tới backend nào nên caller có thể thử lại an toàn
+                throw new PaymentUnavailableException("Too many payments in flight", e);
+            } catch (TimeoutException e) {
+                call.cancel(true);
+                backend.onFailure(System.nanoTime() - start);
+                recorded = true;
+                // Không chuyển backend: lệnh thu có thể đã tới gateway
+                throw new IllegalStateException(backend.name() + " timed out after " + callTimeoutMillis
+                        + "ms; payment outcome is unknown", e);
+            } catch (ExecutionException e) {
+                backend.onFailure(System.nanoTime() - start);
+                recorded = true;
+                if (!(e.getCause() instanceof PaymentUnavailableException)) {
+                    throw new IllegalStateException(backend.name() + " failed; payment outcome is unknown", e.getCause());
+                }
+                // Chắc chắn chưa trừ tiền: thử backend kế tiếp
+                lastFailure = (PaymentUnavailableException) e.getCause();
+            } catch (InterruptedException e) {
+                call.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing payment; payment outcome is unknown", e);
+            } finally {
+                if (!recorded) {
+                    backend.releasePermission();
+                }
+            }
+        }
+        throw new PaymentUnavailableException("No payment backend available", lastFailure);
+    }
+
+    @Override
+    public String getPaymentMethod() {
+        StringJoiner methods = new StringJoiner(" → ", "Failover(", ")");
+        for (Backend backend : backends) {
+            methods.add(backend.name());
+        }
+        return methods.toString();
+    }
+
+    public Map<String, BackendStatistics> getBackendStatistics() {
+        Map<String, BackendStatistics> statistics = new LinkedHashMap<>();
+        for (Backend backend : backends) {
+            statistics.put(backend.name(), backend.snapshot());
+        }
+        return statistics;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Giữ thứ tự ưu tiên, nhưng đưa các backend chậm xuống sau các backend bình thường
+     */
+    private List<Backend> candidates() {
+        List<Backend> fast = new ArrayList<>(backends.size());
+        List<Backend> slow = new ArrayList<>();
+        for (Backend backend : backends) {
+            if (backend.averageLatencyMillis() > slowCallMillis) {
+                slow.add(backend);
+            } else {
+                fast.add(backend);
+            }
+        }
+        fast.addAll(slow);
+        return fast;
+    }
+
+    private class Backend {
+        private final PaymentProcessor processor;
+        // Cửa sổ trượt theo số lượt gọi: true = lỗi
+        private final boolean[] outcomes;
+        private int next;
+        private int recorded;
+        private int failures;
+        private CircuitState state = CircuitState.CLOSED;
+        private long openedAtMillis;
+        private boolean trialInFlight;
+        private double averageLatencyMillis;
+        private long lastCallMillis;
+
+        Backend(PaymentProcessor processor, int windowSize) {
+            this.processor = processor;
+            this.outcomes = new boolean[windowSize];
+        }
+
+        String name() {
+            return processor.getPaymentMethod();
+        }
+
+        synchronized boolean tryAcquirePermission() {
+            if (state == CircuitState.OPEN) {
+                if (System.currentTimeMillis() - openedAtMillis < openMillis) {
+                    return false;
+                }
+                state = CircuitState.HALF_OPEN;
+                trialInFlight = false;
+            }
+            if (state == CircuitState.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+            }
+            return true;
+        }
+
+        /**
+         * Trả lại quyền thử khi lượt gọi kết thúc mà không có kết quả để ghi nhận (bị ngắt, executor đã đóng)
+         */
+        synchronized void releasePermission() {
+            if (state == CircuitState.HALF_OPEN) {
+                trialInFlight = false;
+            }
+        }
+
+        synchronized void onSuccess(long elapsedNanos) {
+            recordLatency(elapsedNanos);
+            if (state == CircuitState.HALF_OPEN) {
+                // Lượt thử thành công: đóng mạch và bắt đầu lại cửa sổ
+                state = CircuitState.CLOSED;
+                resetWindow();
+                return;
+            }
+            record(false);
+        }
+
+        synchronized void onFailure(long elapsedNanos) {
+            recordLatency(elapsedNanos);
+            if (state == CircuitState.HALF_OPEN) {
+                open();
+                return;
+            }
+            record(true);
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+
+        synchronized double averageLatencyMillis() {
+            // Số liệu cũ hơn openMillis không còn đáng tin: cho backend chậm cơ hội được thử lại ở vị trí ưu tiên
+            if (System.currentTimeMillis() - lastCallMillis > openMillis) {
+                averageLatencyMillis = 0;
+            }
+            return averageLatencyMillis;
+        }
+
+        synchronized BackendStatistics snapshot() {
+            double failureRate = recorded == 0 ? 0 : failures / (double) recorded;
+            return new BackendStatistics(state, failureRate, averageLatencyMillis);
+        }
+
+        private void record(boolean failed) {
+            if (recorded == windowSize) {
+                if (outcomes[next]) {
+                    failures--;
+                }
+            } else {
+                recorded++;
+            }
+            outcomes[next] = failed;
+            if (failed) {
+                failures++;
+            }
+            next = (next + 1) % windowSize;
+        }
+
+        private void recordLatency(long elapsedNanos) {
+            lastCallMillis = System.currentTimeMillis();
+            double millis = elapsedNanos / 1_000_000.0;
+            averageLatencyMillis = averageLatencyMillis == 0
+                    ? millis
+                    : EWMA_WEIGHT * millis + (1 - EWMA_WEIGHT) * averageLatencyMillis;
+        }
+
+        private void open() {
+            state = CircuitState.OPEN;
+            openedAtMillis = System.currentTimeMillis();
+            trialInFlight = false;
+            resetWindow();
+        }
+
+        private void resetWindow() {
+            next = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+
+    // Inner class for per-backend data
+    public static class BackendStatistics {
+        private final CircuitState state;
+        private final double failureRate;
+        private final double averageLatencyMillis;
+
+        public BackendStatistics(CircuitState state, double failureRate, double averageLatencyMillis) {
+            this.state = state;
+            this.failureRate = failureRate;
+            this.averageLatencyMillis = averageLatencyMillis;
+        }
+
+        public CircuitState getState() { return state; }
+        public double getFailureRate() { return failureRate; }
+        public double getAverageLatencyMillis() { return averageLatencyMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("BackendStatistics{state=%s, failureRate=%.2f, avgLatency=%.2fms}",
+                               state, failureRate, averageLatencyMillis);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package payment.impl;
+
+import payment.PaymentProcessor;
+import payment.PaymentRequest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator chống thanh toán trùng khi client gửi lại cùng một yêu cầu
+ * Kết quả được lưu theo khóa idempotency trong cache đồng thời có giới hạn kích thước và thời hạn;
+ * lần gọi lại với cùng khóa nhận kết quả cũ mà không tới gateway. Các lần gọi trùng đồng thời
+ * chờ chung một kết quả. Có thể ghi kết quả ra file để vẫn chống trùng sau khi khởi động lại.
+ * Trong processPayments, mỗi yêu cầu có khóa cũng được chống trùng như vậy; yêu cầu không có khóa thì không.
+ * Tuân thủ Open/Closed Principle - bọc bất kỳ PaymentProcessor nào
+ */
+public class IdempotentPaymentProcessor implements PaymentProcessor, AutoCloseable {
+    private static final int DEFAULT_MAX_ENTRIES = 100_000;
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private final PaymentProcessor delegate;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, CachedPayment> cache = new ConcurrentHashMap<>();
+    // Thứ tự chèn, dùng để loại bỏ mục cũ nhất khi cache đầy
+    private final Queue<CachedPayment> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final Path persistenceFile;
+    private final DataOutputStream journal;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public IdempotentPaymentProcessor(PaymentProcessor delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    public IdempotentPaymentProcessor(PaymentProcessor delegate, int maxEntries, long ttlMillis) {
+        this(delegate, maxEntries, ttlMillis, null);
+    }
+
+    public IdempotentPaymentProcessor(PaymentProcessor delegate, int maxEntries, long ttlMillis, Path persistenceFile) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Max entries and TTL must be positive");
+        }
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.persistenceFile = persistenceFile;
+        if (persistenceFile == null) {
+            this.journal = null;
+            return;
+        }
+        try {
+            load(persistenceFile);
+            this.journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(persistenceFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open idempotency file " + persistenceFile, e);
+        }
+    }
+
+    @Override
+    public boolean processPayment(double amount, String accountNumber) {
+        return delegate.processPayment(amount, accountNumber);
+    }
+
+    @Override
+    public boolean processPayment(String idempotencyKey, double amount, String accountNumber) {
+        if (idempotencyKey == null) {
+            return delegate.processPayment(amount, accountNumber);
+        }
+        while (true) {
+            CachedPayment created = new CachedPayment(idempotencyKey, amount, accountNumber,
+                    System.currentTimeMillis() + ttlMillis);
+            CachedPayment cached = claim(created);
+            if (cached == null) {
+                return execute(created);
+            }
+            try {
+                return cached.result.join();
+            } catch (CompletionException e) {
+                // Lần gọi gốc lỗi và đã bị xóa khỏi cache: thực hiện lại
+                continue;
+            }
+        }
+    }
+
+    /**
+     * Các yêu cầu có khóa idempotency đã có kết quả (hoặc đang chạy ở luồng khác) không được gửi lại;
+     * các yêu cầu còn lại được gửi cho delegate trong một lô để vẫn xử lý song song.
+     * Delegate trả về false cho cả khoản bị từ chối lẫn khoản ném lỗi (xem PaymentProcessor.processPayments),
+     * nên false trong lô là kết quả chưa chắc chắn: không được lưu theo khóa, để client thử lại được với cùng khóa
+     * như khi processPayment ném lỗi. Các lần gọi trùng đang chờ thì vẫn nhận false.
+     */
+    @Override
+    public List<Boolean> processPayments(List<PaymentRequest> payments) {
+        Boolean[] results = new Boolean[payments.size()];
+        CachedPayment[] waiting = new CachedPayment[payments.size()];
+        List<PaymentRequest> toRun = new ArrayList<>();
+        List<Integer> toRunIndexes = new ArrayList<>();
+        List<CachedPayment> owned = new ArrayList<>();
+        for (int i = 0; i < payments.size(); i++) {
+            PaymentRequest payment = payments.get(i);
+            CachedPayment created = null;
+            if (payment.getIdempotencyKey() != null) {
+                created = new CachedPayment(payment.getIdempotencyKey(), payment.getAmount(),
+                        payment.getAccountNumber(), System.currentTimeMillis() + ttlMillis);
+                CachedPayment cached;
+                try {
+                    cached = claim(created);
+                } catch (RuntimeException e) {
+                    // Khóa bị dùng cho khoản khác: nhả các mục đã giữ để luồng khác không chờ mãi
+                    release(owned, e);
+                    throw e;
+                }
+                if (cached != null) {
+                    // Kể cả khóa trùng ngay trong lô này: chờ kết quả của lần đầu
+                    waiting[i] = cached;
+                    continue;
+                }
+            }
+            toRun.add(payment);
+            toRunIndexes.add(i);
+            owned.add(created);
+        }
+
+        if (!toRun.isEmpty()) {
+            List<Boolean> outcomes;
+            try {
+                outcomes = delegate.processPayments(toRun);
+            } catch (RuntimeException e) {
+                release(owned, e);
+                throw e;
+            }
+            for (int j = 0; j < toRun.size(); j++) {
+                boolean success = outcomes.get(j);
+                results[toRunIndexes.get(j)] = success;
+                CachedPayment payment = owned.get(j);
+                if (payment == null) {
+                    continue;
+                }
+                if (!success) {
+                    cache.remove(payment.key, payment);
+                }
+                payment.result.complete(success);
+                if (success) {
+                    persist(payment, true);
+                }
+            }
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (waiting[i] != null) {
+                try {
+                    results[i] = waiting[i].result.join();
+                } catch (CompletionException e) {
+                    // Lần gọi gốc ở luồng khác lỗi: thực hiện lại riêng khoản này
+                    PaymentRequest payment = payments.get(i);
+                    results[i] = processPayment(payment.getIdempotencyKey(), payment.getAmount(),
+                            payment.getAccountNumber());
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public String getPaymentMethod() {
+        return delegate.getPaymentMethod();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (journal) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close idempotency file " + persistenceFile, e);
+            }
+        }
+    }
+
+    /**
+     * Đưa mục mới vào cache. Trả về null nếu mục mới được chèn (luồng gọi phải thực hiện thanh toán),
+     * ngược lại trả về mục còn hạn đã có với cùng khóa.
+     */
+    private CachedPayment claim(CachedPayment created) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            CachedPayment cached = cache.putIfAbsent(created.key, created);
+            if (cached != null && cached.expiresAt <= now && cached.result.isDone()) {
+                // Hết hạn (và không còn đang chạy): thay bằng mục mới và thử lại
+                cache.remove(created.key, cached);
+                continue;
+            }
+            if (cached != null) {
+                if (!cached.matches(created.amount, created.accountNumber)) {
+                    throw new IllegalArgumentException("Idempotency key " + created.key
+                            + " was already used for a different payment");
+                }
+                hits.increment();
+                return cached;
+            }
+            misses.increment();
+            insertionOrder.add(created);
+            evictIfNeeded(now);
+            return null;
+        }
+    }
+
+    private void release(List<CachedPayment> owned, RuntimeException cause) {
+        for (CachedPayment payment : owned) {
+            if (payment != null) {
+                cache.remove(payment.key, payment);
+                payment.result.completeExceptionally(cause);
+            }
+        }
+    }
+
+    private boolean execute(CachedPayment payment) {
+        boolean success;
+        try {
+            // Chuyển cả khóa xuống delegate: gateway phía sau cũng có thể chống trùng theo khóa
+            success = delegate.processPayment(payment.key, payment.amount, payment.accountNumber);
+        } catch (RuntimeException e) {
+            // Không lưu lỗi: client được phép thử lại với cùng khóa
+            cache.remove(payment.key, payment);
+            payment.result.completeExceptionally(e);
+            throw e;
+        }
+        payment.result.complete(success);
+        persist(payment, success);
+        return success;
+    }
+
+    /**
+     * Loại mục cũ nhất khi cache đầy hoặc hết hạn. Mục đang chạy không bao giờ bị loại (lần gọi lại với cùng khóa
+     * sẽ thanh toán lần hai): chuyển nó về cuối hàng, nên cache có thể tạm vượt maxEntries khi mọi mục đều đang chạy.
+     */
+    private void evictIfNeeded(long now) {
+        int inFlightSkipped = 0;
+        while (cache.size() > maxEntries || isExpired(insertionOrder.peek(), now)) {
+            CachedPayment oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (!oldest.result.isDone() && cache.get(oldest.key) == oldest) {
+                insertionOrder.add(oldest);
+                if (++inFlightSkipped >= insertionOrder.size()) {
+                    return;
+                }
+                continue;
+            }
+            cache.remove(oldest.key, oldest);
+        }
+    }
+
+    private static boolean isExpired(CachedPayment payment, long now) {
+        return payment != null && payment.expiresAt <= now;
+    }
+
+    private void persist(CachedPayment payment, boolean success) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (journal) {
+            try {
+                writeRecord(journal, payment, success);
+                journal.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write idempotency file " + persistenceFile, e);
+            }
+        }
+    }
+
+    /**
+     * Nạp các kết quả còn hạn rồi ghi lại file chỉ với những mục đó (loại bỏ mục hết hạn)
+     */
+    private void load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                CachedPayment payment;
+                try {
+                    String key = in.readUTF();
+                    double amount = in.readDouble();
+                    String accountNumber = in.readUTF();
+                    boolean success = in.readBoolean();
+                    long expiresAt = in.readLong();
+                    payment = new CachedPayment(key, amount, accountNumber, expiresAt);
+                    payment.result.complete(success);
+                } catch (IOException e) {
+                    // Hết file, hoặc bản ghi cuối bị ghi dở (EOFException, UTFDataFormatException, ...):
+                    // định dạng không có ranh giới bản ghi nên mọi lỗi giải mã đều được coi là đuôi bị cắt
+                    break;
+                }
+                if (payment.expiresAt > now) {
+                    CachedPayment previous = cache.put(payment.key, payment);
+                    if (previous != null) {
+                        insertionOrder.remove(previous);
+                    }
+                    insertionOrder.add(payment);
+                }
+            }
+        }
+        evictIfNeeded(now);
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            for (CachedPayment payment : insertionOrder) {
+                writeRecord(out, payment, payment.result.join());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeRecord(DataOutputStream out, CachedPayment payment, boolean success) throws IOException {
+        out.writeUTF(payment.key);
+        out.writeDouble(payment.amount);
+        out.writeUTF(payment.accountNumber == null ? "" : payment.accountNumber);
+        out.writeBoolean(success);
+        out.writeLong(payment.expiresAt);
+    }
+
+    private static class CachedPayment {
+        private final String key;
+        private final double amount;
+        private final String accountNumber;
+        private final long expiresAt;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        CachedPayment(String key, double amount, String accountNumber, long expiresAt) {
+            this.key = key;
+            this.amount = amount;
+            this.accountNumber = accountNumber;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean matches(double amount, String accountNumber) {
+            return Double.compare(this.amount, amount) == 0 && account(this.accountNumber).equals(account(accountNumber));
+        }
+
+        private static String account(String accountNumber) {
+            return accountNumber == null ? "" : accountNumber;
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package payment.impl;
 
-import payment.PaymentProcessor;
-
 /**
  * Xử lý thanh toán qua PayPal
  * Tuân thủ Liskov Substitution Principle - có thể thay thế PaymentProcessor
  */
-public class PayPalPaymentProcessor implements PaymentProcessor {
+public class PayPalPaymentProcessor extends AbstractPaymentProcessor {
+    public PayPalPaymentProcessor() {
+    }
+    
+    public PayPalPaymentProcessor(int maxInFlight, long gatewayLatencyMillis) {
+        super(maxInFlight, gatewayLatencyMillis);
+    }
+    
     @Override
     public boolean processPayment(double amount, String accountNumber) {
         System.out.println("💰 Processing PayPal payment of $" + amount + " for account: " + accountNumber);
         // Giả lập xử lý thanh toán
-        return amount > 0 && accountNumber != null && !accountNumber.trim().isEmpty();
+        return callGateway(amount, accountNumber);
     }
     
     @Override
@@ -1,13 +1,20 @@
 package report;
 
 import java.io.File;
+import java.util.stream.Stream;
 
 /**
  * Interface cho báo cáo có thể xuất file
  * Tuân thủ Interface Segregation Principle - tách riêng chức năng export
  */
 public interface ExportableReport {
+    // Xuất nguồn dữ liệu mặc định của báo cáo
     void exportToFile(File file);
+    // Xuất dữ liệu cho trước theo từng dòng; trả về số dòng đã ghi
+    // Mặc định không hỗ trợ, để các báo cáo chỉ xuất nguồn dữ liệu của riêng mình không phải implement
+    default long exportToFile(File file, Stream<?> data) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " only exports its own data source");
+    }
     String getSupportedFormats();
 }
 
@@ -1,6 +1,8 @@
 package report;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Interface cơ bản cho việc tạo báo cáo
@@ -9,5 +11,13 @@ import java.util.List;
 public interface ReportGenerator {
     void generateReport(List<?> data);
     String getReportType();
+    
+    /**
+     * Tạo báo cáo từ dữ liệu dạng stream (một lượt, không cần giữ toàn bộ trong bộ nhớ).
+     * Mặc định gom lại thành List cho các implementation cũ; implementation nên override để xử lý từng phần tử.
+     */
+    default void generateReport(Stream<?> data) {
+        generateReport(data.collect(Collectors.toList()));
+    }
 }
 
@@ -0,0 +1,48 @@
+package report.export;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Một cột của báo cáo xuất ra file: tên, kiểu và cách lấy giá trị từ một dòng
+ */
+public final class Column<T> {
+    /**
+     * Kiểu dữ liệu của cột
+     */
+    public enum Type {
+        TEXT,
+        FLAG
+    }
+
+    private final String name;
+    private final Type type;
+    private final Function<? super T, String> text;
+    private final Predicate<? super T> flag;
+
+    private Column(String name, Type type, Function<? super T, String> text, Predicate<? super T> flag) {
+        this.name = name;
+        this.type = type;
+        this.text = text;
+        this.flag = flag;
+    }
+
+    public static <T> Column<T> text(String name, Function<? super T, String> extractor) {
+        return new Column<>(name, Type.TEXT, extractor, null);
+    }
+
+    public static <T> Column<T> flag(String name, Predicate<? super T> extractor) {
+        return new Column<>(name, Type.FLAG, null, extractor);
+    }
+
+    public String getName() { return name; }
+    public Type getType() { return type; }
+
+    String text(T row) {
+        return text.apply(row);
+    }
+
+    boolean flag(T row) {
+        return flag.test(row);
+    }
+}
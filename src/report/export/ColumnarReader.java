@@ -0,0 +1,149 @@
+package report.export;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Đọc lại file định dạng cột do ReportExporter ghi (.col, .col.gz)
+ * Đọc từng row group một nên bộ nhớ không phụ thuộc số dòng; cấu trúc file xem ColumnarRowWriter.
+ */
+public final class ColumnarReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ColumnarReader() {
+    }
+
+    /**
+     * Gọi header một lần với tên các cột, rồi row cho từng dòng theo thứ tự đã ghi; trả về số dòng đã đọc
+     * Giá trị cột TEXT là String (có thể null), cột FLAG là Boolean. Mảng values được tạo mới cho mỗi dòng.
+     */
+    public static long read(File file, Consumer<List<String>> header, Consumer<Object[]> row) {
+        if (ExportFormat.forFile(file) != ExportFormat.COLUMNAR) {
+            throw new IllegalArgumentException("Not a columnar report: " + file.getName());
+        }
+        try (DataInputStream input = open(file)) {
+            Column.Type[] types = readHeader(file, input, header);
+            long rows = 0;
+            int groupRows;
+            while ((groupRows = input.readInt()) > 0) {
+                Object[][] columns = new Object[types.length][];
+                for (int i = 0; i < types.length; i++) {
+                    columns[i] = types[i] == Column.Type.FLAG
+                            ? readFlags(input, groupRows)
+                            : readTexts(input, groupRows);
+                }
+                for (int r = 0; r < groupRows; r++) {
+                    Object[] values = new Object[types.length];
+                    for (int i = 0; i < types.length; i++) {
+                        values[i] = columns[i][r];
+                    }
+                    row.accept(values);
+                }
+                rows += groupRows;
+            }
+            long expected = input.readLong();
+            if (groupRows < 0 || expected != rows) {
+                throw new IllegalStateException("Corrupt columnar report " + file.getName()
+                        + ": footer says " + expected + " rows, read " + rows);
+            }
+            return rows;
+        } catch (EOFException e) {
+            throw new IllegalStateException("Truncated columnar report: " + file.getName(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read report from " + file, e);
+        }
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        InputStream in = Files.newInputStream(file.toPath());
+        try {
+            if (ExportFormat.isCompressed(file)) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            }
+            return new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static Column.Type[] readHeader(File file, DataInputStream input, Consumer<List<String>> header)
+            throws IOException {
+        byte[] magic = new byte[ColumnarRowWriter.MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(magic, ColumnarRowWriter.MAGIC)) {
+            throw new IllegalArgumentException("Not a columnar report: " + file.getName());
+        }
+        int count = input.readInt();
+        Column.Type[] all = Column.Type.values();
+        Column.Type[] types = new Column.Type[count];
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int type = input.readUnsignedByte();
+            if (type >= all.length) {
+                throw new IllegalStateException("Unknown column type " + type + " in " + file.getName());
+            }
+            types[i] = all[type];
+            byte[] name = new byte[input.readUnsignedShort()];
+            input.readFully(name);
+            names.add(new String(name, StandardCharsets.UTF_8));
+        }
+        header.accept(List.copyOf(names));
+        return types;
+    }
+
+    private static Object[] readFlags(DataInputStream input, int rows) throws IOException {
+        byte[] bits = new byte[(rows + 7) / 8];
+        input.readFully(bits);
+        Object[] flags = new Object[rows];
+        for (int r = 0; r < rows; r++) {
+            flags[r] = ((bits[r >>> 3] >>> (r & 7)) & 1) != 0;
+        }
+        return flags;
+    }
+
+    private static Object[] readTexts(DataInputStream input, int rows) throws IOException {
+        // Độ dài được lưu +1 để 0 biểu diễn null
+        int[] lengths = new int[rows];
+        int total = 0;
+        for (int r = 0; r < rows; r++) {
+            lengths[r] = readVarint(input) - 1;
+            total += Math.max(0, lengths[r]);
+        }
+        byte[] bytes = new byte[total];
+        input.readFully(bytes);
+        Object[] texts = new Object[rows];
+        int offset = 0;
+        for (int r = 0; r < rows; r++) {
+            if (lengths[r] >= 0) {
+                texts[r] = new String(bytes, offset, lengths[r], StandardCharsets.UTF_8);
+                offset += lengths[r];
+            }
+        }
+        return texts;
+    }
+
+    private static int readVarint(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in columnar report");
+    }
+}
@@ -0,0 +1,127 @@
+package report.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ghi định dạng nhị phân theo cột, chia thành các nhóm dòng (row group)
+ *
+ * Header: "LBCOL" + version, số cột, rồi mỗi cột [byte type][short độ dài tên][tên UTF-8].
+ * Mỗi row group: [int số dòng], rồi lần lượt từng cột:
+ *  - TEXT: độ dài byte + 1 của từng dòng dạng varint (0 là null), tiếp theo là toàn bộ byte UTF-8 nối liền
+ *  - FLAG: các bit được đóng gói, 8 dòng mỗi byte (bit thấp trước)
+ * Kết thúc: [int 0][long tổng số dòng].
+ * Chỉ một row group được giữ trong bộ nhớ tại một thời điểm.
+ */
+final class ColumnarRowWriter<T> implements RowWriter<T> {
+    static final byte[] MAGIC = {'L', 'B', 'C', 'O', 'L', 1};
+    static final int ROW_GROUP_SIZE = 65_536;
+
+    private final ChannelOutput output;
+    private final List<Column<T>> columns;
+    private final int[][] lengths;
+    private final byte[][] values;
+    private final int[] valueSizes;
+    private final long[][] flags;
+    private int rows;
+    private long totalRows;
+
+    ColumnarRowWriter(ChannelOutput output, List<Column<T>> columns) throws IOException {
+        this.output = output;
+        this.columns = columns;
+        int count = columns.size();
+        this.lengths = new int[count][];
+        this.values = new byte[count][];
+        this.valueSizes = new int[count];
+        this.flags = new long[count][];
+        output.put(MAGIC, 0, MAGIC.length);
+        output.putInt(count);
+        for (int i = 0; i < count; i++) {
+            Column<T> column = columns.get(i);
+            byte[] name = column.getName().getBytes(StandardCharsets.UTF_8);
+            output.put((byte) column.getType().ordinal());
+            output.putShort(name.length);
+            output.put(name, 0, name.length);
+            if (column.getType() == Column.Type.FLAG) {
+                flags[i] = new long[ROW_GROUP_SIZE / Long.SIZE];
+            } else {
+                lengths[i] = new int[ROW_GROUP_SIZE];
+                values[i] = new byte[ROW_GROUP_SIZE * 16];
+            }
+        }
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            Column<T> column = columns.get(i);
+            if (column.getType() == Column.Type.FLAG) {
+                if (column.flag(row)) {
+                    flags[i][rows >>> 6] |= 1L << (rows & 63);
+                }
+            } else {
+                appendText(i, column.text(row));
+            }
+        }
+        rows++;
+        totalRows++;
+        if (rows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeRowGroup();
+        }
+        output.putInt(0);
+        output.putLong(totalRows);
+    }
+
+    private void appendText(int column, String value) {
+        if (value == null) {
+            lengths[column][rows] = -1;
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = valueSizes[column];
+        if (size + bytes.length > values[column].length) {
+            values[column] = Arrays.copyOf(values[column], Math.max(values[column].length * 2, size + bytes.length));
+        }
+        System.arraycopy(bytes, 0, values[column], size, bytes.length);
+        valueSizes[column] = size + bytes.length;
+        lengths[column][rows] = bytes.length;
+    }
+
+    private void writeRowGroup() throws IOException {
+        output.putInt(rows);
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getType() == Column.Type.FLAG) {
+                long[] bits = flags[i];
+                for (int b = 0; b < (rows + 7) / 8; b++) {
+                    output.put((byte) (bits[b >>> 3] >>> ((b & 7) * 8)));
+                }
+                Arrays.fill(bits, 0);
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    putVarint(lengths[i][r] + 1);
+                }
+                output.put(values[i], 0, valueSizes[i]);
+                valueSizes[i] = 0;
+            }
+        }
+        rows = 0;
+    }
+
+    // Varint không dấu: 7 bit mỗi byte, bit cao báo còn byte tiếp theo
+    private void putVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.put((byte) value);
+    }
+}
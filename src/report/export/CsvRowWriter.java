@@ -0,0 +1,77 @@
+package report.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Ghi CSV theo RFC 4180: dòng tiêu đề, dấu phẩy, giá trị có ký tự đặc biệt được đặt trong ngoặc kép
+ */
+final class CsvRowWriter<T> implements RowWriter<T> {
+    private final ChannelOutput output;
+    private final List<Column<T>> columns;
+    // Tái sử dụng cho mọi dòng
+    private final StringBuilder line = new StringBuilder(256);
+
+    CsvRowWriter(ChannelOutput output, List<Column<T>> columns) throws IOException {
+        this.output = output;
+        this.columns = columns;
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendEscaped(columns.get(i).getName());
+        }
+        endLine();
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Column<T> column = columns.get(i);
+            if (column.getType() == Column.Type.FLAG) {
+                line.append(column.flag(row));
+            } else {
+                appendEscaped(column.text(row));
+            }
+        }
+        endLine();
+    }
+
+    @Override
+    public void finish() {
+        // CSV không có phần kết thúc
+    }
+
+    private void endLine() throws IOException {
+        line.append("\r\n");
+        output.putText(line);
+        line.setLength(0);
+    }
+
+    private void appendEscaped(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,50 @@
+package report.export;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Các định dạng xuất báo cáo, chọn theo phần mở rộng của file
+ * Thêm đuôi .gz (vd: members.csv.gz) để nén gzip.
+ */
+public enum ExportFormat {
+    CSV(".csv"),          // văn bản, mở được bằng Excel
+    COLUMNAR(".col");     // nhị phân theo cột, gọn và đọc nhanh
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat forFile(File file) {
+        String name = stripGzip(file.getName().toLowerCase(Locale.ROOT));
+        for (ExportFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + file.getName());
+    }
+
+    public static boolean isCompressed(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Mô tả cho ExportableReport.getSupportedFormats()
+     */
+    public static String describe() {
+        return "CSV (.csv), Columnar (.col), gzip (.gz)";
+    }
+
+    private static String stripGzip(String name) {
+        return name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+    }
+}
@@ -0,0 +1,51 @@
+package report.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Xuất một stream dữ liệu ra file CSV hoặc định dạng cột, có thể nén gzip
+ * Các dòng được ghi ngay khi đọc tới (qua bộ đệm NIO), không gom thành List.
+ * Phần tử không thuộc rowType bị bỏ qua, giống cách ReportGenerator xử lý dữ liệu.
+ */
+public class ReportExporter<T> {
+    private final Class<T> rowType;
+    private final List<Column<T>> columns;
+
+    public ReportExporter(Class<T> rowType, List<Column<T>> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        this.rowType = rowType;
+        this.columns = List.copyOf(columns);
+    }
+
+    /**
+     * Ghi dữ liệu ra file, định dạng theo phần mở rộng; trả về số dòng đã ghi
+     */
+    public long export(File file, Stream<?> data) {
+        ExportFormat format = ExportFormat.forFile(file);
+        long written = 0;
+        try (ChannelOutput output = ChannelOutput.open(file.toPath(), ExportFormat.isCompressed(file))) {
+            RowWriter<T> writer = format == ExportFormat.CSV
+                    ? new CsvRowWriter<>(output, columns)
+                    : new ColumnarRowWriter<>(output, columns);
+            Iterator<?> rows = data.iterator();
+            while (rows.hasNext()) {
+                Object item = rows.next();
+                if (rowType.isInstance(item)) {
+                    writer.write(rowType.cast(item));
+                    written++;
+                }
+            }
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot export report to " + file, e);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,11 @@
+package report.export;
+
+import java.io.IOException;
+
+/**
+ * Ghi từng dòng theo một định dạng cụ thể
+ */
+interface RowWriter<T> {
+    void write(T row) throws IOException;
+    void finish() throws IOException;
+}
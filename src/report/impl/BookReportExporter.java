@@ -0,0 +1,52 @@
+package report.impl;
+
+import model.Book;
+import report.ExportableReport;
+import report.export.Column;
+import report.export.ExportFormat;
+import report.export.ReportExporter;
+import java.io.File;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Xuất danh sách sách ra file - chỉ implement ExportableReport
+ * Tuân thủ Interface Segregation Principle - BookReportGenerator không bị buộc phải biết về export
+ */
+public class BookReportExporter implements ExportableReport {
+    private static final ReportExporter<Book> EXPORTER = new ReportExporter<>(Book.class, List.of(
+            Column.text("ID", Book::getId),
+            Column.text("Title", Book::getTitle),
+            Column.text("Author", Book::getAuthor),
+            Column.text("ISBN", Book::getIsbn),
+            Column.flag("Available", Book::isAvailable)));
+    
+    private final Supplier<? extends Stream<?>> source;
+    
+    /**
+     * source: nguồn dữ liệu cho exportToFile(File), vd: bookService::streamAllBooks
+     */
+    public BookReportExporter(Supplier<? extends Stream<?>> source) {
+        this.source = source;
+    }
+    
+    @Override
+    public void exportToFile(File file) {
+        System.out.println("💾 Exporting book report to: " + file.getName());
+        try (Stream<?> books = source.get()) {
+            long rows = exportToFile(file, books);
+            System.out.println("Export completed successfully! (" + rows + " books)");
+        }
+    }
+    
+    @Override
+    public long exportToFile(File file, Stream<?> data) {
+        return EXPORTER.export(file, data);
+    }
+    
+    @Override
+    public String getSupportedFormats() {
+        return ExportFormat.describe();
+    }
+}
@@ -3,6 +3,7 @@ package report.impl;
 import model.Book;
 import report.ReportGenerator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Báo cáo sách - chỉ implement ReportGenerator
@@ -11,9 +12,15 @@ import java.util.List;
 public class BookReportGenerator implements ReportGenerator {
     @Override
     public void generateReport(List<?> data) {
+        generateReport(data.stream());
+    }
+    
+    @Override
+    public void generateReport(Stream<?> data) {
         System.out.println("📊 BOOK REPORT");
         System.out.println("==============");
-        for (Object item : data) {
+        // Xử lý từng phần tử khi nó tới: bộ nhớ không phụ thuộc số lượng sách
+        data.forEach(item -> {
             if (item instanceof Book) {
                 Book book = (Book) item;
                 System.out.println("Title: " + book.getTitle());
@@ -21,7 +28,7 @@ public class BookReportGenerator implements ReportGenerator {
                 System.out.println("Available: " + (book.isAvailable() ? "Yes" : "No"));
                 System.out.println("---");
             }
-        }
+        });
     }
     
     @Override
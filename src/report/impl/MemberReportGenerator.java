@@ -4,21 +4,50 @@ import model.Member;
 import report.ExportableReport;
 import report.PrintableReport;
 import report.ReportGenerator;
+import report.export.Column;
+import report.export.ExportFormat;
+import report.export.ReportExporter;
 import java.io.File;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Báo cáo thành viên - implement nhiều interface nhưng chỉ những gì cần thiết
  * Tuân thủ Interface Segregation Principle - có thể chọn implement các interface phù hợp
  */
 public class MemberReportGenerator implements ReportGenerator, ExportableReport, PrintableReport {
+    private static final ReportExporter<Member> EXPORTER = new ReportExporter<>(Member.class, List.of(
+            Column.text("ID", Member::getId),
+            Column.text("Name", Member::getName),
+            Column.text("Email", Member::getEmail),
+            Column.text("Phone", Member::getPhone)));
+    
+    private final Supplier<? extends Stream<?>> source;
     private String printSettings = "Default";
     
+    public MemberReportGenerator() {
+        this(Stream::empty);
+    }
+    
+    /**
+     * source: nguồn dữ liệu cho exportToFile(File), vd: memberService::streamAllMembers
+     */
+    public MemberReportGenerator(Supplier<? extends Stream<?>> source) {
+        this.source = source;
+    }
+    
     @Override
     public void generateReport(List<?> data) {
+        generateReport(data.stream());
+    }
+    
+    @Override
+    public void generateReport(Stream<?> data) {
         System.out.println("👥 MEMBER REPORT");
         System.out.println("================");
-        for (Object item : data) {
+        // Xử lý từng phần tử khi nó tới: bộ nhớ không phụ thuộc số lượng thành viên
+        data.forEach(item -> {
             if (item instanceof Member) {
                 Member member = (Member) item;
                 System.out.println("Name: " + member.getName());
@@ -26,7 +55,7 @@ public class MemberReportGenerator implements ReportGenerator, ExportableReport,
                 System.out.println("Phone: " + member.getPhone());
                 System.out.println("---");
             }
-        }
+        });
     }
     
     @Override
@@ -37,12 +66,20 @@ public class MemberReportGenerator implements ReportGenerator, ExportableReport,
     @Override
     public void exportToFile(File file) {
         System.out.println("💾 Exporting member report to: " + file.getName());
-        System.out.println("Export completed successfully!");
+        try (Stream<?> members = source.get()) {
+            long rows = exportToFile(file, members);
+            System.out.println("Export completed successfully! (" + rows + " members)");
+        }
+    }
+    
+    @Override
+    public long exportToFile(File file, Stream<?> data) {
+        return EXPORTER.export(file, data);
     }
     
     @Override
     public String getSupportedFormats() {
-        return "PDF, Excel, CSV";
+        return ExportFormat.describe();
     }
     
     @Override
@@ -0,0 +1,17 @@
+package repository;
+
+import model.Book;
+
+/**
+ * Nhận thông báo mỗi khi dữ liệu sách thay đổi qua repository
+ * Được gọi sau khi thao tác đã thành công, trên luồng thực hiện thao tác đó.
+ */
+public interface BookChangeListener {
+    // save: thêm mới hoặc ghi đè
+    void onSaved(Book book);
+    // update: chỉ có hiệu lực nếu sách đã tồn tại
+    void onUpdated(Book book);
+    void onDeleted(String id);
+    // Mượn/trả thành công qua compareAndSetAvailable
+    void onAvailabilityChanged(String id, boolean available);
+}
@@ -1,8 +1,12 @@
 package repository;
 
 import model.Book;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Interface cho việc quản lý dữ liệu sách
@@ -16,5 +20,44 @@ public interface BookRepository {
     List<Book> findAvailableBooks();
     void update(Book book);
     void delete(String id);
+    // Đổi trạng thái sẵn có nguyên tử (compare-and-set); false nếu không tìm thấy hoặc trạng thái khác expected
+    boolean compareAndSetAvailable(String id, boolean expected, boolean available);
+    long count();
+    long countAvailable();
+    
+    // Duyệt toàn bộ sách mà không sao chép ra List; caller phải đóng stream (try-with-resources)
+    default Stream<Book> streamAll() {
+        return findAll().stream();
+    }
+    
+    // Các ID trong danh sách đã tồn tại; mặc định tra từng ID, implementation có thể kiểm tra trong một truy vấn
+    default Set<String> findExistingIds(Collection<String> ids) {
+        Set<String> existing = new HashSet<>();
+        for (String id : ids) {
+            if (findById(id).isPresent()) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+    
+    // Thao tác hàng loạt - mặc định lặp từng phần tử, implementation có thể ghi trong một lượt (vd: JDBC batch)
+    default void saveAll(Collection<Book> books) {
+        for (Book book : books) {
+            save(book);
+        }
+    }
+    
+    default void updateAll(Collection<Book> books) {
+        for (Book book : books) {
+            update(book);
+        }
+    }
+    
+    default void deleteAll(Collection<String> ids) {
+        for (String id : ids) {
+            delete(id);
+        }
+    }
 }
 
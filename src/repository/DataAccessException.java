@@ -0,0 +1,17 @@
+package repository;
+
+/**
+ * Lỗi truy cập dữ liệu từ tầng lưu trữ (database, file...)
+ * Bọc các checked exception như SQLException để interface repository không phụ thuộc vào công nghệ lưu trữ
+ */
+public class DataAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public DataAccessException(String message) {
+        super(message);
+    }
+}
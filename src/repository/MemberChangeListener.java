@@ -0,0 +1,14 @@
+package repository;
+
+import model.Member;
+
+/**
+ * Nhận thông báo mỗi khi dữ liệu thành viên thay đổi qua repository
+ * Được gọi sau khi thao tác đã thành công, trên luồng thực hiện thao tác đó.
+ */
+public interface MemberChangeListener {
+    void onSaved(Member member);
+    // update: chỉ có hiệu lực nếu thành viên đã tồn tại
+    void onUpdated(Member member);
+    void onDeleted(String id);
+}
@@ -1,8 +1,10 @@
 package repository;
 
 import model.Member;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface cho việc quản lý dữ liệu thành viên
@@ -11,9 +13,38 @@ import java.util.Optional;
 public interface MemberRepository {
     void save(Member member);
     Optional<Member> findById(String id);
+    Optional<Member> findByEmail(String email);
     List<Member> findAll();
     List<Member> findByName(String name);
     void update(Member member);
     void delete(String id);
+    
+    default long count() {
+        return findAll().size();
+    }
+    
+    // Duyệt toàn bộ thành viên mà không sao chép ra List; caller phải đóng stream (try-with-resources)
+    default Stream<Member> streamAll() {
+        return findAll().stream();
+    }
+    
+    // Thao tác hàng loạt - mặc định lặp từng phần tử, implementation có thể ghi trong một lượt
+    default void saveAll(Collection<Member> members) {
+        for (Member member : members) {
+            save(member);
+        }
+    }
+    
+    default void updateAll(Collection<Member> members) {
+        for (Member member : members) {
+            update(member);
+        }
+    }
+    
+    default void deleteAll(Collection<String> ids) {
+        for (String id : ids) {
+            delete(id);
+        }
+    }
 }
 
@@ -0,0 +1,81 @@
+package repository.impl;
+
+import model.Book;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục phụ theo tác giả (không phân biệt hoa/thường) dùng chung cho các BookRepository
+ * Được cập nhật khi save/update/delete nên findByAuthor chỉ tốn O(số kết quả) thay vì quét toàn bộ.
+ * Các thao tác trên cùng một ID phải được repository tuần tự hóa; các ID khác nhau có thể chạy song song.
+ * Chỉ fold() là public, để nơi khác gom theo tác giả dùng đúng quy tắc so khớp của findByAuthor.
+ */
+public class AuthorIndex {
+    private final Map<String, Set<String>> idsByAuthor = new ConcurrentHashMap<>();
+    // Nhớ khóa đã index cho từng ID vì Book có thể bị sửa trực tiếp trước khi update()
+    private final Map<String, String> authorKeyById = new ConcurrentHashMap<>();
+
+    AuthorIndex() {
+    }
+
+    void index(Book book) {
+        String id = book.getId();
+        String key = book.getAuthor() == null ? null : fold(book.getAuthor());
+        String previous = key == null ? authorKeyById.remove(id) : authorKeyById.put(id, key);
+        if (previous != null && previous.equals(key)) {
+            return;
+        }
+        if (previous != null) {
+            unlink(previous, id);
+        }
+        if (key != null) {
+            idsByAuthor.compute(key, (k, ids) -> {
+                Set<String> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                result.add(id);
+                return result;
+            });
+        }
+    }
+
+    void remove(String id) {
+        String previous = authorKeyById.remove(id);
+        if (previous != null) {
+            unlink(previous, id);
+        }
+    }
+
+    Set<String> idsFor(String author) {
+        if (author == null) {
+            return Collections.emptySet();
+        }
+        Set<String> ids = idsByAuthor.get(fold(author));
+        return ids != null ? ids : Collections.emptySet();
+    }
+
+    /**
+     * Chuẩn hóa giống hệt String.equalsIgnoreCase (so sánh từng ký tự qua upper rồi lower case)
+     */
+    public static String fold(String author) {
+        StringBuilder folded = null;
+        for (int i = 0; i < author.length(); i++) {
+            char c = author.charAt(i);
+            char f = Character.toLowerCase(Character.toUpperCase(c));
+            if (f != c && folded == null) {
+                folded = new StringBuilder(author.length()).append(author, 0, i);
+            }
+            if (folded != null) {
+                folded.append(f);
+            }
+        }
+        return folded != null ? folded.toString() : author;
+    }
+
+    private void unlink(String key, String id) {
+        idsByAuthor.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
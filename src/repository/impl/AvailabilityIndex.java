@@ -0,0 +1,41 @@
+package repository.impl;
+
+import model.Book;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Tập các sách đang sẵn có, được duy trì song song với kho lưu trữ chính của repository
+ * findAvailableBooks chỉ tốn O(số kết quả) và đếm số sách sẵn có là O(1).
+ */
+class AvailabilityIndex {
+    private final ConcurrentHashMap<String, Book> availableBooks = new ConcurrentHashMap<>();
+
+    /**
+     * Đồng bộ lại một ID từ trạng thái hiện tại trong store, gọi sau mọi thay đổi (save/update/delete/CAS).
+     * Đọc trạng thái bên trong compute() nên lần đồng bộ cuối cùng luôn thấy trạng thái mới nhất,
+     * kể cả khi nhiều lượt mượn/trả trên cùng cuốn sách chạy song song.
+     */
+    void refresh(String id, Map<String, Book> store) {
+        refresh(id, store::get);
+    }
+
+    // Dành cho repository không lưu sách trong một Map<String, Book>
+    void refresh(String id, Function<String, Book> store) {
+        availableBooks.compute(id, (key, previous) -> {
+            Book current = store.apply(key);
+            return current != null && current.isAvailable() ? current : null;
+        });
+    }
+
+    List<Book> books() {
+        return new ArrayList<>(availableBooks.values());
+    }
+
+    long count() {
+        return availableBooks.mappingCount();
+    }
+}
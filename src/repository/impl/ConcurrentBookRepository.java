@@ -0,0 +1,130 @@
+package repository.impl;
+
+import model.Book;
+import repository.BookRepository;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implementation của BookRepository an toàn đa luồng
+ * Đọc không cần khóa (ConcurrentHashMap), ghi được khóa theo từng "stripe" của ID
+ * nên các thao tác trên những cuốn sách khác nhau không chặn lẫn nhau.
+ * Mượn/trả (compareAndSetAvailable) không lấy khóa: CAS trực tiếp trên cờ của Book rồi kiểm tra lại.
+ * Có thể thay thế InMemoryBookRepository mà không sửa BookService (DIP)
+ */
+public class ConcurrentBookRepository implements BookRepository {
+    private final Map<String, Book> books = new ConcurrentHashMap<>();
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+    private final StripedLocks locks;
+
+    public ConcurrentBookRepository() {
+        this.locks = new StripedLocks();
+    }
+
+    public ConcurrentBookRepository(int stripes) {
+        this.locks = new StripedLocks(stripes);
+    }
+
+    @Override
+    public void save(Book book) {
+        ReentrantLock lock = locks.lockFor(book.getId());
+        lock.lock();
+        try {
+            books.put(book.getId(), book);
+            authorIndex.index(book);
+            availabilityIndex.refresh(book.getId(), books);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+        return Optional.ofNullable(books.get(id));
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return new ArrayList<>(books.values());
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        // Weakly consistent: không ném ConcurrentModificationException khi có ghi song song
+        return books.values().stream();
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return authorIndex.idsFor(author).stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Book> findAvailableBooks() {
+        return availabilityIndex.books();
+    }
+
+    @Override
+    public void update(Book book) {
+        ReentrantLock lock = locks.lockFor(book.getId());
+        lock.lock();
+        try {
+            // containsKey + put phải nguyên tử với delete trên cùng ID
+            if (books.containsKey(book.getId())) {
+                books.put(book.getId(), book);
+                authorIndex.index(book);
+                availabilityIndex.refresh(book.getId(), books);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        ReentrantLock lock = locks.lockFor(id);
+        lock.lock();
+        try {
+            books.remove(id);
+            authorIndex.remove(id);
+            availabilityIndex.refresh(id, books);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        Book book = books.get(id);
+        if (book == null || !book.compareAndSetAvailable(expected, available)) {
+            return false;
+        }
+        // delete/update song song có thể đã gỡ cuốn sách khỏi store giữa lúc đọc và CAS: khi đó coi như
+        // CAS xảy ra trên bản đã bị thay, hoàn lại cờ trên object cũ và báo thất bại
+        if (books.get(id) != book) {
+            book.compareAndSetAvailable(available, expected);
+            availabilityIndex.refresh(id, books);
+            return false;
+        }
+        // refresh đọc trạng thái mới nhất trong compute() nên đúng cả khi delete chen vào sau lần kiểm tra trên
+        availabilityIndex.refresh(id, books);
+        return true;
+    }
+
+    @Override
+    public long count() {
+        return books.size();
+    }
+
+    @Override
+    public long countAvailable() {
+        return availabilityIndex.count();
+    }
+}
@@ -2,62 +2,483 @@ package repository.impl;
 
 import model.Book;
 import repository.BookRepository;
+import repository.DataAccessException;
+import repository.jdbc.ConnectionPool;
+import repository.jdbc.PooledConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Implementation của BookRepository sử dụng Database
+ * Implementation của BookRepository sử dụng Database qua JDBC
  * Minh họa Dependency Inversion Principle - có thể thay thế InMemoryBookRepository
+ *
+ * Dùng ConnectionPool với PreparedStatement được cache theo kết nối, và đánh index cho
+ * các cột id/author_key/available. Chỉ dùng SQL chuẩn nên chạy được với H2 hoặc SQLite (chế độ file),
+ * chỉ cần driver tương ứng trong classpath.
  */
-public class DatabaseBookRepository implements BookRepository {
-    // Giả lập database connection
-    private final Map<String, Book> database = new HashMap<>();
-    
+public class DatabaseBookRepository implements BookRepository, AutoCloseable {
+    private static final int DEFAULT_POOL_SIZE = 8;
+    // Số dòng mỗi lần executeBatch để không giữ quá nhiều tham số trong driver
+    private static final int BATCH_SIZE = 1_000;
+    private static final int FETCH_SIZE = 1_000;
+    // Số lần chạy lại saveAll khi lượt INSERT đụng dòng vừa được luồng khác thêm vào
+    private static final int SAVE_ALL_ATTEMPTS = 3;
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS books ("
+                + "id VARCHAR(64) PRIMARY KEY, "
+                + "title VARCHAR(512), "
+                + "author VARCHAR(255), "
+                + "author_key VARCHAR(255), "
+                + "isbn VARCHAR(32), "
+                + "available BOOLEAN NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_books_author_key ON books (author_key)",
+        "CREATE INDEX IF NOT EXISTS idx_books_available ON books (available)"
+    };
+
+    private static final String COLUMNS = "id, title, author, isbn, available";
+    private static final String SELECT_BY_ID = "SELECT " + COLUMNS + " FROM books WHERE id = ?";
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM books";
+    private static final String SELECT_BY_AUTHOR = "SELECT " + COLUMNS + " FROM books WHERE author_key = ?";
+    // Số tham số cố định cho mỗi truy vấn IN để PreparedStatement được cache; phần thiếu lặp lại ID cuối
+    private static final int IN_CHUNK_SIZE = 500;
+    private static final String SELECT_EXISTING_IDS = "SELECT id FROM books WHERE id IN ("
+            + String.join(", ", Collections.nCopies(IN_CHUNK_SIZE, "?")) + ")";
+    private static final String SELECT_BY_AVAILABLE = "SELECT " + COLUMNS + " FROM books WHERE available = ?";
+    private static final String INSERT =
+            "INSERT INTO books (title, author, author_key, isbn, available, id) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE =
+            "UPDATE books SET title = ?, author = ?, author_key = ?, isbn = ?, available = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM books WHERE id = ?";
+    private static final String SWAP_AVAILABLE = "UPDATE books SET available = ? WHERE id = ? AND available = ?";
+    private static final String COUNT = "SELECT COUNT(*) FROM books";
+    private static final String COUNT_BY_AVAILABLE = "SELECT COUNT(*) FROM books WHERE available = ?";
+
+    private final ConnectionPool pool;
+    private final boolean ownsPool;
+
+    public DatabaseBookRepository(String jdbcUrl) {
+        this(new ConnectionPool(jdbcUrl, null, null, DEFAULT_POOL_SIZE), true);
+    }
+
+    public DatabaseBookRepository(ConnectionPool pool) {
+        this(pool, false);
+    }
+
+    private DatabaseBookRepository(ConnectionPool pool, boolean ownsPool) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        createSchema();
+    }
+
     @Override
     public void save(Book book) {
-        System.out.println("💾 Saving book to database: " + book.getTitle());
-        database.put(book.getId(), book);
+        try (PooledConnection connection = pool.acquire()) {
+            // Upsert khả chuyển giữa các database: thử UPDATE trước, chưa có dòng nào thì INSERT
+            if (executeWrite(connection.prepare(UPDATE), book) == 0) {
+                try {
+                    executeWrite(connection.prepare(INSERT), book);
+                } catch (SQLException e) {
+                    // Một lượt save song song vừa INSERT cùng ID: dòng đã tồn tại nên UPDATE lại là đủ
+                    if (!isConstraintViolation(e) || executeWrite(connection.prepare(UPDATE), book) == 0) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot save book " + book.getId(), e);
+        }
     }
-    
+
     @Override
     public Optional<Book> findById(String id) {
-        System.out.println("🔍 Querying database for book ID: " + id);
-        return Optional.ofNullable(database.get(id));
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_BY_ID);
+            statement.setString(1, id);
+            List<Book> books = query(statement);
+            return books.isEmpty() ? Optional.empty() : Optional.of(books.get(0));
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot find book " + id, e);
+        }
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        Set<String> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_EXISTING_IDS);
+            for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+                int to = Math.min(from + IN_CHUNK_SIZE, distinct.size());
+                for (int i = 0; i < IN_CHUNK_SIZE; i++) {
+                    statement.setString(i + 1, distinct.get(Math.min(from + i, to - 1)));
+                }
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        existing.add(rows.getString(1));
+                    }
+                }
+            }
+            return existing;
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot check existence of " + ids.size() + " books", e);
+        }
     }
-    
+
     @Override
     public List<Book> findAll() {
-        System.out.println("📋 Querying all books from database");
-        return new ArrayList<>(database.values());
+        try (PooledConnection connection = pool.acquire()) {
+            return query(connection.prepare(SELECT_ALL));
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot list books", e);
+        }
     }
-    
+
     @Override
     public List<Book> findByAuthor(String author) {
-        System.out.println("👤 Querying database for author: " + author);
-        return database.values().stream()
-                .filter(book -> book.getAuthor().equalsIgnoreCase(author))
-                .collect(Collectors.toList());
+        if (author == null) {
+            return new ArrayList<>();
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_BY_AUTHOR);
+            statement.setString(1, AuthorIndex.fold(author));
+            return query(statement);
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot find books by author " + author, e);
+        }
     }
-    
+
     @Override
     public List<Book> findAvailableBooks() {
-        System.out.println("📚 Querying available books from database");
-        return database.values().stream()
-                .filter(Book::isAvailable)
-                .collect(Collectors.toList());
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SELECT_BY_AVAILABLE);
+            statement.setBoolean(1, true);
+            return query(statement);
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot list available books", e);
+        }
     }
-    
+
     @Override
     public void update(Book book) {
-        System.out.println("🔄 Updating book in database: " + book.getTitle());
-        if (database.containsKey(book.getId())) {
-            database.put(book.getId(), book);
+        try (PooledConnection connection = pool.acquire()) {
+            executeWrite(connection.prepare(UPDATE), book);
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot update book " + book.getId(), e);
         }
     }
-    
+
     @Override
     public void delete(String id) {
-        System.out.println("🗑️ Deleting book from database: " + id);
-        database.remove(id);
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(DELETE);
+            statement.setString(1, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot delete book " + id, e);
+        }
+    }
+
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        // Điều kiện nằm trong WHERE nên database tự đảm bảo tính nguyên tử
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(SWAP_AVAILABLE);
+            statement.setBoolean(1, available);
+            statement.setString(2, id);
+            statement.setBoolean(3, expected);
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot update availability of book " + id, e);
+        }
+    }
+
+    @Override
+    public long count() {
+        try (PooledConnection connection = pool.acquire()) {
+            return queryCount(connection.prepare(COUNT));
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot count books", e);
+        }
+    }
+
+    @Override
+    public long countAvailable() {
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(COUNT_BY_AVAILABLE);
+            statement.setBoolean(1, true);
+            return queryCount(statement);
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot count available books", e);
+        }
+    }
+
+    /**
+     * Đọc bằng cursor phía server (fetch size) thay vì nạp cả bảng vào List.
+     * Kết nối được giữ tới khi stream được đóng.
+     */
+    @Override
+    public Stream<Book> streamAll() {
+        PooledConnection connection = pool.acquire();
+        try {
+            Connection raw = connection.connection();
+            // Nhiều driver (vd: PostgreSQL) chỉ dùng cursor khi tắt auto-commit
+            boolean autoCommit = raw.getAutoCommit();
+            raw.setAutoCommit(false);
+            PreparedStatement statement = raw.prepareStatement(SELECT_ALL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            ResultSet rows = statement.executeQuery();
+            Spliterator<Book> cursor = new Spliterators.AbstractSpliterator<Book>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Book> action) {
+                    try {
+                        if (!rows.next()) {
+                            return false;
+                        }
+                        action.accept(toBook(rows));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new DataAccessException("Cannot read books", e);
+                    }
+                }
+            };
+            return StreamSupport.stream(cursor, false).onClose(() -> {
+                try {
+                    rows.close();
+                    statement.close();
+                    raw.commit();
+                    raw.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    throw new DataAccessException("Cannot close book cursor", e);
+                } finally {
+                    connection.close();
+                }
+            });
+        } catch (SQLException e) {
+            try {
+                connection.connection().rollback();
+                connection.connection().setAutoCommit(true);
+            } catch (SQLException ignored) {
+                // Kết nối đã hỏng, lỗi gốc quan trọng hơn
+            }
+            connection.close();
+            throw new DataAccessException("Cannot stream books", e);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    inTransaction(connection, () -> {
+                        // UPDATE cả lô trước, những dòng không tồn tại (0 dòng bị ảnh hưởng) được INSERT trong lô thứ hai
+                        List<Book> batch = new ArrayList<>(Math.min(books.size(), BATCH_SIZE));
+                        List<Book> missing = new ArrayList<>();
+                        PreparedStatement update = connection.prepare(UPDATE);
+                        for (Book book : books) {
+                            batch.add(book);
+                            if (batch.size() == BATCH_SIZE) {
+                                collectMissing(update, batch, missing);
+                            }
+                        }
+                        collectMissing(update, batch, missing);
+                        executeBatch(connection.prepare(INSERT), missing);
+                    });
+                    return;
+                } catch (SQLException e) {
+                    // Giống save(): một lượt ghi song song vừa INSERT cùng ID. Giao dịch đã rollback nên chạy lại cả lô,
+                    // lần sau những dòng đó đi vào nhánh UPDATE
+                    if (!isConstraintViolation(e) || attempt == SAVE_ALL_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot save " + books.size() + " books", e);
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            inTransaction(connection, () -> executeBatch(connection.prepare(UPDATE), books));
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot update " + books.size() + " books", e);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            inTransaction(connection, () -> {
+                PreparedStatement statement = connection.prepare(DELETE);
+                int pending = 0;
+                for (String id : ids) {
+                    statement.setString(1, id);
+                    statement.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot delete " + ids.size() + " books", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) {
+            pool.close();
+        }
+    }
+
+    private void createSchema() {
+        try (PooledConnection connection = pool.acquire();
+             Statement statement = connection.connection().createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Cannot create books schema", e);
+        }
+    }
+
+    // SQLState lớp 23 là vi phạm ràng buộc toàn vẹn (trùng khóa chính...); lỗi của lô có thể nằm trong chuỗi next/cause
+    private static boolean isConstraintViolation(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                SQLException sql = (SQLException) cause;
+                if (sql.getSQLState() != null && sql.getSQLState().startsWith("23")) {
+                    return true;
+                }
+                if (sql.getNextException() != null && sql.getNextException() != sql
+                        && isConstraintViolation(sql.getNextException())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void inTransaction(PooledConnection pooled, SqlWork work) throws SQLException {
+        Connection connection = pooled.connection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void collectMissing(PreparedStatement update, List<Book> batch, List<Book> missing)
+            throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Book book : batch) {
+            bind(update, book);
+            update.addBatch();
+        }
+        int[] counts = update.executeBatch();
+        for (int i = 0; i < counts.length; i++) {
+            // SUCCESS_NO_INFO được coi là đã cập nhật; H2 và SQLite luôn trả về số dòng chính xác
+            if (counts[i] == 0) {
+                missing.add(batch.get(i));
+            }
+        }
+        batch.clear();
+    }
+
+    private static void executeBatch(PreparedStatement statement, Collection<Book> books) throws SQLException {
+        int pending = 0;
+        for (Book book : books) {
+            bind(statement, book);
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            statement.executeBatch();
+        }
+    }
+
+    // INSERT và UPDATE dùng cùng thứ tự tham số, id luôn ở cuối
+    private static int executeWrite(PreparedStatement statement, Book book) throws SQLException {
+        bind(statement, book);
+        return statement.executeUpdate();
+    }
+
+    private static void bind(PreparedStatement statement, Book book) throws SQLException {
+        statement.setString(1, book.getTitle());
+        statement.setString(2, book.getAuthor());
+        statement.setString(3, book.getAuthor() == null ? null : AuthorIndex.fold(book.getAuthor()));
+        statement.setString(4, book.getIsbn());
+        statement.setBoolean(5, book.isAvailable());
+        statement.setString(6, book.getId());
+    }
+
+    private static List<Book> query(PreparedStatement statement) throws SQLException {
+        List<Book> books = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                books.add(toBook(rows));
+            }
+        }
+        return books;
+    }
+
+    private static long queryCount(PreparedStatement statement) throws SQLException {
+        try (ResultSet rows = statement.executeQuery()) {
+            return rows.next() ? rows.getLong(1) : 0;
+        }
+    }
+
+    private static Book toBook(ResultSet rows) throws SQLException {
+        Book book = new Book(rows.getString(1), rows.getString(2), rows.getString(3), rows.getString(4));
+        book.setAvailable(rows.getBoolean(5));
+        return book;
+    }
+
+    private interface SqlWork {
+        void run() throws SQLException;
     }
 }
@@ -0,0 +1,40 @@
+package repository.impl;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục duy nhất theo email cho các MemberRepository
+ * Việc giữ chỗ email dùng putIfAbsent nên hai lượt đăng ký đồng thời với cùng email không thể cùng thành công.
+ * Các thao tác trên cùng một ID phải được repository tuần tự hóa.
+ */
+class EmailIndex {
+    private final Map<String, String> idByEmail = new ConcurrentHashMap<>();
+    // Nhớ email đã index cho từng ID vì Member có thể bị sửa trực tiếp trước khi update()
+    private final Map<String, String> emailById = new ConcurrentHashMap<>();
+
+    void index(String id, String email) {
+        if (email != null) {
+            String owner = idByEmail.putIfAbsent(email, id);
+            if (owner != null && !owner.equals(id)) {
+                throw new IllegalStateException("Email " + email + " is already registered");
+            }
+        }
+        String previous = email != null ? emailById.put(id, email) : emailById.remove(id);
+        if (previous != null && !previous.equals(email)) {
+            idByEmail.remove(previous, id);
+        }
+    }
+
+    void remove(String id) {
+        String previous = emailById.remove(id);
+        if (previous != null) {
+            idByEmail.remove(previous, id);
+        }
+    }
+
+    Optional<String> idFor(String email) {
+        return email == null ? Optional.empty() : Optional.ofNullable(idByEmail.get(email));
+    }
+}
@@ -4,6 +4,7 @@ import model.Book;
 import repository.BookRepository;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation của BookRepository sử dụng bộ nhớ
@@ -11,10 +12,14 @@ import java.util.stream.Collectors;
  */
 public class InMemoryBookRepository implements BookRepository {
     private final Map<String, Book> books = new HashMap<>();
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final AvailabilityIndex availabilityIndex = new AvailabilityIndex();
     
     @Override
     public void save(Book book) {
         books.put(book.getId(), book);
+        authorIndex.index(book);
+        availabilityIndex.refresh(book.getId(), books);
     }
     
     @Override
@@ -27,30 +32,58 @@ public class InMemoryBookRepository implements BookRepository {
         return new ArrayList<>(books.values());
     }
     
+    @Override
+    public Stream<Book> streamAll() {
+        return books.values().stream();
+    }
+    
     @Override
     public List<Book> findByAuthor(String author) {
-        return books.values().stream()
-                .filter(book -> book.getAuthor().equalsIgnoreCase(author))
+        return authorIndex.idsFor(author).stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
     @Override
     public List<Book> findAvailableBooks() {
-        return books.values().stream()
-                .filter(Book::isAvailable)
-                .collect(Collectors.toList());
+        return availabilityIndex.books();
     }
     
     @Override
     public void update(Book book) {
         if (books.containsKey(book.getId())) {
             books.put(book.getId(), book);
+            authorIndex.index(book);
+            availabilityIndex.refresh(book.getId(), books);
         }
     }
     
     @Override
     public void delete(String id) {
         books.remove(id);
+        authorIndex.remove(id);
+        availabilityIndex.refresh(id, books);
+    }
+    
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        Book book = books.get(id);
+        if (book == null || !book.compareAndSetAvailable(expected, available)) {
+            return false;
+        }
+        availabilityIndex.refresh(id, books);
+        return true;
+    }
+    
+    @Override
+    public long count() {
+        return books.size();
+    }
+    
+    @Override
+    public long countAvailable() {
+        return availabilityIndex.count();
     }
 }
 
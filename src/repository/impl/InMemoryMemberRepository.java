@@ -3,18 +3,27 @@ package repository.impl;
 import model.Member;
 import repository.MemberRepository;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation của MemberRepository sử dụng bộ nhớ
  * Tuân thủ Single Responsibility Principle - chỉ quản lý lưu trữ thành viên
  */
 public class InMemoryMemberRepository implements MemberRepository {
-    private final Map<String, Member> members = new HashMap<>();
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final NameIndex nameIndex = new NameIndex();
     
     @Override
     public void save(Member member) {
-        members.put(member.getId(), member);
+        // compute() tuần tự hóa theo ID; nếu email đã thuộc về thành viên khác thì không lưu gì cả
+        members.compute(member.getId(), (id, previous) -> {
+            emailIndex.index(id, member.getEmail());
+            nameIndex.index(id, member.getName());
+            return member;
+        });
     }
     
     @Override
@@ -22,28 +31,50 @@ public class InMemoryMemberRepository implements MemberRepository {
         return Optional.ofNullable(members.get(id));
     }
     
+    @Override
+    public Optional<Member> findByEmail(String email) {
+        return emailIndex.idFor(email).map(members::get);
+    }
+    
     @Override
     public List<Member> findAll() {
         return new ArrayList<>(members.values());
     }
     
+    @Override
+    public long count() {
+        return members.size();
+    }
+    
+    @Override
+    public Stream<Member> streamAll() {
+        return members.values().stream();
+    }
+    
     @Override
     public List<Member> findByName(String name) {
-        return members.values().stream()
-                .filter(member -> member.getName().toLowerCase().contains(name.toLowerCase()))
+        return nameIndex.search(name).stream()
+                .map(members::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
     
     @Override
     public void update(Member member) {
-        if (members.containsKey(member.getId())) {
-            members.put(member.getId(), member);
-        }
+        members.computeIfPresent(member.getId(), (id, previous) -> {
+            emailIndex.index(id, member.getEmail());
+            nameIndex.index(id, member.getName());
+            return member;
+        });
     }
     
     @Override
     public void delete(String id) {
-        members.remove(id);
+        members.computeIfPresent(id, (key, previous) -> {
+            emailIndex.remove(key);
+            nameIndex.remove(key);
+            return null;
+        });
     }
 }
 
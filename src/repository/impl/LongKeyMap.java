@@ -0,0 +1,160 @@
+package repository.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bảng băm địa chỉ mở với khóa long nguyên thủy: hai mảng song song, không có entry object hay boxing
+ * Dò tuyến tính, hệ số tải tối đa 2/3, xóa bằng cách dời lùi (không tombstone). Khóa 0 được dành cho slot trống.
+ *
+ * Chỉ một luồng được ghi tại một thời điểm (repository giữ khóa). get() không bao giờ ném lỗi hay lặp vô hạn
+ * khi có ghi song song nhưng có thể trả về kết quả sai, nên người đọc không khóa phải kiểm tra lại
+ * (vd: StampedLock.validate) và đọc lại dưới khóa nếu cần.
+ */
+final class LongKeyMap<V> {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Gom hai mảng vào một đối tượng để người đọc luôn thấy một cặp cùng kích thước
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        Table current = table;
+        long[] keys = current.keys;
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                return (V) current.values[slot];
+            }
+            if (candidate == 0) {
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * @return giá trị cũ, hoặc null nếu khóa chưa có
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        if ((size + 1) * 3L > table.keys.length * 2L) {
+            resize();
+        }
+        Table current = table;
+        int mask = current.keys.length - 1;
+        int slot = mix(key) & mask;
+        while (current.keys[slot] != 0) {
+            if (current.keys[slot] == key) {
+                V previous = (V) current.values[slot];
+                current.values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Ghi giá trị trước khóa để người đọc thấy khóa thì cũng thấy giá trị
+        current.values[slot] = value;
+        current.keys[slot] = key;
+        size++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        Table current = table;
+        long[] keys = current.keys;
+        Object[] values = current.values;
+        int mask = keys.length - 1;
+        int hole = mix(key) & mask;
+        while (keys[hole] != key) {
+            if (keys[hole] == 0) {
+                return null;
+            }
+            hole = (hole + 1) & mask;
+        }
+        V previous = (V) values[hole];
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long candidate = keys[slot];
+            if (candidate == 0) {
+                break;
+            }
+            int ideal = mix(candidate) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) {
+                values[hole] = values[slot];
+                keys[hole] = candidate;
+                hole = slot;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = null;
+        size--;
+        return previous;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<V> values() {
+        Table current = table;
+        List<V> result = new ArrayList<>(size);
+        for (int slot = 0; slot < current.keys.length; slot++) {
+            if (current.keys[slot] != 0) {
+                result.add((V) current.values[slot]);
+            }
+        }
+        return result;
+    }
+
+    private void resize() {
+        Table old = table;
+        Table resized = new Table(old.keys.length * 2);
+        int mask = resized.keys.length - 1;
+        for (int i = 0; i < old.keys.length; i++) {
+            long key = old.keys[i];
+            if (key != 0) {
+                int slot = mix(key) & mask;
+                while (resized.keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                resized.keys[slot] = key;
+                resized.values[slot] = old.values[i];
+            }
+        }
+        table = resized;
+    }
+
+    /**
+     * Bước trộn fmix64 của MurmurHash3: IdCodec dồn ký tự về các byte cao nên khóa thường chỉ khác nhau ở bit cao,
+     * phép nhân đơn lẻ không đẩy được sự khác biệt đó xuống các bit thấp mà mask dùng
+     */
+    private static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,298 @@
+package repository.impl;
+
+import model.Book;
+import repository.BookRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * BookRepository khởi động tức thì từ snapshot map vào bộ nhớ (xem writeSnapshot)
+ * Khi mở chỉ đọc header; mỗi cuốn sách chỉ được giải mã khi có truy vấn chạm tới nó.
+ * Sách đã được tra cứu hoặc thay đổi nằm trong một lớp phủ (overlay) trên heap và che bản trong snapshot;
+ * ID của snapshot đã bị che được ghi nhớ, nên ID bị che mà không có trong overlay nghĩa là đã xóa.
+ *
+ * findById/findByAuthor dùng bảng băm trong snapshot (không quét); findAll/findAvailableBooks/streamAll
+ * phải duyệt toàn bộ snapshot và trả về bản giải mã tạm, không giữ lại trong overlay.
+ */
+public class MappedBookRepository implements BookRepository {
+    private static final int ID = 0;
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 2;
+    private static final int ISBN = 3;
+    private static final int AVAILABLE_BIT = 0;
+    // Thứ tự bảng băm trong snapshot
+    private static final int ID_TABLE = 0;
+    private static final int AUTHOR_TABLE = 1;
+
+    private static final MappedSnapshot.Layout<Book> LAYOUT = new MappedSnapshot.Layout<>() {
+        @Override
+        public int fieldCount() {
+            return 4;
+        }
+
+        @Override
+        public String field(Book book, int field) {
+            switch (field) {
+                case ID: return book.getId();
+                case TITLE: return book.getTitle();
+                case AUTHOR: return book.getAuthor();
+                default: return book.getIsbn();
+            }
+        }
+
+        @Override
+        public byte flags(Book book) {
+            return (byte) (book.isAvailable() ? 1 << AVAILABLE_BIT : 0);
+        }
+
+        @Override
+        public Book create(byte flags, String[] fields) {
+            Book book = new Book(fields[ID], fields[TITLE], fields[AUTHOR], fields[ISBN]);
+            book.setAvailable((flags & (1 << AVAILABLE_BIT)) != 0);
+            return book;
+        }
+
+        @Override
+        public int[] keyFields() {
+            return new int[] {ID, AUTHOR};
+        }
+
+        @Override
+        public String normalize(int field, String value) {
+            return field == AUTHOR && value != null ? AuthorIndex.fold(value) : value;
+        }
+    };
+
+    private final MappedSnapshot<Book> snapshot;
+    private final Map<String, Book> overlay = new ConcurrentHashMap<>();
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+    // ID trong snapshot đã bị overlay che hoặc đã xóa; chỉ thay đổi bên trong overlay.compute của chính ID đó
+    private final Set<String> shadowed = ConcurrentHashMap.newKeySet();
+    private final LongAdder shadowedCount = new LongAdder();
+    private final LongAdder shadowedAvailable = new LongAdder();
+
+    public MappedBookRepository(Path snapshotFile) {
+        this.snapshot = MappedSnapshot.open(snapshotFile, LAYOUT);
+    }
+
+    /**
+     * Ghi snapshot có thể mở bằng MappedBookRepository; trả về số sách đã ghi
+     */
+    public static long writeSnapshot(Path file, Stream<Book> books) {
+        try (books) {
+            return MappedSnapshot.write(file, books.iterator(), LAYOUT, AVAILABLE_BIT);
+        }
+    }
+
+    /**
+     * Ghi trạng thái hiện tại (snapshot cũ + overlay) thành snapshot mới, vd: để lần khởi động sau không phải giữ overlay
+     */
+    public long writeSnapshot(Path file) {
+        return writeSnapshot(file, streamAll());
+    }
+
+    @Override
+    public void save(Book book) {
+        overlay.compute(book.getId(), (id, previous) -> {
+            if (previous == null) {
+                shadow(id);
+            }
+            authorIndex.index(book);
+            return book;
+        });
+        availabilityIndex.refresh(book.getId(), overlay);
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+        Book book = overlay.get(id);
+        if (book != null || shadowed.contains(id)) {
+            return Optional.ofNullable(book);
+        }
+        return Optional.ofNullable(materialize(id, snapshot.find(ID_TABLE, id)));
+    }
+
+    @Override
+    public List<Book> findAll() {
+        try (Stream<Book> books = streamAll()) {
+            return books.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        // Weakly consistent với ghi song song, nhưng mỗi ID xuất hiện đúng một lần: dòng snapshot bị che sau lúc
+        // chụp overlay (vd: vừa được materialize) được lấy lại qua overlay thay vì bị bỏ qua
+        Map<String, Book> current = new HashMap<>(overlay);
+        return Stream.concat(current.values().stream(),
+                IntStream.range(0, snapshot.size())
+                        .mapToObj(index -> {
+                            String id = snapshot.field(index, ID);
+                            if (current.containsKey(id)) {
+                                return null;
+                            }
+                            return shadowed.contains(id) ? resolveShadowed(id) : snapshot.decode(index);
+                        })
+                        .filter(Objects::nonNull));
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        List<Book> result = authorIndex.idsFor(author).stream()
+                .map(overlay::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        if (author != null) {
+            List<String> ids = new ArrayList<>();
+            snapshot.forEachMatch(AUTHOR_TABLE, AuthorIndex.fold(author), index -> {
+                String id = snapshot.field(index, ID);
+                if (!shadowed.contains(id)) {
+                    ids.add(id);
+                }
+                return true;
+            });
+            for (String id : ids) {
+                findById(id).ifPresent(result::add);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Book> findAvailableBooks() {
+        List<Book> result = availabilityIndex.books();
+        Set<String> listed = new HashSet<>();
+        for (Book book : result) {
+            listed.add(book.getId());
+        }
+        for (int index = 0; index < snapshot.size(); index++) {
+            if ((snapshot.flags(index) & (1 << AVAILABLE_BIT)) == 0) {
+                continue;
+            }
+            String id = snapshot.field(index, ID);
+            if (listed.contains(id)) {
+                continue;
+            }
+            if (!shadowed.contains(id)) {
+                result.add(snapshot.decode(index));
+            } else {
+                // Bị che sau khi đọc availabilityIndex (như streamAll)
+                Book book = resolveShadowed(id);
+                if (book != null && book.isAvailable()) {
+                    result.add(book);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void update(Book book) {
+        if (findById(book.getId()).isPresent()) {
+            overlay.computeIfPresent(book.getId(), (id, previous) -> {
+                authorIndex.index(book);
+                return book;
+            });
+            availabilityIndex.refresh(book.getId(), overlay);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        overlay.compute(id, (key, previous) -> {
+            if (previous == null) {
+                shadow(key);
+            }
+            authorIndex.remove(key);
+            return null;
+        });
+        availabilityIndex.refresh(id, overlay);
+    }
+
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        // Đưa sách vào overlay trước để trạng thái mới không bị mất
+        Optional<Book> book = findById(id);
+        if (book.isEmpty() || !book.get().compareAndSetAvailable(expected, available)) {
+            return false;
+        }
+        availabilityIndex.refresh(id, overlay);
+        return true;
+    }
+
+    @Override
+    public long count() {
+        return snapshot.size() - shadowedCount.sum() + overlay.size();
+    }
+
+    @Override
+    public long countAvailable() {
+        return snapshot.flaggedCount() - shadowedAvailable.sum() + availabilityIndex.count();
+    }
+
+    // Số sách đã được giải mã/thay đổi và đang giữ trên heap
+    public int getOverlaySize() {
+        return overlay.size();
+    }
+
+    /**
+     * Bản hiện tại của một dòng snapshot đã bị che; null nghĩa là đã xóa.
+     * compute (không đổi giá trị) chờ lượt materialize/ghi đang chạy trên ID xong rồi mới đọc,
+     * vì shadowed được cập nhật bên trong compute trước khi giá trị mới hiện ra trong overlay.
+     */
+    private Book resolveShadowed(String id) {
+        return overlay.compute(id, (key, current) -> current);
+    }
+
+    /**
+     * Giải mã bản ghi snapshot vào overlay; null nếu không có hoặc vừa bị xóa song song
+     */
+    private Book materialize(String id, int index) {
+        if (index < 0) {
+            return null;
+        }
+        Book book = overlay.computeIfAbsent(id, key -> {
+            if (shadowed.contains(key)) {
+                return null;
+            }
+            Book decoded = snapshot.decode(index);
+            shadow(key);
+            authorIndex.index(decoded);
+            return decoded;
+        });
+        if (book != null) {
+            availabilityIndex.refresh(id, overlay);
+        }
+        return book;
+    }
+
+    /**
+     * Đánh dấu bản trong snapshot (nếu có) là đã bị che; gọi bên trong overlay.compute của ID
+     */
+    private void shadow(String id) {
+        if (shadowed.contains(id)) {
+            return;
+        }
+        int index = snapshot.find(ID_TABLE, id);
+        if (index >= 0 && shadowed.add(id)) {
+            shadowedCount.increment();
+            if ((snapshot.flags(index) & (1 << AVAILABLE_BIT)) != 0) {
+                shadowedAvailable.increment();
+            }
+        }
+    }
+}
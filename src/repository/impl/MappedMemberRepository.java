@@ -0,0 +1,273 @@
+package repository.impl;
+
+import model.Member;
+import repository.MemberRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * MemberRepository khởi động tức thì từ snapshot map vào bộ nhớ, cùng cơ chế overlay như MappedBookRepository
+ * findById/findByEmail dùng bảng băm trong snapshot; findByName phải quét tên trong snapshot.
+ * Các thao tác ghi dùng chung một khóa để kiểm tra email trùng trên cả snapshot lẫn overlay một cách nguyên tử
+ * (đăng ký thành viên ít hơn nhiều so với đọc).
+ */
+public class MappedMemberRepository implements MemberRepository {
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int EMAIL = 2;
+    private static final int PHONE = 3;
+    // Thứ tự bảng băm trong snapshot
+    private static final int ID_TABLE = 0;
+    private static final int EMAIL_TABLE = 1;
+
+    private static final MappedSnapshot.Layout<Member> LAYOUT = new MappedSnapshot.Layout<>() {
+        @Override
+        public int fieldCount() {
+            return 4;
+        }
+
+        @Override
+        public String field(Member member, int field) {
+            switch (field) {
+                case ID: return member.getId();
+                case NAME: return member.getName();
+                case EMAIL: return member.getEmail();
+                default: return member.getPhone();
+            }
+        }
+
+        @Override
+        public byte flags(Member member) {
+            return 0;
+        }
+
+        @Override
+        public Member create(byte flags, String[] fields) {
+            return new Member(fields[ID], fields[NAME], fields[EMAIL], fields[PHONE]);
+        }
+
+        @Override
+        public int[] keyFields() {
+            return new int[] {ID, EMAIL};
+        }
+    };
+
+    private final MappedSnapshot<Member> snapshot;
+    private final Map<String, Member> overlay = new ConcurrentHashMap<>();
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final NameIndex nameIndex = new NameIndex();
+    // ID trong snapshot đã bị overlay che hoặc đã xóa; chỉ thay đổi bên trong overlay.compute của chính ID đó
+    private final Set<String> shadowed = ConcurrentHashMap.newKeySet();
+    private final LongAdder shadowedCount = new LongAdder();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public MappedMemberRepository(Path snapshotFile) {
+        this.snapshot = MappedSnapshot.open(snapshotFile, LAYOUT);
+    }
+
+    /**
+     * Ghi snapshot có thể mở bằng MappedMemberRepository; trả về số thành viên đã ghi
+     */
+    public static long writeSnapshot(Path file, Stream<Member> members) {
+        try (members) {
+            return MappedSnapshot.write(file, members.iterator(), LAYOUT, -1);
+        }
+    }
+
+    /**
+     * Ghi trạng thái hiện tại (snapshot cũ + overlay) thành snapshot mới
+     */
+    public long writeSnapshot(Path file) {
+        return writeSnapshot(file, streamAll());
+    }
+
+    @Override
+    public void save(Member member) {
+        writeLock.lock();
+        try {
+            checkEmailInSnapshot(member);
+            overlay.compute(member.getId(), (id, previous) -> {
+                emailIndex.index(id, member.getEmail());
+                nameIndex.index(id, member.getName());
+                if (previous == null) {
+                    shadow(id);
+                }
+                return member;
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Member> findById(String id) {
+        Member member = overlay.get(id);
+        if (member != null || shadowed.contains(id)) {
+            return Optional.ofNullable(member);
+        }
+        return Optional.ofNullable(materialize(id, snapshot.find(ID_TABLE, id)));
+    }
+
+    @Override
+    public Optional<Member> findByEmail(String email) {
+        Optional<Member> member = emailIndex.idFor(email).map(overlay::get);
+        if (member.isPresent() || email == null) {
+            return member;
+        }
+        int index = snapshot.find(EMAIL_TABLE, email);
+        // Thành viên bị che có email hiện tại nằm trong emailIndex, bản cũ trong snapshot không còn giá trị
+        return index < 0 ? Optional.empty() : findById(snapshot.field(index, ID))
+                .filter(found -> email.equals(found.getEmail()));
+    }
+
+    @Override
+    public List<Member> findAll() {
+        try (Stream<Member> members = streamAll()) {
+            return members.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public long count() {
+        return snapshot.size() - shadowedCount.sum() + overlay.size();
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        // Weakly consistent với ghi song song, nhưng mỗi ID xuất hiện đúng một lần: dòng snapshot bị che sau lúc
+        // chụp overlay (vd: vừa được materialize) được lấy lại qua overlay thay vì bị bỏ qua
+        Map<String, Member> current = new HashMap<>(overlay);
+        return Stream.concat(current.values().stream(),
+                IntStream.range(0, snapshot.size())
+                        .mapToObj(index -> {
+                            String id = snapshot.field(index, ID);
+                            if (current.containsKey(id)) {
+                                return null;
+                            }
+                            return shadowed.contains(id) ? resolveShadowed(id) : snapshot.decode(index);
+                        })
+                        .filter(Objects::nonNull));
+    }
+
+    @Override
+    public List<Member> findByName(String name) {
+        List<Member> result = nameIndex.search(name).stream()
+                .map(overlay::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        String folded = NameIndex.fold(name);
+        for (int index = 0; index < snapshot.size(); index++) {
+            String candidate = snapshot.field(index, NAME);
+            if (candidate != null && NameIndex.fold(candidate).contains(folded)) {
+                String id = snapshot.field(index, ID);
+                if (!shadowed.contains(id)) {
+                    findById(id).ifPresent(result::add);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void update(Member member) {
+        writeLock.lock();
+        try {
+            if (findById(member.getId()).isPresent()) {
+                checkEmailInSnapshot(member);
+                overlay.computeIfPresent(member.getId(), (id, previous) -> {
+                    emailIndex.index(id, member.getEmail());
+                    nameIndex.index(id, member.getName());
+                    return member;
+                });
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        writeLock.lock();
+        try {
+            overlay.compute(id, (key, previous) -> {
+                if (previous == null) {
+                    shadow(key);
+                }
+                emailIndex.remove(key);
+                nameIndex.remove(key);
+                return null;
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Số thành viên đã được giải mã/thay đổi và đang giữ trên heap
+    public int getOverlaySize() {
+        return overlay.size();
+    }
+
+    /**
+     * Email còn thuộc về một bản ghi snapshot chưa bị che của thành viên khác thì không được dùng lại
+     */
+    private void checkEmailInSnapshot(Member member) {
+        String email = member.getEmail();
+        int index = snapshot.find(EMAIL_TABLE, email);
+        if (index >= 0) {
+            String owner = snapshot.field(index, ID);
+            if (!owner.equals(member.getId()) && !shadowed.contains(owner)) {
+                throw new IllegalStateException("Email " + email + " is already registered");
+            }
+        }
+    }
+
+    /**
+     * Bản hiện tại của một dòng snapshot đã bị che; null nghĩa là đã xóa.
+     * compute (không đổi giá trị) chờ lượt materialize/ghi đang chạy trên ID xong rồi mới đọc,
+     * vì shadowed được cập nhật bên trong compute trước khi giá trị mới hiện ra trong overlay.
+     */
+    private Member resolveShadowed(String id) {
+        return overlay.compute(id, (key, current) -> current);
+    }
+
+    /**
+     * Giải mã bản ghi snapshot vào overlay; null nếu không có hoặc vừa bị xóa song song
+     */
+    private Member materialize(String id, int index) {
+        if (index < 0) {
+            return null;
+        }
+        return overlay.computeIfAbsent(id, key -> {
+            if (shadowed.contains(key)) {
+                return null;
+            }
+            Member decoded = snapshot.decode(index);
+            emailIndex.index(key, decoded.getEmail());
+            nameIndex.index(key, decoded.getName());
+            shadow(key);
+            return decoded;
+        });
+    }
+
+    /**
+     * Đánh dấu bản trong snapshot (nếu có) là đã bị che; gọi bên trong overlay.compute của ID
+     */
+    private void shadow(String id) {
+        if (!shadowed.contains(id) && snapshot.find(ID_TABLE, id) >= 0 && shadowed.add(id)) {
+            shadowedCount.increment();
+        }
+    }
+}
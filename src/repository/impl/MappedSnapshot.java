@@ -0,0 +1,335 @@
+package repository.impl;
+
+import repository.DataAccessException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.IntPredicate;
+
+/**
+ * Snapshot nhị phân chỉ đọc, được map thẳng vào bộ nhớ (MappedByteBuffer) và giải mã từng bản ghi khi cần
+ * Mở snapshot chỉ đọc header nên tốn thời gian gần như không đổi bất kể số bản ghi; hệ điều hành nạp
+ * các trang của file khi chúng thực sự được truy cập.
+ *
+ * Định dạng (big-endian):
+ * [header 64 byte][bản ghi: byte flags, các trường [int số byte UTF-8, -1 là null][byte]]
+ * [bảng offset: int cho từng bản ghi][các bảng băm: long cho từng slot]
+ * Mỗi bảng băm đánh chỉ mục một trường (đã chuẩn hóa), dò tuyến tính; slot = (hash << 32) | (số thứ tự + 1), 0 là trống.
+ * Toàn bộ file phải nhỏ hơn 2GB (một lần map).
+ */
+final class MappedSnapshot<T> {
+    /**
+     * Cách chuyển một kiểu bản ghi thành các trường chuỗi và ngược lại
+     */
+    interface Layout<T> {
+        int fieldCount();
+        String field(T record, int field);
+        byte flags(T record);
+        T create(byte flags, String[] fields);
+        // Các trường có bảng băm, theo thứ tự bảng
+        int[] keyFields();
+
+        default String normalize(int field, String value) {
+            return value;
+        }
+    }
+
+    private static final byte[] MAGIC = {'L', 'B', 'M', 'A', 'P', 0, 0, 1};
+    private static final int HEADER_SIZE = 64;
+    private static final int MAX_KEY_FIELDS = 4;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Layout<T> layout;
+    private final ByteBuffer data;
+    private final int size;
+    private final int slotCount;
+    private final int offsetsPosition;
+    private final int tablesPosition;
+    private final long flaggedCount;
+
+    private MappedSnapshot(Layout<T> layout, ByteBuffer data, int size, int slotCount,
+                           int offsetsPosition, int tablesPosition, long flaggedCount) {
+        this.layout = layout;
+        this.data = data;
+        this.size = size;
+        this.slotCount = slotCount;
+        this.offsetsPosition = offsetsPosition;
+        this.tablesPosition = tablesPosition;
+        this.flaggedCount = flaggedCount;
+    }
+
+    /**
+     * Map snapshot; file không tồn tại được coi là snapshot rỗng
+     */
+    static <T> MappedSnapshot<T> open(Path file, Layout<T> layout) {
+        if (!Files.exists(file)) {
+            return new MappedSnapshot<>(layout, null, 0, 0, 0, 0, 0);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new DataAccessException("Invalid mapped snapshot size: " + file);
+            }
+            // Mapping vẫn còn hiệu lực sau khi đóng channel
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            byte[] magic = new byte[MAGIC.length];
+            data.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new DataAccessException("Not a mapped snapshot file: " + file);
+            }
+            int size = data.getInt(8);
+            int fieldCount = data.getInt(12);
+            int tableCount = data.getInt(16);
+            int[] keyFields = layout.keyFields();
+            boolean compatible = fieldCount == layout.fieldCount() && tableCount == keyFields.length;
+            for (int t = 0; compatible && t < tableCount; t++) {
+                compatible = data.getInt(48 + 4 * t) == keyFields[t];
+            }
+            if (!compatible) {
+                throw new DataAccessException("Mapped snapshot " + file + " has a different record layout");
+            }
+            int slotCount = data.getInt(20);
+            long offsetsPosition = data.getLong(24);
+            long tablesPosition = data.getLong(32);
+            if (offsetsPosition + 4L * size != tablesPosition
+                    || tablesPosition + 8L * slotCount * tableCount != length) {
+                throw new DataAccessException("Mapped snapshot " + file + " is corrupted");
+            }
+            return new MappedSnapshot<>(layout, data, size, slotCount, (int) offsetsPosition,
+                                        (int) tablesPosition, data.getLong(40));
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot map snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Ghi snapshot ra file tạm, fsync rồi đổi tên nguyên tử; trả về số bản ghi đã ghi.
+     * flaggedBit: bit trong flags được đếm sẵn vào header (vd: số sách sẵn có)
+     */
+    static <T> long write(Path file, Iterator<T> records, Layout<T> layout, int flaggedBit) {
+        int[] keyFields = layout.keyFields();
+        if (keyFields.length > MAX_KEY_FIELDS) {
+            throw new IllegalArgumentException("At most " + MAX_KEY_FIELDS + " key fields are supported");
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int[] offsets = new int[1024];
+        long[][] keys = new long[keyFields.length][1024];
+        int[] keyCounts = new int[keyFields.length];
+        int count = 0;
+        long flagged = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long position = HEADER_SIZE;
+            channel.position(position);
+            byte[][] encoded = new byte[layout.fieldCount()][];
+            while (records.hasNext()) {
+                T record = records.next();
+                int recordSize = 1;
+                for (int f = 0; f < encoded.length; f++) {
+                    String value = layout.field(record, f);
+                    encoded[f] = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+                    recordSize += 4 + (value == null ? 0 : encoded[f].length);
+                }
+                if (position + recordSize > Integer.MAX_VALUE - 64L) {
+                    throw new DataAccessException("Mapped snapshot " + file + " would exceed 2GB");
+                }
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count] = (int) position;
+                for (int t = 0; t < keyFields.length; t++) {
+                    String key = layout.field(record, keyFields[t]);
+                    if (key != null) {
+                        if (keyCounts[t] == keys[t].length) {
+                            keys[t] = Arrays.copyOf(keys[t], keyCounts[t] * 2);
+                        }
+                        keys[t][keyCounts[t]++] = slot(hash(layout.normalize(keyFields[t], key)), count);
+                    }
+                }
+
+                if (buffer.remaining() < recordSize) {
+                    drain(channel, buffer);
+                    if (buffer.remaining() < recordSize) {
+                        buffer = ByteBuffer.allocateDirect(recordSize);
+                    }
+                }
+                byte flags = layout.flags(record);
+                buffer.put(flags);
+                for (byte[] bytes : encoded) {
+                    if (bytes == null) {
+                        buffer.putInt(-1);
+                    } else {
+                        buffer.putInt(bytes.length).put(bytes);
+                    }
+                }
+                position += recordSize;
+                count++;
+                if (flaggedBit >= 0 && (flags & (1 << flaggedBit)) != 0) {
+                    flagged++;
+                }
+            }
+
+            long offsetsPosition = position;
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < 4) {
+                    drain(channel, buffer);
+                }
+                buffer.putInt(offsets[i]);
+            }
+            long tablesPosition = offsetsPosition + 4L * count;
+            // Hệ số tải tối đa 2/3 để chuỗi dò tuyến tính ngắn
+            int slotCount = Integer.highestOneBit(Math.max(count + count / 2, 1)) << 1;
+            if (tablesPosition + 8L * slotCount * keyFields.length > Integer.MAX_VALUE) {
+                throw new DataAccessException("Mapped snapshot " + file + " would exceed 2GB");
+            }
+            for (int t = 0; t < keyFields.length; t++) {
+                long[] table = new long[slotCount];
+                for (int k = 0; k < keyCounts[t]; k++) {
+                    long entry = keys[t][k];
+                    int s = (int) (entry >>> 32) & (slotCount - 1);
+                    while (table[s] != 0) {
+                        s = (s + 1) & (slotCount - 1);
+                    }
+                    table[s] = entry;
+                }
+                for (long entry : table) {
+                    if (buffer.remaining() < 8) {
+                        drain(channel, buffer);
+                    }
+                    buffer.putLong(entry);
+                }
+                keys[t] = null;
+            }
+            drain(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).putInt(count).putInt(layout.fieldCount()).putInt(keyFields.length).putInt(slotCount)
+                  .putLong(offsetsPosition).putLong(tablesPosition).putLong(flagged);
+            for (int keyField : keyFields) {
+                header.putInt(keyField);
+            }
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot write mapped snapshot " + file, e);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot install mapped snapshot " + file, e);
+        }
+        return count;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Số bản ghi có bit đã chọn khi ghi (flaggedBit)
+    long flaggedCount() {
+        return flaggedCount;
+    }
+
+    byte flags(int index) {
+        return data.get(data.getInt(offsetsPosition + 4 * index));
+    }
+
+    /**
+     * Giải mã riêng một trường, bỏ qua các trường đứng trước mà không tạo chuỗi
+     */
+    String field(int index, int field) {
+        int position = data.getInt(offsetsPosition + 4 * index) + 1;
+        for (int f = 0; f < field; f++) {
+            position += 4 + Math.max(data.getInt(position), 0);
+        }
+        return readString(position);
+    }
+
+    T decode(int index) {
+        int position = data.getInt(offsetsPosition + 4 * index);
+        byte flags = data.get(position++);
+        String[] fields = new String[layout.fieldCount()];
+        for (int f = 0; f < fields.length; f++) {
+            fields[f] = readString(position);
+            position += 4 + Math.max(data.getInt(position), 0);
+        }
+        return layout.create(flags, fields);
+    }
+
+    /**
+     * Số thứ tự bản ghi đầu tiên có trường khóa (bảng table) bằng key đã chuẩn hóa, -1 nếu không có
+     */
+    int find(int table, String key) {
+        int[] found = {-1};
+        forEachMatch(table, key, index -> {
+            found[0] = index;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Duyệt mọi bản ghi khớp key trong bảng table; visitor trả về false để dừng
+     */
+    void forEachMatch(int table, String key, IntPredicate visitor) {
+        if (size == 0 || key == null) {
+            return;
+        }
+        int field = layout.keyFields()[table];
+        int hash = hash(key);
+        int base = tablesPosition + table * slotCount * 8;
+        int s = hash & (slotCount - 1);
+        while (true) {
+            long entry = data.getLong(base + 8 * s);
+            if (entry == 0) {
+                return;
+            }
+            int index = (int) entry - 1;
+            // So hash trước để không giải mã các bản ghi chỉ trùng slot
+            if ((int) (entry >>> 32) == hash && key.equals(layout.normalize(field, field(index, field)))
+                    && !visitor.test(index)) {
+                return;
+            }
+            s = (s + 1) & (slotCount - 1);
+        }
+    }
+
+    private String readString(int position) {
+        int length = data.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    private static long slot(int hash, int index) {
+        return ((long) hash << 32) | (index + 1L);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package repository.impl;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chỉ mục n-gram trên tên thành viên, hỗ trợ tìm kiếm chuỗi con không phân biệt hoa/thường
+ * Mỗi tên được đánh chỉ mục theo mọi chuỗi con dài 1, 2 và 3 ký tự. Truy vấn dài tới 3 ký tự (thường gặp nhất khi
+ * gõ-tới-đâu-gợi-ý-tới-đó) là đúng một danh sách ID; truy vấn dài hơn chỉ duyệt danh sách của trigram hiếm nhất
+ * rồi kiểm tra lại bằng contains, nên chi phí tỉ lệ với số ứng viên thay vì tổng số thành viên.
+ * Các thao tác trên cùng một ID phải được repository tuần tự hóa.
+ */
+class NameIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<String>> idsByGram = new ConcurrentHashMap<>();
+    // Tên đã chuẩn hóa theo ID: dùng để kiểm tra ứng viên và gỡ các trigram cũ khi tên thay đổi
+    private final Map<String, String> foldedNameById = new ConcurrentHashMap<>();
+
+    void index(String id, String name) {
+        String folded = name == null ? null : fold(name);
+        String previous = folded != null ? foldedNameById.put(id, folded) : foldedNameById.remove(id);
+        if (Objects.equals(previous, folded)) {
+            return;
+        }
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                unlink(gram, id);
+            }
+        }
+        if (folded != null) {
+            for (String gram : grams(folded)) {
+                idsByGram.compute(gram, (key, ids) -> {
+                    Set<String> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    result.add(id);
+                    return result;
+                });
+            }
+        }
+    }
+
+    void remove(String id) {
+        String previous = foldedNameById.remove(id);
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                unlink(gram, id);
+            }
+        }
+    }
+
+    List<String> search(String query) {
+        String folded = fold(query);
+        List<String> result = new ArrayList<>();
+
+        if (folded.isEmpty()) {
+            result.addAll(foldedNameById.keySet());
+            return result;
+        }
+        // Truy vấn không dài hơn một trigram chính là một n-gram đã được đánh chỉ mục: không cần kiểm tra lại
+        if (folded.length() <= GRAM_LENGTH) {
+            Set<String> ids = idsByGram.get(folded);
+            if (ids != null) {
+                result.addAll(ids);
+            }
+            return result;
+        }
+
+        Set<String> candidates = null;
+        for (String gram : trigrams(folded)) {
+            Set<String> ids = idsByGram.get(gram);
+            if (ids == null) {
+                return result;
+            }
+            if (candidates == null || ids.size() < candidates.size()) {
+                candidates = ids;
+            }
+        }
+        for (String id : candidates) {
+            String name = foldedNameById.get(id);
+            if (name != null && name.contains(folded)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // Mọi chuỗi con dài 1..GRAM_LENGTH: khóa của chỉ mục
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length <= GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= folded.length(); i++) {
+                grams.add(folded.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    private static Set<String> trigrams(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private void unlink(String gram, String id) {
+        idsByGram.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
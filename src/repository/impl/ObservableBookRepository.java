@@ -0,0 +1,191 @@
+package repository.impl;
+
+import model.Book;
+import repository.BookChangeListener;
+import repository.BookRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Decorator phát sự kiện thay đổi của BookRepository tới các listener (vd: bộ thống kê)
+ * Đọc đi thẳng tới repository bên trong; chỉ các thao tác ghi thành công mới phát sự kiện.
+ * Sự kiện được phát trong cùng khóa stripe theo ID với thao tác ghi, nên listener nhận sự kiện của một ID
+ * đúng theo thứ tự ghi. Listener chạy khi đang giữ khóa: không được chậm hay ghi ngược vào repository này.
+ * Tuân thủ Open/Closed Principle - thêm hành vi mà không sửa các implementation có sẵn
+ */
+public class ObservableBookRepository implements BookRepository {
+    private final BookRepository delegate;
+    private final List<BookChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final StripedLocks locks = new StripedLocks();
+
+    public ObservableBookRepository(BookRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public void addListener(BookChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BookChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void save(Book book) {
+        ReentrantLock lock = locks.lockFor(book.getId());
+        lock.lock();
+        try {
+            delegate.save(book);
+            for (BookChangeListener listener : listeners) {
+                listener.onSaved(book);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        return delegate.findExistingIds(ids);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return delegate.findByAuthor(author);
+    }
+
+    @Override
+    public List<Book> findAvailableBooks() {
+        return delegate.findAvailableBooks();
+    }
+
+    @Override
+    public void update(Book book) {
+        ReentrantLock lock = locks.lockFor(book.getId());
+        lock.lock();
+        try {
+            delegate.update(book);
+            for (BookChangeListener listener : listeners) {
+                listener.onUpdated(book);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        ReentrantLock lock = locks.lockFor(id);
+        lock.lock();
+        try {
+            delegate.delete(id);
+            for (BookChangeListener listener : listeners) {
+                listener.onDeleted(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        ReentrantLock lock = locks.lockFor(id);
+        lock.lock();
+        try {
+            if (!delegate.compareAndSetAvailable(id, expected, available)) {
+                return false;
+            }
+            for (BookChangeListener listener : listeners) {
+                listener.onAvailabilityChanged(id, available);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countAvailable() {
+        return delegate.countAvailable();
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public void saveAll(Collection<Book> books) {
+        List<ReentrantLock> held = locks.lockAll(ids(books));
+        try {
+            // Giữ lợi ích ghi theo lô của repository bên trong
+            delegate.saveAll(books);
+            for (BookChangeListener listener : listeners) {
+                for (Book book : books) {
+                    listener.onSaved(book);
+                }
+            }
+        } finally {
+            StripedLocks.unlockAll(held);
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Book> books) {
+        List<ReentrantLock> held = locks.lockAll(ids(books));
+        try {
+            delegate.updateAll(books);
+            for (BookChangeListener listener : listeners) {
+                for (Book book : books) {
+                    listener.onUpdated(book);
+                }
+            }
+        } finally {
+            StripedLocks.unlockAll(held);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        List<ReentrantLock> held = locks.lockAll(ids);
+        try {
+            delegate.deleteAll(ids);
+            for (BookChangeListener listener : listeners) {
+                for (String id : ids) {
+                    listener.onDeleted(id);
+                }
+            }
+        } finally {
+            StripedLocks.unlockAll(held);
+        }
+    }
+
+    private static List<String> ids(Collection<Book> books) {
+        List<String> ids = new ArrayList<>(books.size());
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,162 @@
+package repository.impl;
+
+import model.Member;
+import repository.MemberChangeListener;
+import repository.MemberRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Decorator phát sự kiện thay đổi của MemberRepository tới các listener (vd: bộ thống kê)
+ * Đọc đi thẳng tới repository bên trong; chỉ các thao tác ghi thành công mới phát sự kiện.
+ * Sự kiện được phát trong cùng khóa stripe theo ID với thao tác ghi, nên listener nhận sự kiện của một ID
+ * đúng theo thứ tự ghi. Listener chạy khi đang giữ khóa: không được chậm hay ghi ngược vào repository này.
+ * Tuân thủ Open/Closed Principle - thêm hành vi mà không sửa các implementation có sẵn
+ */
+public class ObservableMemberRepository implements MemberRepository {
+    private final MemberRepository delegate;
+    private final List<MemberChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final StripedLocks locks = new StripedLocks();
+
+    public ObservableMemberRepository(MemberRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    public void addListener(MemberChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(MemberChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void save(Member member) {
+        ReentrantLock lock = locks.lockFor(member.getId());
+        lock.lock();
+        try {
+            delegate.save(member);
+            for (MemberChangeListener listener : listeners) {
+                listener.onSaved(member);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Member> findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Optional<Member> findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public List<Member> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Member> findByName(String name) {
+        return delegate.findByName(name);
+    }
+
+    @Override
+    public void update(Member member) {
+        ReentrantLock lock = locks.lockFor(member.getId());
+        lock.lock();
+        try {
+            delegate.update(member);
+            for (MemberChangeListener listener : listeners) {
+                listener.onUpdated(member);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        ReentrantLock lock = locks.lockFor(id);
+        lock.lock();
+        try {
+            delegate.delete(id);
+            for (MemberChangeListener listener : listeners) {
+                listener.onDeleted(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public void saveAll(Collection<Member> members) {
+        List<ReentrantLock> held = locks.lockAll(ids(members));
+        try {
+            delegate.saveAll(members);
+            for (MemberChangeListener listener : listeners) {
+                for (Member member : members) {
+                    listener.onSaved(member);
+                }
+            }
+        } finally {
+            StripedLocks.unlockAll(held);
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Member> members) {
+        List<ReentrantLock> held = locks.lockAll(ids(members));
+        try {
+            delegate.updateAll(members);
+            for (MemberChangeListener listener : listeners) {
+                for (Member member : members) {
+                    listener.onUpdated(member);
+                }
+            }
+        } finally {
+            StripedLocks.unlockAll(held);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        List<ReentrantLock> held = locks.lockAll(ids);
+        try {
+            delegate.deleteAll(ids);
+            for (MemberChangeListener listener : listeners) {
+                for (String id : ids) {
+                    listener.onDeleted(id);
+                }
+            }
+        } finally {
+            StripedLocks.unlockAll(held);
+        }
+    }
+
+    private static List<String> ids(Collection<Member> members) {
+        List<String> ids = new ArrayList<>(members.size());
+        for (Member member : members) {
+            ids.add(member.getId());
+        }
+        return ids;
+    }
+}
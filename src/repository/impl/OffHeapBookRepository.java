@@ -0,0 +1,820 @@
+package repository.impl;
+
+import model.Book;
+import repository.BookRepository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * BookRepository lưu dữ liệu ngoài heap theo cột, để hàng chục triệu cuốn sách không đè lên GC
+ * - Chuỗi ID/tiêu đề/ISBN được ghi UTF-8 nối tiếp vào các slab direct ByteBuffer
+ * - Mỗi cuốn sách là một dòng cố định 16 byte ngoài heap: [long địa chỉ trong slab][int mã tác giả][int hash ID]
+ * - Tác giả được mã hóa bằng từ điển (mỗi tên chỉ lưu một lần), trạng thái sẵn có là các bit trong AtomicLongArray
+ * - Chỉ mục ID là bảng băm địa chỉ mở trên int[], không có entry object nào
+ *
+ * Các truy vấn trả về Book "flyweight": một view nhỏ đọc thẳng từ dòng tương ứng, không sao chép dữ liệu.
+ * save() lưu bản sao của Book truyền vào; sửa view (setTitle, setAvailable, ...) thì ghi thẳng vào repository.
+ * Đổi ID của view, hoặc sửa view của sách đã xóa, thì view tách ra thành Book thường (không ném lỗi như Book gốc).
+ *
+ * Slab chỉ ghi thêm: đổi chuỗi hoặc xóa sách để lại vùng slab bỏ đi (xem getWastedBytes). Khi phần bỏ đi
+ * vượt một nửa slab (và ít nhất một chunk), compact() tự chạy: chép các bản ghi còn sống sang chunk mới,
+ * dựng lại từ điển tác giả rồi trả chunk cũ cho GC. Số thứ tự dòng giữ nguyên nên view của sách còn sống
+ * vẫn dùng được; view của sách đã xóa đọc được dữ liệu cuối cùng cho tới lần compact kế tiếp, sau đó đọc ra null.
+ * Giới hạn: dòng của sách đã xóa (16 byte + 1 bit) không được dùng lại, vì view cũ vẫn trỏ vào số thứ tự dòng;
+ * kho có nhiều lượt xóa/thêm liên tục vẫn tăng bảng dòng theo tổng số lần thêm.
+ * close() bỏ tham chiếu tới mọi vùng nhớ ngoài heap; sau đó mọi thao tác ném IllegalStateException.
+ */
+public class OffHeapBookRepository implements BookRepository, AutoCloseable {
+    private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int PAGE_SHIFT = 16;
+    private static final int ROWS_PER_PAGE = 1 << PAGE_SHIFT;
+    private static final int ROW_BYTES = 16;
+    private static final int MAX_STRING_BYTES = 0xFFFE;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int NO_AUTHOR = -1;
+    // Địa chỉ của dòng đã xóa mà bản ghi slab đã bị compact bỏ đi (vẫn âm như mọi dòng đã xóa)
+    private static final long DROPPED = Long.MIN_VALUE;
+    // Thứ tự các chuỗi trong một bản ghi slab
+    private static final int ID = 0;
+    private static final int TITLE = 1;
+    private static final int ISBN = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int chunkPosition = CHUNK_SIZE;
+    private final List<ByteBuffer> rowPages = new ArrayList<>();
+    private final List<AtomicLongArray> availabilityPages = new ArrayList<>();
+    private int rowCount;
+    private int liveCount;
+    private final LongAdder availableCount = new LongAdder();
+    // Số thứ tự dòng + 1, 0 là slot trống
+    private int[] index = new int[1024];
+    private final Map<String, Integer> authorCodes = new HashMap<>();
+    private final List<String> authors = new ArrayList<>();
+    private long wastedBytes;
+    private long compactionCount;
+    private boolean closed;
+
+    @Override
+    public void save(Book book) {
+        write(book, true);
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+        byte[] idBytes = encode(id);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int row = find(idBytes, id.hashCode());
+            return row < 0 ? Optional.empty() : Optional.of(new BookView(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> findAll() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Book> result = new ArrayList<>(liveCount);
+            for (int row = 0; row < rowCount; row++) {
+                if (address(row) >= 0) {
+                    result.add(new BookView(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        int rows;
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            rows = rowCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Weakly consistent: sách thêm vào sau khi bắt đầu duyệt không xuất hiện
+        return IntStream.range(0, rows).filter(this::isLive).mapToObj(BookView::new);
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        if (author == null) {
+            return new ArrayList<>();
+        }
+        String folded = AuthorIndex.fold(author);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            // Từ điển nhỏ: tìm mọi cách viết của tác giả rồi chỉ so mã int trên cột tác giả
+            BitSet codes = new BitSet();
+            for (int code = 0; code < authors.size(); code++) {
+                if (AuthorIndex.fold(authors.get(code)).equals(folded)) {
+                    codes.set(code);
+                }
+            }
+            List<Book> result = new ArrayList<>();
+            if (codes.isEmpty()) {
+                return result;
+            }
+            for (int row = 0; row < rowCount; row++) {
+                int code = authorCode(row);
+                if (code != NO_AUTHOR && codes.get(code) && address(row) >= 0) {
+                    result.add(new BookView(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Book> findAvailableBooks() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            // Sách đã xóa luôn có bit bằng 0 nên chỉ cần duyệt các bit đang bật
+            List<Book> result = new ArrayList<>();
+            for (int page = 0; page < availabilityPages.size(); page++) {
+                AtomicLongArray bits = availabilityPages.get(page);
+                for (int word = 0; word < bits.length(); word++) {
+                    long value = bits.get(word);
+                    while (value != 0) {
+                        int row = (page << PAGE_SHIFT) + (word << 6) + Long.numberOfTrailingZeros(value);
+                        result.add(new BookView(row));
+                        value &= value - 1;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(Book book) {
+        write(book, false);
+    }
+
+    @Override
+    public void delete(String id) {
+        byte[] idBytes = encode(id);
+        int hash = id.hashCode();
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int slot = slotOf(idBytes, hash);
+            if (slot < 0) {
+                return;
+            }
+            int row = index[slot] - 1;
+            removeSlot(slot);
+            long address = address(row);
+            wastedBytes += recordSize(address);
+            // Giữ lại địa chỉ (dạng bù) để view cũ vẫn đọc được dữ liệu cuối cùng
+            rowPage(row).putLong(rowOffset(row), ~address);
+            setAvailable(row, false);
+            liveCount--;
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        byte[] idBytes = encode(id);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int row = find(idBytes, id.hashCode());
+            return row >= 0 && compareAndSetBit(row, expected, available);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countAvailable() {
+        return availableCount.sum();
+    }
+
+    // Dung lượng ngoài heap đã cấp phát (slab + các trang dòng)
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * CHUNK_SIZE + (long) rowPages.size() * ROWS_PER_PAGE * ROW_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Chép các bản ghi slab còn sống sang chunk mới và dựng lại từ điển tác giả, trả phần slab bỏ đi cho GC.
+     * Cần thêm tối đa dung lượng của phần còn sống trong lúc chép; ghi và đọc bị chặn cho tới khi xong.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            compactSlab();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bỏ tham chiếu tới slab, các trang dòng và chỉ mục để GC giải phóng vùng nhớ ngoài heap
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            chunks.clear();
+            rowPages.clear();
+            availabilityPages.clear();
+            index = new int[0];
+            authors.clear();
+            authorCodes.clear();
+            rowCount = 0;
+            liveCount = 0;
+            wastedBytes = 0;
+            availableCount.reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Số byte slab thuộc về chuỗi đã bị thay thế hoặc sách đã xóa (chưa được compact)
+    public long getWastedBytes() {
+        lock.readLock().lock();
+        try {
+            return wastedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getCompactionCount() {
+        lock.readLock().lock();
+        try {
+            return compactionCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getAuthorCount() {
+        lock.readLock().lock();
+        try {
+            return authors.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Book book, boolean insert) {
+        // Đọc dữ liệu trước khi khóa: book có thể chính là view của repository này
+        String id = book.getId();
+        byte[] idBytes = encode(id);
+        byte[] titleBytes = encode(book.getTitle());
+        byte[] isbnBytes = encode(book.getIsbn());
+        String author = book.getAuthor();
+        boolean available = book.isAvailable();
+        int hash = id.hashCode();
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int row = find(idBytes, hash);
+            if (row < 0) {
+                if (!insert) {
+                    return;
+                }
+                row = addRow(hash);
+            } else {
+                wastedBytes += recordSize(address(row));
+            }
+            ByteBuffer page = rowPage(row);
+            page.putLong(rowOffset(row), append(idBytes, titleBytes, isbnBytes));
+            page.putInt(rowOffset(row) + 8, codeFor(author));
+            setAvailable(row, available);
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int addRow(int hash) {
+        int row = rowCount++;
+        if ((row & (ROWS_PER_PAGE - 1)) == 0) {
+            rowPages.add(ByteBuffer.allocateDirect(ROWS_PER_PAGE * ROW_BYTES));
+            availabilityPages.add(new AtomicLongArray(ROWS_PER_PAGE / 64));
+        }
+        rowPage(row).putInt(rowOffset(row) + 12, hash);
+        liveCount++;
+        // Hệ số tải tối đa 2/3
+        if (liveCount * 3L > index.length * 2L) {
+            resize();
+        }
+        int mask = index.length - 1;
+        int slot = mix(hash) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+        return row;
+    }
+
+    private void resize() {
+        int[] old = index;
+        index = new int[old.length * 2];
+        int mask = index.length - 1;
+        for (int value : old) {
+            if (value != 0) {
+                int slot = mix(idHash(value - 1)) & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = value;
+            }
+        }
+    }
+
+    /**
+     * Xóa slot bằng cách dời lùi các phần tử phía sau (không dùng tombstone nên chuỗi dò không dài ra)
+     */
+    private void removeSlot(int hole) {
+        int mask = index.length - 1;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int value = index[slot];
+            if (value == 0) {
+                break;
+            }
+            int ideal = mix(idHash(value - 1)) & mask;
+            if (((slot - ideal) & mask) >= ((slot - hole) & mask)) {
+                index[hole] = value;
+                hole = slot;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private int find(byte[] idBytes, int hash) {
+        int slot = slotOf(idBytes, hash);
+        return slot < 0 ? -1 : index[slot] - 1;
+    }
+
+    private int slotOf(byte[] idBytes, int hash) {
+        int mask = index.length - 1;
+        int slot = mix(hash) & mask;
+        while (true) {
+            int value = index[slot];
+            if (value == 0) {
+                return -1;
+            }
+            int row = value - 1;
+            if (idHash(row) == hash && idEquals(address(row), idBytes)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int codeFor(String author) {
+        if (author == null) {
+            return NO_AUTHOR;
+        }
+        Integer code = authorCodes.get(author);
+        if (code == null) {
+            code = authors.size();
+            authors.add(author);
+            authorCodes.put(author, code);
+        }
+        return code;
+    }
+
+    // Ghi [u16 độ dài][byte] cho từng chuỗi vào slab; địa chỉ = (số chunk << 32) | vị trí
+    private long append(byte[]... values) {
+        int size = 0;
+        for (byte[] value : values) {
+            size += 2 + (value == null ? 0 : value.length);
+        }
+        long address = reserve(size);
+        ByteBuffer chunk = chunks.get(chunks.size() - 1);
+        for (byte[] value : values) {
+            if (value == null) {
+                chunk.putShort(chunkPosition, (short) NULL_LENGTH);
+                chunkPosition += 2;
+            } else {
+                chunk.putShort(chunkPosition, (short) value.length);
+                chunk.put(chunkPosition + 2, value);
+                chunkPosition += 2 + value.length;
+            }
+        }
+        return address;
+    }
+
+    // Địa chỉ của vùng size byte ở cuối slab, cấp chunk mới nếu chunk hiện tại không đủ chỗ
+    private long reserve(int size) {
+        if (chunkPosition + size > CHUNK_SIZE) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+            chunkPosition = 0;
+        }
+        return ((long) (chunks.size() - 1) << 32) | chunkPosition;
+    }
+
+    // Compact khi phần bỏ đi chiếm quá nửa slab, nên tổng chi phí chép được chia đều cho các lần ghi đã tạo ra nó
+    private void compactIfWasteful() {
+        if (wastedBytes >= CHUNK_SIZE && wastedBytes * 2 > (long) chunks.size() * CHUNK_SIZE) {
+            compactSlab();
+        }
+    }
+
+    private void compactSlab() {
+        List<ByteBuffer> oldChunks = new ArrayList<>(chunks);
+        List<String> oldAuthors = new ArrayList<>(authors);
+        chunks.clear();
+        chunkPosition = CHUNK_SIZE;
+        authors.clear();
+        authorCodes.clear();
+        for (int row = 0; row < rowCount; row++) {
+            ByteBuffer page = rowPage(row);
+            int offset = rowOffset(row);
+            long address = page.getLong(offset);
+            if (address < 0) {
+                page.putLong(offset, DROPPED);
+                page.putInt(offset + 8, NO_AUTHOR);
+                continue;
+            }
+            ByteBuffer source = oldChunks.get((int) (address >>> 32));
+            int size = recordSize(source, (int) address);
+            long target = reserve(size);
+            chunks.get(chunks.size() - 1).put(chunkPosition, source, (int) address, size);
+            chunkPosition += size;
+            page.putLong(offset, target);
+            int code = page.getInt(offset + 8);
+            page.putInt(offset + 8, code == NO_AUTHOR ? NO_AUTHOR : codeFor(oldAuthors.get(code)));
+        }
+        wastedBytes = 0;
+        compactionCount++;
+    }
+
+    private int recordSize(long address) {
+        return recordSize(chunks.get((int) (address >>> 32)), (int) address);
+    }
+
+    private static int recordSize(ByteBuffer chunk, int start) {
+        int position = start;
+        for (int field = ID; field <= ISBN; field++) {
+            int length = chunk.getShort(position) & 0xFFFF;
+            position += 2 + (length == NULL_LENGTH ? 0 : length);
+        }
+        return position - start;
+    }
+
+    private String readString(long address, int field) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address;
+        for (int f = 0; f < field; f++) {
+            int length = chunk.getShort(position) & 0xFFFF;
+            position += 2 + (length == NULL_LENGTH ? 0 : length);
+        }
+        int length = chunk.getShort(position) & 0xFFFF;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean idEquals(long address, byte[] idBytes) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address;
+        if ((chunk.getShort(position) & 0xFFFF) != idBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < idBytes.length; i++) {
+            if (chunk.get(position + 2 + i) != idBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isLive(int row) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return address(row) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Địa chỉ slab của dòng; âm (dạng bù) nếu sách đã bị xóa
+    private long address(int row) {
+        return rowPage(row).getLong(rowOffset(row));
+    }
+
+    private int authorCode(int row) {
+        return rowPage(row).getInt(rowOffset(row) + 8);
+    }
+
+    private int idHash(int row) {
+        return rowPage(row).getInt(rowOffset(row) + 12);
+    }
+
+    private ByteBuffer rowPage(int row) {
+        return rowPages.get(row >>> PAGE_SHIFT);
+    }
+
+    private static int rowOffset(int row) {
+        return (row & (ROWS_PER_PAGE - 1)) * ROW_BYTES;
+    }
+
+    private void setAvailable(int row, boolean available) {
+        while (!compareAndSetBit(row, !available, available)) {
+            if (isAvailableBit(row) == available) {
+                return;
+            }
+        }
+    }
+
+    private boolean compareAndSetBit(int row, boolean expected, boolean available) {
+        AtomicLongArray bits = availabilityPages.get(row >>> PAGE_SHIFT);
+        int word = (row & (ROWS_PER_PAGE - 1)) >>> 6;
+        long bit = 1L << (row & 63);
+        while (true) {
+            long current = bits.get(word);
+            if (((current & bit) != 0) != expected) {
+                return false;
+            }
+            if (expected == available) {
+                return true;
+            }
+            if (bits.compareAndSet(word, current, available ? current | bit : current & ~bit)) {
+                if (available) {
+                    availableCount.increment();
+                } else {
+                    availableCount.decrement();
+                }
+                return true;
+            }
+        }
+    }
+
+    private boolean isAvailableBit(int row) {
+        AtomicLongArray bits = availabilityPages.get(row >>> PAGE_SHIFT);
+        return (bits.get((row & (ROWS_PER_PAGE - 1)) >>> 6) & (1L << (row & 63))) != 0;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Book repository is closed");
+        }
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Book field is too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * View flyweight của một dòng: mọi getter đọc thẳng từ vùng nhớ ngoài heap.
+     * Đổi ID, hoặc sửa view của sách đã bị xóa, thì view tách khỏi repository (detach) và từ đó cư xử
+     * như một Book thường, giống hợp đồng của Book; muốn lưu lại thì gọi save()/update().
+     */
+    private final class BookView extends Book {
+        private final int row;
+        private volatile boolean detached;
+
+        BookView(int row) {
+            super(null, null, null, null);
+            this.row = row;
+        }
+
+        @Override
+        public String getId() {
+            return detached ? super.getId() : read(ID);
+        }
+
+        @Override
+        public void setId(String id) {
+            // ID là khóa của dòng nên không đổi tại chỗ được
+            detach();
+            super.setId(id);
+        }
+
+        @Override
+        public String getTitle() {
+            return detached ? super.getTitle() : read(TITLE);
+        }
+
+        @Override
+        public void setTitle(String title) {
+            if (detached || !rewrite(title, getAuthor(), getIsbn())) {
+                detach();
+                super.setTitle(title);
+            }
+        }
+
+        @Override
+        public String getAuthor() {
+            if (detached) {
+                return super.getAuthor();
+            }
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                int code = authorCode(row);
+                return code == NO_AUTHOR ? null : authors.get(code);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void setAuthor(String author) {
+            if (detached || !rewrite(getTitle(), author, getIsbn())) {
+                detach();
+                super.setAuthor(author);
+            }
+        }
+
+        @Override
+        public String getIsbn() {
+            return detached ? super.getIsbn() : read(ISBN);
+        }
+
+        @Override
+        public void setIsbn(String isbn) {
+            if (detached || !rewrite(getTitle(), getAuthor(), isbn)) {
+                detach();
+                super.setIsbn(isbn);
+            }
+        }
+
+        @Override
+        public boolean isAvailable() {
+            if (detached) {
+                return super.isAvailable();
+            }
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                return isAvailableBit(row);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void setAvailable(boolean available) {
+            if (!detached) {
+                lock.readLock().lock();
+                try {
+                    ensureOpen();
+                    if (address(row) >= 0) {
+                        OffHeapBookRepository.this.setAvailable(row, available);
+                        return;
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+            detach();
+            super.setAvailable(available);
+        }
+
+        @Override
+        public boolean compareAndSetAvailable(boolean expected, boolean available) {
+            if (!detached) {
+                lock.readLock().lock();
+                try {
+                    ensureOpen();
+                    if (address(row) >= 0) {
+                        return compareAndSetBit(row, expected, available);
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+            detach();
+            return super.compareAndSetAvailable(expected, available);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Book{id='%s', title='%s', author='%s', isbn='%s', available=%s}",
+                               getId(), getTitle(), getAuthor(), getIsbn(), isAvailable());
+        }
+
+        private String read(int field) {
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                long address = address(row);
+                if (address == DROPPED) {
+                    return null;
+                }
+                return readString(address >= 0 ? address : ~address, field);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Chép giá trị hiện tại vào các trường của Book rồi ngừng đọc từ repository
+         */
+        private synchronized void detach() {
+            if (detached) {
+                return;
+            }
+            String id = getId();
+            String title = getTitle();
+            String author = getAuthor();
+            String isbn = getIsbn();
+            boolean available = isAvailable();
+            super.setId(id);
+            super.setTitle(title);
+            super.setAuthor(author);
+            super.setIsbn(isbn);
+            super.setAvailable(available);
+            detached = true;
+        }
+
+        // Ghi lại cả bản ghi slab của dòng này; false nếu sách đã bị xóa
+        private boolean rewrite(String title, String author, String isbn) {
+            byte[] titleBytes = encode(title);
+            byte[] isbnBytes = encode(isbn);
+            lock.writeLock().lock();
+            try {
+                ensureOpen();
+                long address = address(row);
+                if (address < 0) {
+                    return false;
+                }
+                byte[] idBytes = encode(readString(address, ID));
+                wastedBytes += recordSize(address);
+                ByteBuffer page = rowPage(row);
+                page.putLong(rowOffset(row), append(idBytes, titleBytes, isbnBytes));
+                page.putInt(rowOffset(row) + 8, codeFor(author));
+                compactIfWasteful();
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
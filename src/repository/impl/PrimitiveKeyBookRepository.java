@@ -0,0 +1,179 @@
+package repository.impl;
+
+import model.Book;
+import repository.BookRepository;
+import util.IdCodec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BookRepository dùng khóa long nguyên thủy: ID được mã hóa bằng IdCodec và lưu trong LongKeyMap
+ * findById không tạo entry object, không boxing và không so sánh chuỗi; findByKey bỏ qua cả bước mã hóa
+ * cho caller đã giữ sẵn khóa số. ID không mã hóa được vẫn được hỗ trợ qua một ConcurrentHashMap phụ.
+ *
+ * Ghi tuần tự qua một StampedLock; đọc dùng optimistic read nên không ghi vào bộ nhớ dùng chung.
+ */
+public class PrimitiveKeyBookRepository implements BookRepository {
+    private final LongKeyMap<Book> books = new LongKeyMap<>();
+    // ID dài hơn IdCodec.MAX_LENGTH hoặc có ký tự ngoài ASCII
+    private final Map<String, Book> fallback = new ConcurrentHashMap<>();
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+    private final StampedLock lock = new StampedLock();
+
+    @Override
+    public void save(Book book) {
+        long key = IdCodec.encode(book.getId());
+        long stamp = lock.writeLock();
+        try {
+            if (key == IdCodec.NOT_ENCODABLE) {
+                fallback.put(book.getId(), book);
+            } else {
+                books.put(key, book);
+            }
+            authorIndex.index(book);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        availabilityIndex.refresh(book.getId(), this::lookup);
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+        return Optional.ofNullable(lookup(id));
+    }
+
+    /**
+     * Tra cứu theo khóa đã mã hóa bằng IdCodec.encode
+     */
+    public Optional<Book> findByKey(long key) {
+        return Optional.ofNullable(get(key));
+    }
+
+    @Override
+    public List<Book> findAll() {
+        long stamp = lock.readLock();
+        try {
+            List<Book> result = books.values();
+            result.addAll(fallback.values());
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        // Bảng địa chỉ mở không duyệt được khi đang ghi song song nên stream chạy trên bản chụp
+        return findAll().stream();
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return authorIndex.idsFor(author).stream()
+                .map(this::lookup)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Book> findAvailableBooks() {
+        return availabilityIndex.books();
+    }
+
+    @Override
+    public void update(Book book) {
+        long key = IdCodec.encode(book.getId());
+        long stamp = lock.writeLock();
+        try {
+            if (key == IdCodec.NOT_ENCODABLE) {
+                if (fallback.replace(book.getId(), book) == null) {
+                    return;
+                }
+            } else if (books.get(key) == null) {
+                return;
+            } else {
+                books.put(key, book);
+            }
+            authorIndex.index(book);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        availabilityIndex.refresh(book.getId(), this::lookup);
+    }
+
+    @Override
+    public void delete(String id) {
+        long key = IdCodec.encode(id);
+        long stamp = lock.writeLock();
+        try {
+            if (key == IdCodec.NOT_ENCODABLE) {
+                fallback.remove(id);
+            } else {
+                books.remove(key);
+            }
+            authorIndex.remove(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        availabilityIndex.refresh(id, this::lookup);
+    }
+
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        // Không cần khóa ghi: CAS trên chính Book là đủ
+        Book book = lookup(id);
+        if (book == null || !book.compareAndSetAvailable(expected, available)) {
+            return false;
+        }
+        availabilityIndex.refresh(id, this::lookup);
+        return true;
+    }
+
+    @Override
+    public long count() {
+        long stamp = lock.tryOptimisticRead();
+        int size = books.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = books.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size + fallback.size();
+    }
+
+    @Override
+    public long countAvailable() {
+        return availabilityIndex.count();
+    }
+
+    private Book lookup(String id) {
+        long key = IdCodec.encode(id);
+        return key == IdCodec.NOT_ENCODABLE ? fallback.get(id) : get(key);
+    }
+
+    private Book get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        Book book = books.get(key);
+        if (!lock.validate(stamp)) {
+            // Có ghi chen vào giữa: đọc lại dưới khóa đọc
+            stamp = lock.readLock();
+            try {
+                book = books.get(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return book;
+    }
+}
@@ -0,0 +1,161 @@
+package repository.impl;
+
+import model.Member;
+import repository.MemberRepository;
+import util.IdCodec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * MemberRepository dùng khóa long nguyên thủy (IdCodec + LongKeyMap), cùng cơ chế với PrimitiveKeyBookRepository
+ */
+public class PrimitiveKeyMemberRepository implements MemberRepository {
+    private final LongKeyMap<Member> members = new LongKeyMap<>();
+    // ID dài hơn IdCodec.MAX_LENGTH hoặc có ký tự ngoài ASCII
+    private final Map<String, Member> fallback = new ConcurrentHashMap<>();
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final NameIndex nameIndex = new NameIndex();
+    private final StampedLock lock = new StampedLock();
+
+    @Override
+    public void save(Member member) {
+        long key = IdCodec.encode(member.getId());
+        long stamp = lock.writeLock();
+        try {
+            // Email đã thuộc về thành viên khác thì ném lỗi trước khi lưu gì cả
+            emailIndex.index(member.getId(), member.getEmail());
+            nameIndex.index(member.getId(), member.getName());
+            if (key == IdCodec.NOT_ENCODABLE) {
+                fallback.put(member.getId(), member);
+            } else {
+                members.put(key, member);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Optional<Member> findById(String id) {
+        return Optional.ofNullable(lookup(id));
+    }
+
+    /**
+     * Tra cứu theo khóa đã mã hóa bằng IdCodec.encode
+     */
+    public Optional<Member> findByKey(long key) {
+        return Optional.ofNullable(get(key));
+    }
+
+    @Override
+    public Optional<Member> findByEmail(String email) {
+        return emailIndex.idFor(email).map(this::lookup);
+    }
+
+    @Override
+    public List<Member> findAll() {
+        long stamp = lock.readLock();
+        try {
+            List<Member> result = members.values();
+            result.addAll(fallback.values());
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public long count() {
+        long stamp = lock.tryOptimisticRead();
+        int size = members.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = members.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size + fallback.size();
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        // Bảng địa chỉ mở không duyệt được khi đang ghi song song nên stream chạy trên bản chụp
+        return findAll().stream();
+    }
+
+    @Override
+    public List<Member> findByName(String name) {
+        return nameIndex.search(name).stream()
+                .map(this::lookup)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void update(Member member) {
+        long key = IdCodec.encode(member.getId());
+        long stamp = lock.writeLock();
+        try {
+            boolean present = key == IdCodec.NOT_ENCODABLE
+                    ? fallback.containsKey(member.getId()) : members.get(key) != null;
+            if (!present) {
+                return;
+            }
+            emailIndex.index(member.getId(), member.getEmail());
+            nameIndex.index(member.getId(), member.getName());
+            if (key == IdCodec.NOT_ENCODABLE) {
+                fallback.put(member.getId(), member);
+            } else {
+                members.put(key, member);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        long key = IdCodec.encode(id);
+        long stamp = lock.writeLock();
+        try {
+            if (key == IdCodec.NOT_ENCODABLE) {
+                fallback.remove(id);
+            } else {
+                members.remove(key);
+            }
+            emailIndex.remove(id);
+            nameIndex.remove(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Member lookup(String id) {
+        long key = IdCodec.encode(id);
+        return key == IdCodec.NOT_ENCODABLE ? fallback.get(id) : get(key);
+    }
+
+    private Member get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        Member member = members.get(key);
+        if (!lock.validate(stamp)) {
+            // Có ghi chen vào giữa: đọc lại dưới khóa đọc
+            stamp = lock.readLock();
+            try {
+                member = members.get(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return member;
+    }
+}
@@ -0,0 +1,73 @@
+package repository.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tập khóa chia stripe theo ID dùng chung cho các decorator repository
+ * Các thao tác trên cùng một ID luôn lấy cùng một khóa; các ID khác stripe chạy song song.
+ */
+class StripedLocks {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final ReentrantLock[] locks;
+
+    StripedLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of lock stripes must be positive");
+        }
+        // Làm tròn lên lũy thừa của 2 để chọn stripe bằng phép AND
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[Math.max(size, 1)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    ReentrantLock lockFor(String id) {
+        return locks[indexFor(id)];
+    }
+
+    /**
+     * Khóa các stripe của nhiều ID theo thứ tự chỉ số tăng dần (tránh deadlock giữa hai lô) và trả về
+     * các khóa đã giữ để truyền cho unlockAll
+     */
+    List<ReentrantLock> lockAll(Collection<String> ids) {
+        boolean[] wanted = new boolean[locks.length];
+        for (String id : ids) {
+            wanted[indexFor(id)] = true;
+        }
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < wanted.length; i++) {
+                if (wanted[i]) {
+                    locks[i].lock();
+                    held.add(locks[i]);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            unlockAll(held);
+            throw e;
+        }
+        return held;
+    }
+
+    static void unlockAll(List<ReentrantLock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    private int indexFor(String id) {
+        int h = id.hashCode();
+        // Trộn các bit cao xuống để phân bố đều trên các stripe
+        h ^= (h >>> 16);
+        return h & (locks.length - 1);
+    }
+}
@@ -0,0 +1,149 @@
+package repository.jdbc;
+
+import repository.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool kết nối JDBC đơn giản, không phụ thuộc thư viện ngoài
+ * Kết nối được tạo lười tới tối đa maxSize và tái sử dụng cùng với các PreparedStatement đã cache của nó.
+ * Kết nối rảnh được kiểm tra bằng isValid() trước khi cho mượn; kết nối hỏng bị đóng và thay bằng kết nối mới.
+ * close() đóng kết nối rảnh ngay, rồi chờ (tối đa CLOSE_TIMEOUT) các kết nối đang được mượn trả về mới đóng chúng.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 30_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final BlockingQueue<PooledConnection> idle = new LinkedBlockingQueue<>();
+    private final List<PooledConnection> all = new ArrayList<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+    }
+
+    public PooledConnection acquire() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ACQUIRE_TIMEOUT_MILLIS);
+        while (true) {
+            if (closed) {
+                throw new DataAccessException("Connection pool is closed");
+            }
+            PooledConnection connection = idle.poll();
+            if (connection == null) {
+                if (created.incrementAndGet() <= maxSize) {
+                    return open();
+                }
+                created.decrementAndGet();
+                try {
+                    connection = idle.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DataAccessException("Interrupted while waiting for a database connection", e);
+                }
+                if (connection == null) {
+                    throw new DataAccessException("Timed out waiting for a database connection");
+                }
+            }
+            if (isValid(connection)) {
+                return connection;
+            }
+            // Kết nối rảnh đã hỏng (database khởi động lại, timeout phía server...): bỏ đi và thử lại
+            discard(connection);
+        }
+    }
+
+    void release(PooledConnection connection) {
+        if (closed) {
+            discard(connection);
+            return;
+        }
+        idle.offer(connection);
+        // close() có thể đã chạy giữa lúc kiểm tra closed và offer: tự dọn để không sót kết nối
+        if (closed && idle.remove(connection)) {
+            discard(connection);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+        synchronized (all) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+            while (!all.isEmpty()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    all.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            // Hết thời gian chờ: đóng cưỡng bức các kết nối chưa được trả
+            for (PooledConnection leaked : all) {
+                leaked.closePhysically();
+            }
+            all.clear();
+        }
+    }
+
+    private static boolean isValid(PooledConnection connection) {
+        try {
+            return connection.connection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection connection) {
+        connection.closePhysically();
+        synchronized (all) {
+            if (all.remove(connection)) {
+                created.decrementAndGet();
+                all.notifyAll();
+            }
+        }
+    }
+
+    private PooledConnection open() {
+        try {
+            Connection connection = user == null
+                    ? DriverManager.getConnection(url)
+                    : DriverManager.getConnection(url, user, password);
+            PooledConnection pooled = new PooledConnection(this, connection);
+            synchronized (all) {
+                all.add(pooled);
+            }
+            return pooled;
+        } catch (SQLException e) {
+            created.decrementAndGet();
+            throw new DataAccessException("Cannot open connection to " + url, e);
+        }
+    }
+}
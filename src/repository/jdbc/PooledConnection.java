@@ -0,0 +1,48 @@
+package repository.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Một kết nối thuộc ConnectionPool kèm cache PreparedStatement theo câu SQL
+ * Chỉ một luồng dùng kết nối tại một thời điểm; close() trả kết nối về pool thay vì đóng thật.
+ */
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    void closePhysically() {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Đang đóng pool, không còn gì để xử lý
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package repository.wal;
+
+import model.Book;
+import repository.BookRepository;
+import repository.impl.ConcurrentBookRepository;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * BookRepository bền vững: dữ liệu vẫn nằm trong hash map của repository bộ nhớ (đọc không đổi),
+ * mọi thao tác ghi được ghi thêm vào write-ahead log và chỉ trả về khi đã fsync (group commit).
+ * Snapshot định kỳ giúp khởi động nhanh: nạp snapshot rồi chỉ phát lại phần đuôi WAL sau nó.
+ *
+ * Thay đổi được ghi log trước rồi mới áp dụng vào bộ nhớ, trong cùng khóa theo ID, nên thứ tự trong log
+ * khớp thứ tự áp dụng cho từng cuốn sách, và reader hay snapshot không bao giờ thấy thao tác chưa có trong log
+ * (ghi log thất bại thì bộ nhớ không đổi). Snapshot chờ mọi thao tác đã ghi log được áp dụng xong rồi mới rotate.
+ * Các bản ghi đều là giá trị tuyệt đối (ghi đè cả cuốn sách, đặt trạng thái sẵn có) nên phát lại nhiều lần
+ * vẫn cho cùng kết quả, kể cả khi snapshot được chụp trong lúc vẫn có ghi song song.
+ */
+public class JournaledBookRepository implements BookRepository, AutoCloseable {
+    private static final String SNAPSHOT_FILE = "books.snapshot";
+    private static final String WAL_DIRECTORY = "books-wal";
+    private static final int STRIPES = 64;
+
+    private static final byte SAVE = 1;
+    private static final byte UPDATE = 2;
+    private static final byte DELETE = 3;
+    private static final byte SET_AVAILABLE = 4;
+
+    private final BookRepository store;
+    private final WriteAheadLog wal;
+    private final Path snapshotFile;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final Object snapshotLock = new Object();
+    // Luồng ghi giữ read lock từ lúc ghi log tới khi áp dụng xong; snapshot lấy write lock để rotate
+    private final ReadWriteLock applyGate = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService snapshotter;
+    private final long recoveredRecords;
+
+    public JournaledBookRepository(Path directory) {
+        this(directory, new ConcurrentBookRepository(), 0);
+    }
+
+    /**
+     * store: repository bộ nhớ giữ dữ liệu (phải rỗng);
+     * snapshotIntervalMillis: chu kỳ chụp snapshot nền, 0 để tắt (gọi snapshot() thủ công)
+     */
+    public JournaledBookRepository(Path directory, BookRepository store, long snapshotIntervalMillis) {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.store = store;
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.wal = new WriteAheadLog(directory.resolve(WAL_DIRECTORY));
+
+        // Khôi phục: nạp snapshot rồi phát lại các bản ghi WAL sau nó
+        long snapshotSequence = SnapshotFile.read(snapshotFile, RecordCodec::readBook, store::save);
+        long[] replayed = {0};
+        wal.replay(snapshotSequence, (sequence, payload) -> {
+            apply(payload);
+            replayed[0]++;
+        });
+        this.recoveredRecords = replayed[0];
+
+        if (snapshotIntervalMillis > 0) {
+            this.snapshotter = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "book-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMillis, snapshotIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.snapshotter = null;
+        }
+    }
+
+    @Override
+    public void save(Book book) {
+        wal.sync(saveLocked(book));
+    }
+
+    @Override
+    public Optional<Book> findById(String id) {
+        return store.findById(id);
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        return store.findExistingIds(ids);
+    }
+
+    @Override
+    public List<Book> findAll() {
+        return store.findAll();
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author) {
+        return store.findByAuthor(author);
+    }
+
+    @Override
+    public List<Book> findAvailableBooks() {
+        return store.findAvailableBooks();
+    }
+
+    @Override
+    public void update(Book book) {
+        long sequence = updateLocked(book);
+        if (sequence > 0) {
+            wal.sync(sequence);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        wal.sync(deleteLocked(id));
+    }
+
+    @Override
+    public boolean compareAndSetAvailable(String id, boolean expected, boolean available) {
+        ReentrantLock lock = lockFor(id);
+        long sequence;
+        lock.lock();
+        try {
+            Optional<Book> current = store.findById(id);
+            if (current.isEmpty() || current.get().isAvailable() != expected) {
+                return false;
+            }
+            if (expected == available) {
+                return true;
+            }
+            ByteBuffer record = ByteBuffer.allocate(1 + 1 + RecordCodec.sizeOf(id));
+            record.put(SET_AVAILABLE).put((byte) (available ? 1 : 0));
+            RecordCodec.writeString(record, id);
+            sequence = appendAndApply(record.flip(), () -> store.compareAndSetAvailable(id, expected, available));
+        } finally {
+            lock.unlock();
+        }
+        wal.sync(sequence);
+        return true;
+    }
+
+    @Override
+    public long count() {
+        return store.count();
+    }
+
+    @Override
+    public long countAvailable() {
+        return store.countAvailable();
+    }
+
+    @Override
+    public Stream<Book> streamAll() {
+        return store.streamAll();
+    }
+
+    // Thao tác hàng loạt: ghi log từng cuốn nhưng chỉ fsync một lần cho cả lô
+    @Override
+    public void saveAll(Collection<Book> books) {
+        long last = 0;
+        for (Book book : books) {
+            last = saveLocked(book);
+        }
+        wal.sync(last);
+    }
+
+    @Override
+    public void updateAll(Collection<Book> books) {
+        long last = 0;
+        for (Book book : books) {
+            last = Math.max(last, updateLocked(book));
+        }
+        wal.sync(last);
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        long last = 0;
+        for (String id : ids) {
+            last = deleteLocked(id);
+        }
+        wal.sync(last);
+    }
+
+    /**
+     * Chụp snapshot toàn bộ sách rồi xóa các segment WAL đã nằm trong snapshot
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            // Chặn ghi trong lúc rotate: mọi bản ghi <= sequence đều đã được áp dụng vào bộ nhớ
+            long sequence;
+            applyGate.writeLock().lock();
+            try {
+                sequence = wal.rotate();
+            } finally {
+                applyGate.writeLock().unlock();
+            }
+            try (Stream<Book> books = store.streamAll()) {
+                SnapshotFile.write(snapshotFile, sequence, books.iterator(),
+                        RecordCodec::bookSize, RecordCodec::writeBook);
+            }
+            wal.truncateUpTo(sequence);
+        }
+    }
+
+    /**
+     * Số bản ghi WAL đã phát lại khi khởi động
+     */
+    public long getRecoveredRecordCount() {
+        return recoveredRecords;
+    }
+
+    @Override
+    public void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        wal.close();
+    }
+
+    private long saveLocked(Book book) {
+        ReentrantLock lock = lockFor(book.getId());
+        lock.lock();
+        try {
+            return appendAndApply(encode(SAVE, book), () -> store.save(book));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long updateLocked(Book book) {
+        ReentrantLock lock = lockFor(book.getId());
+        lock.lock();
+        try {
+            // Không tồn tại thì update không có tác dụng, không cần ghi log
+            if (store.findById(book.getId()).isEmpty()) {
+                return 0;
+            }
+            return appendAndApply(encode(UPDATE, book), () -> store.update(book));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long deleteLocked(String id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            ByteBuffer record = ByteBuffer.allocate(1 + RecordCodec.sizeOf(id));
+            record.put(DELETE);
+            RecordCodec.writeString(record, id);
+            return appendAndApply(record.flip(), () -> store.delete(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ghi log rồi mới áp dụng vào bộ nhớ (đang giữ khóa của ID); ghi log thất bại thì bộ nhớ không đổi
+     */
+    private long appendAndApply(ByteBuffer record, Runnable change) {
+        applyGate.readLock().lock();
+        try {
+            long sequence = wal.append(record);
+            change.run();
+            return sequence;
+        } finally {
+            applyGate.readLock().unlock();
+        }
+    }
+
+    private void apply(ByteBuffer record) {
+        byte operation = record.get();
+        switch (operation) {
+            case SAVE:
+                store.save(RecordCodec.readBook(record));
+                break;
+            case UPDATE:
+                store.update(RecordCodec.readBook(record));
+                break;
+            case DELETE:
+                store.delete(RecordCodec.readString(record));
+                break;
+            case SET_AVAILABLE:
+                boolean available = record.get() == 1;
+                store.compareAndSetAvailable(RecordCodec.readString(record), !available, available);
+                break;
+            default:
+                throw new IllegalStateException("Unknown WAL operation: " + operation);
+        }
+    }
+
+    private static ByteBuffer encode(byte operation, Book book) {
+        ByteBuffer record = ByteBuffer.allocate(1 + RecordCodec.bookSize(book));
+        record.put(operation);
+        RecordCodec.writeBook(record, book);
+        return record.flip();
+    }
+
+    private ReentrantLock lockFor(String id) {
+        return locks[(id.hashCode() ^ (id.hashCode() >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,258 @@
+package repository.wal;
+
+import model.Member;
+import repository.MemberRepository;
+import repository.impl.InMemoryMemberRepository;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * MemberRepository bền vững: dữ liệu nằm trong repository bộ nhớ, mọi thao tác ghi được ghi thêm vào
+ * write-ahead log và chỉ trả về khi đã fsync (group commit). Snapshot định kỳ giúp khởi động nhanh.
+ *
+ * Email phải duy nhất giữa các thành viên nên thứ tự ghi giữa các ID khác nhau cũng quan trọng
+ * (xóa thành viên cũ rồi mới đăng ký email đó cho người khác). Vì vậy mọi thao tác ghi đi qua một khóa
+ * chung; fsync vẫn nằm ngoài khóa nên các luồng ghi đồng thời vẫn được gom chung một lần fsync.
+ * Email trùng được kiểm tra trước, rồi thao tác được ghi log trước khi áp dụng vào bộ nhớ: lỗi không bao giờ
+ * vào log, và reader hay snapshot không bao giờ thấy thao tác chưa có trong log (ghi log thất bại thì bộ nhớ không đổi).
+ */
+public class JournaledMemberRepository implements MemberRepository, AutoCloseable {
+    private static final String SNAPSHOT_FILE = "members.snapshot";
+    private static final String WAL_DIRECTORY = "members-wal";
+
+    private static final byte SAVE = 1;
+    private static final byte UPDATE = 2;
+    private static final byte DELETE = 3;
+
+    private final MemberRepository store;
+    private final WriteAheadLog wal;
+    private final Path snapshotFile;
+    private final Object writeLock = new Object();
+    private final Object snapshotLock = new Object();
+    private final ScheduledExecutorService snapshotter;
+    private final long recoveredRecords;
+
+    public JournaledMemberRepository(Path directory) {
+        this(directory, new InMemoryMemberRepository(), 0);
+    }
+
+    /**
+     * store: repository bộ nhớ giữ dữ liệu (phải rỗng);
+     * snapshotIntervalMillis: chu kỳ chụp snapshot nền, 0 để tắt (gọi snapshot() thủ công)
+     */
+    public JournaledMemberRepository(Path directory, MemberRepository store, long snapshotIntervalMillis) {
+        this.store = store;
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.wal = new WriteAheadLog(directory.resolve(WAL_DIRECTORY));
+
+        // Khôi phục: nạp snapshot rồi phát lại các bản ghi WAL sau nó
+        long snapshotSequence = SnapshotFile.read(snapshotFile, RecordCodec::readMember, store::save);
+        long[] replayed = {0};
+        wal.replay(snapshotSequence, (sequence, payload) -> {
+            apply(payload);
+            replayed[0]++;
+        });
+        this.recoveredRecords = replayed[0];
+
+        if (snapshotIntervalMillis > 0) {
+            this.snapshotter = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "member-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMillis, snapshotIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.snapshotter = null;
+        }
+    }
+
+    @Override
+    public void save(Member member) {
+        wal.sync(saveLocked(member));
+    }
+
+    @Override
+    public Optional<Member> findById(String id) {
+        return store.findById(id);
+    }
+
+    @Override
+    public Optional<Member> findByEmail(String email) {
+        return store.findByEmail(email);
+    }
+
+    @Override
+    public List<Member> findAll() {
+        return store.findAll();
+    }
+
+    @Override
+    public List<Member> findByName(String name) {
+        return store.findByName(name);
+    }
+
+    @Override
+    public void update(Member member) {
+        long sequence = updateLocked(member);
+        if (sequence > 0) {
+            wal.sync(sequence);
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        wal.sync(deleteLocked(id));
+    }
+
+    @Override
+    public long count() {
+        return store.count();
+    }
+
+    @Override
+    public Stream<Member> streamAll() {
+        return store.streamAll();
+    }
+
+    // Thao tác hàng loạt: ghi log từng thành viên nhưng chỉ fsync một lần cho cả lô
+    @Override
+    public void saveAll(Collection<Member> members) {
+        long last = 0;
+        for (Member member : members) {
+            last = saveLocked(member);
+        }
+        wal.sync(last);
+    }
+
+    @Override
+    public void updateAll(Collection<Member> members) {
+        long last = 0;
+        for (Member member : members) {
+            last = Math.max(last, updateLocked(member));
+        }
+        wal.sync(last);
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        long last = 0;
+        for (String id : ids) {
+            last = deleteLocked(id);
+        }
+        wal.sync(last);
+    }
+
+    /**
+     * Chụp snapshot toàn bộ thành viên rồi xóa các segment WAL đã nằm trong snapshot
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            long sequence;
+            // Chụp khi không có ghi song song: snapshot lệch thời điểm có thể chứa hai thành viên cùng email
+            synchronized (writeLock) {
+                sequence = wal.rotate();
+                try (Stream<Member> members = store.streamAll()) {
+                    SnapshotFile.write(snapshotFile, sequence, members.iterator(),
+                            RecordCodec::memberSize, RecordCodec::writeMember);
+                }
+            }
+            wal.truncateUpTo(sequence);
+        }
+    }
+
+    /**
+     * Số bản ghi WAL đã phát lại khi khởi động
+     */
+    public long getRecoveredRecordCount() {
+        return recoveredRecords;
+    }
+
+    @Override
+    public void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        wal.close();
+    }
+
+    private long saveLocked(Member member) {
+        synchronized (writeLock) {
+            // Ném lỗi trùng email trước khi ghi log: thao tác hỏng không bao giờ nằm trong WAL
+            requireEmailAvailable(member);
+            long sequence = wal.append(encode(SAVE, member));
+            store.save(member);
+            return sequence;
+        }
+    }
+
+    private long updateLocked(Member member) {
+        synchronized (writeLock) {
+            if (store.findById(member.getId()).isEmpty()) {
+                return 0;
+            }
+            requireEmailAvailable(member);
+            long sequence = wal.append(encode(UPDATE, member));
+            store.update(member);
+            return sequence;
+        }
+    }
+
+    private long deleteLocked(String id) {
+        synchronized (writeLock) {
+            ByteBuffer record = ByteBuffer.allocate(1 + RecordCodec.sizeOf(id));
+            record.put(DELETE);
+            RecordCodec.writeString(record, id);
+            long sequence = wal.append(record.flip());
+            store.delete(id);
+            return sequence;
+        }
+    }
+
+    /**
+     * Cùng điều kiện mà store kiểm tra khi lưu (đang giữ writeLock nên không đổi cho tới lúc áp dụng)
+     */
+    private void requireEmailAvailable(Member member) {
+        Optional<Member> owner = store.findByEmail(member.getEmail());
+        if (owner.isPresent() && !owner.get().getId().equals(member.getId())) {
+            throw new IllegalStateException("Email " + member.getEmail() + " is already registered");
+        }
+    }
+
+    private void apply(ByteBuffer record) {
+        byte operation = record.get();
+        switch (operation) {
+            case SAVE:
+                store.save(RecordCodec.readMember(record));
+                break;
+            case UPDATE:
+                store.update(RecordCodec.readMember(record));
+                break;
+            case DELETE:
+                store.delete(RecordCodec.readString(record));
+                break;
+            default:
+                throw new IllegalStateException("Unknown WAL operation: " + operation);
+        }
+    }
+
+    private static ByteBuffer encode(byte operation, Member member) {
+        ByteBuffer record = ByteBuffer.allocate(1 + RecordCodec.memberSize(member));
+        record.put(operation);
+        RecordCodec.writeMember(record, member);
+        return record.flip();
+    }
+}
@@ -0,0 +1,93 @@
+package repository.wal;
+
+import model.Book;
+import model.Member;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mã hóa nhị phân Book/Member dùng chung cho WAL và snapshot
+ * Chuỗi: [int số byte UTF-8, -1 là null][byte]
+ */
+final class RecordCodec {
+    private RecordCodec() {
+    }
+
+    static int bookSize(Book book) {
+        return 1 + sizeOf(book.getId()) + sizeOf(book.getTitle()) + sizeOf(book.getAuthor()) + sizeOf(book.getIsbn());
+    }
+
+    static void writeBook(ByteBuffer out, Book book) {
+        out.put((byte) (book.isAvailable() ? 1 : 0));
+        writeString(out, book.getId());
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+        writeString(out, book.getIsbn());
+    }
+
+    static Book readBook(ByteBuffer in) {
+        boolean available = in.get() == 1;
+        Book book = new Book(readString(in), readString(in), readString(in), readString(in));
+        book.setAvailable(available);
+        return book;
+    }
+
+    static int memberSize(Member member) {
+        return sizeOf(member.getId()) + sizeOf(member.getName()) + sizeOf(member.getEmail()) + sizeOf(member.getPhone());
+    }
+
+    static void writeMember(ByteBuffer out, Member member) {
+        writeString(out, member.getId());
+        writeString(out, member.getName());
+        writeString(out, member.getEmail());
+        writeString(out, member.getPhone());
+    }
+
+    static Member readMember(ByteBuffer in) {
+        return new Member(readString(in), readString(in), readString(in), readString(in));
+    }
+
+    static int sizeOf(String value) {
+        return 4 + (value == null ? 0 : utf8Length(value));
+    }
+
+    static void writeString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Số byte UTF-8 mà không cần mã hóa thật
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,112 @@
+package repository.wal;
+
+import repository.DataAccessException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Snapshot toàn bộ dữ liệu của một repository, kèm số thứ tự WAL cuối cùng mà nó đã bao gồm
+ * Định dạng: [magic][long lastSequence] rồi các bản ghi [int length][payload], kết thúc bằng [int -1][long count].
+ * File được ghi ra file tạm, fsync rồi đổi tên nguyên tử nên không bao giờ thấy snapshot ghi dở.
+ */
+final class SnapshotFile {
+    private static final byte[] MAGIC = {'L', 'B', 'S', 'N', 'A', 'P', 0, 1};
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private SnapshotFile() {
+    }
+
+    static <T> long write(Path file, long lastSequence, Iterator<T> records,
+                          ToIntFunction<T> sizer, BiConsumer<ByteBuffer, T> encoder) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.put(MAGIC).putLong(lastSequence);
+            while (records.hasNext()) {
+                T record = records.next();
+                int size = sizer.applyAsInt(record);
+                if (buffer.remaining() < 4 + size) {
+                    drain(channel, buffer);
+                    if (buffer.remaining() < 4 + size) {
+                        buffer = ByteBuffer.allocateDirect(4 + size);
+                    }
+                }
+                buffer.putInt(size);
+                encoder.accept(buffer, record);
+                count++;
+            }
+            if (buffer.remaining() < 12) {
+                drain(channel, buffer);
+            }
+            buffer.putInt(-1).putLong(count);
+            drain(channel, buffer);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot write snapshot " + file, e);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot install snapshot " + file, e);
+        }
+        return count;
+    }
+
+    /**
+     * Nạp snapshot; trả về số thứ tự WAL cuối cùng mà nó đã bao gồm (0 nếu chưa có snapshot)
+     */
+    static <T> long read(Path file, Function<ByteBuffer, T> decoder, Consumer<T> sink) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[MAGIC.length];
+            data.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new DataAccessException("Not a snapshot file: " + file);
+            }
+            long lastSequence = data.getLong();
+            long count = 0;
+            while (true) {
+                int size = data.getInt();
+                if (size < 0) {
+                    break;
+                }
+                ByteBuffer record = data.slice();
+                record.limit(size);
+                sink.accept(decoder.apply(record));
+                data.position(data.position() + size);
+                count++;
+            }
+            if (data.getLong() != count) {
+                throw new DataAccessException("Snapshot " + file + " is corrupted");
+            }
+            return lastSequence;
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot read snapshot " + file, e);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
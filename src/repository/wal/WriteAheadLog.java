@@ -0,0 +1,357 @@
+package repository.wal;
+
+import repository.DataAccessException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log nhị phân, chia thành nhiều segment trong một thư mục
+ * Bản ghi: [int length][int crc32][long seq][payload]. Ghi nối được gom trong bộ đệm rồi ghi ra file;
+ * sync(seq) dùng group commit: một luồng gọi force() cho mọi bản ghi đang chờ, các luồng khác chỉ đợi
+ * kết quả, nên N luồng ghi đồng thời chỉ tốn khoảng một lần fsync.
+ * Khi mở lại, phần đuôi bị ghi dở (crash giữa chừng) của segment cuối được cắt bỏ.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Xử lý từng bản ghi khi đọc lại log
+     */
+    public interface RecordHandler {
+        void handle(long sequence, ByteBuffer payload) throws IOException;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Object appendLock = new Object();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private long segmentSize;
+    private long lastSequence;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private boolean syncing;
+    private long durableSequence;
+    private boolean closed;
+
+    public WriteAheadLog(Path directory) {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public WriteAheadLog(Path directory, long segmentBytes) {
+        if (segmentBytes < BUFFER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + BUFFER_SIZE + " bytes");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot open write-ahead log in " + directory, e);
+        }
+    }
+
+    /**
+     * Ghi nối một bản ghi và trả về số thứ tự của nó; chưa bền vững cho tới khi sync()
+     */
+    public long append(ByteBuffer payload) {
+        int length = payload.remaining();
+        synchronized (appendLock) {
+            ensureOpen();
+            try {
+                if (segmentSize + HEADER_BYTES + length > segmentBytes && segmentSize > 0) {
+                    rotateLocked();
+                }
+                long sequence = ++lastSequence;
+                crc.reset();
+                crc.update(payload.duplicate());
+                if (buffer.remaining() < HEADER_BYTES + length) {
+                    flushLocked();
+                }
+                if (buffer.remaining() < HEADER_BYTES + length) {
+                    // Bản ghi lớn hơn bộ đệm: ghi thẳng
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    header.putInt(length).putInt((int) crc.getValue()).putLong(sequence).flip();
+                    writeFully(header);
+                    writeFully(payload.duplicate());
+                } else {
+                    buffer.putInt(length).putInt((int) crc.getValue()).putLong(sequence).put(payload.duplicate());
+                }
+                segmentSize += HEADER_BYTES + length;
+                return sequence;
+            } catch (IOException e) {
+                throw new DataAccessException("Cannot append to write-ahead log", e);
+            }
+        }
+    }
+
+    /**
+     * Chờ tới khi mọi bản ghi có số thứ tự <= sequence đã được fsync (group commit)
+     */
+    public void sync(long sequence) {
+        syncLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long target;
+                syncLock.unlock();
+                try {
+                    target = forceAll();
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    synced.signalAll();
+                }
+                durableSequence = Math.max(durableSequence, target);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public long getLastSequence() {
+        synchronized (appendLock) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Đóng segment hiện tại và mở segment mới; trả về số thứ tự cuối cùng của segment vừa đóng.
+     * Segment hiện tại còn rỗng thì không làm gì (vd: snapshot định kỳ khi không có ghi mới)
+     */
+    public long rotate() {
+        synchronized (appendLock) {
+            ensureOpen();
+            try {
+                rotateLocked();
+                return lastSequence;
+            } catch (IOException e) {
+                throw new DataAccessException("Cannot rotate write-ahead log", e);
+            }
+        }
+    }
+
+    /**
+     * Xóa các segment chỉ chứa bản ghi có số thứ tự <= sequence (đã nằm trong snapshot)
+     */
+    public void truncateUpTo(long sequence) {
+        synchronized (appendLock) {
+            // Không bao giờ xóa segment đang ghi (phần tử cuối, hoặc bất kỳ phần tử nào trùng file với nó)
+            Segment active = segments.get(segments.size() - 1);
+            while (segments.size() > 1 && segments.get(1).firstSequence - 1 <= sequence
+                    && !segments.get(0).path.equals(active.path)) {
+                Segment obsolete = segments.remove(0);
+                try {
+                    Files.deleteIfExists(obsolete.path);
+                } catch (IOException e) {
+                    throw new DataAccessException("Cannot delete WAL segment " + obsolete.path, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Đọc lại các bản ghi có số thứ tự > afterSequence theo đúng thứ tự ghi
+     */
+    public void replay(long afterSequence, RecordHandler handler) {
+        List<Segment> snapshot;
+        synchronized (appendLock) {
+            try {
+                flushLocked();
+            } catch (IOException e) {
+                throw new DataAccessException("Cannot flush write-ahead log", e);
+            }
+            snapshot = new ArrayList<>(segments);
+        }
+        try {
+            for (int i = 0; i < snapshot.size(); i++) {
+                boolean hasNext = i + 1 < snapshot.size();
+                // Bỏ qua segment mà mọi bản ghi đều đã cũ
+                if (hasNext && snapshot.get(i + 1).firstSequence - 1 <= afterSequence) {
+                    continue;
+                }
+                scan(snapshot.get(i).path, afterSequence, handler);
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Cannot replay write-ahead log", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                flushLocked();
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                throw new DataAccessException("Cannot close write-ahead log", e);
+            } finally {
+                closed = true;
+            }
+        }
+    }
+
+    private long forceAll() {
+        FileChannel target;
+        long sequence;
+        synchronized (appendLock) {
+            ensureOpen();
+            try {
+                flushLocked();
+            } catch (IOException e) {
+                throw new DataAccessException("Cannot flush write-ahead log", e);
+            }
+            target = channel;
+            sequence = lastSequence;
+        }
+        // fsync ngoài appendLock: các luồng khác vẫn ghi nối tiếp được trong lúc chờ đĩa
+        try {
+            target.force(false);
+        } catch (IOException e) {
+            // Segment vừa bị rotate đã được force trước khi đóng
+            if (target.isOpen()) {
+                throw new DataAccessException("Cannot sync write-ahead log", e);
+            }
+        }
+        return sequence;
+    }
+
+    private void rotateLocked() throws IOException {
+        // Mở lại cùng số thứ tự đầu sẽ trỏ vào chính file đang ghi
+        if (segmentSize == 0) {
+            return;
+        }
+        flushLocked();
+        channel.force(false);
+        channel.close();
+        openSegment(lastSequence + 1);
+    }
+
+    private void flushLocked() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        channel.position(channel.size());
+        segmentSize = channel.size();
+        segments.add(new Segment(path, firstSequence));
+    }
+
+    private void recover() throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long first = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                found.add(new Segment(file, first));
+            }
+        }
+        found.sort((a, b) -> Long.compare(a.firstSequence, b.firstSequence));
+        if (found.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        segments.addAll(found.subList(0, found.size() - 1));
+        Segment last = found.get(found.size() - 1);
+        long[] lastSeen = {last.firstSequence - 1};
+        long validBytes = scan(last.path, Long.MIN_VALUE, (sequence, payload) -> lastSeen[0] = sequence);
+        try (FileChannel tail = FileChannel.open(last.path, StandardOpenOption.WRITE)) {
+            if (tail.size() > validBytes) {
+                // Cắt phần đuôi hỏng để bản ghi mới không nằm sau dữ liệu rác
+                tail.truncate(validBytes);
+                tail.force(true);
+            }
+        }
+        lastSequence = lastSeen[0];
+        durableSequence = lastSequence;
+        segments.add(last);
+        channel = FileChannel.open(last.path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        channel.position(channel.size());
+        segmentSize = channel.size();
+    }
+
+    /**
+     * Đọc một segment; trả về số byte hợp lệ (dừng ở bản ghi hỏng đầu tiên)
+     */
+    private static long scan(Path path, long afterSequence, RecordHandler handler) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            CRC32 checksum = new CRC32();
+            while (data.remaining() >= HEADER_BYTES) {
+                int start = data.position();
+                int length = data.getInt();
+                int expected = data.getInt();
+                long sequence = data.getLong();
+                if (length < 0 || length > data.remaining()) {
+                    return start;
+                }
+                ByteBuffer payload = data.slice();
+                payload.limit(length);
+                checksum.reset();
+                checksum.update(payload.duplicate());
+                if ((int) checksum.getValue() != expected) {
+                    return start;
+                }
+                data.position(data.position() + length);
+                if (sequence > afterSequence) {
+                    handler.handle(sequence, payload);
+                }
+            }
+            return data.position();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final long firstSequence;
+
+        Segment(Path path, long firstSequence) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+        }
+    }
+}
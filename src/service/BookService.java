@@ -2,8 +2,18 @@ package service;
 
 import model.Book;
 import repository.BookRepository;
+import repository.impl.AuthorIndex;
+import statistics.BookStatisticsCollector;
+import util.IsbnValidator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 /**
  * Service quản lý sách
@@ -11,9 +21,21 @@ import java.util.Optional;
  */
 public class BookService {
     private final BookRepository bookRepository;
+    private final BookStatisticsCollector statistics;
     
     public BookService(BookRepository bookRepository) {
+        this(bookRepository, null);
+    }
+    
+    /**
+     * statistics: bộ thống kê đã gắn vào chính repository này (xem BookStatisticsCollector.attach), có thể null
+     */
+    public BookService(BookRepository bookRepository, BookStatisticsCollector statistics) {
+        if (statistics != null && !statistics.isAttachedTo(bookRepository)) {
+            throw new IllegalArgumentException("Statistics collector is attached to a different repository");
+        }
         this.bookRepository = bookRepository;
+        this.statistics = statistics;
     }
     
     public void addBook(Book book) {
@@ -41,6 +63,41 @@ public class BookService {
         System.out.println("✅ Book added successfully: " + book.getTitle());
     }
     
+    public void addBooks(Collection<Book> books) {
+        if (books == null) {
+            throw new IllegalArgumentException("Books cannot be null");
+        }
+        
+        // Validate cả lô trước khi ghi: chỉ cần một cuốn không hợp lệ thì không cuốn nào được lưu
+        Set<String> ids = new HashSet<>(Math.max(16, books.size() * 2));
+        for (Book book : books) {
+            if (book == null || book.getId() == null || book.getId().trim().isEmpty()) {
+                throw new IllegalArgumentException("Book ID cannot be null or empty");
+            }
+            if (!isValidISBN(book.getIsbn())) {
+                throw new IllegalArgumentException("Invalid ISBN format: " + book.getIsbn());
+            }
+            // Business rule: ID không được trùng trong lô
+            if (!ids.add(book.getId())) {
+                throw new IllegalStateException("Book with ID " + book.getId() + " already exists");
+            }
+        }
+        
+        // Business rule: ID không được trùng với sách đã có - kiểm tra cả lô trong một lượt
+        Set<String> existing = bookRepository.findExistingIds(ids);
+        if (!existing.isEmpty()) {
+            throw new IllegalStateException("Book with ID " + existing.iterator().next() + " already exists");
+        }
+        
+        for (Book book : books) {
+            book.setAvailable(true);
+        }
+        
+        // Delegate to repository - ghi cả lô trong một lượt
+        bookRepository.saveAll(books);
+        System.out.println("✅ " + books.size() + " books added successfully");
+    }
+    
     public Optional<Book> getBookById(String id) {
         return bookRepository.findById(id);
     }
@@ -49,6 +106,21 @@ public class BookService {
         return bookRepository.findAll();
     }
     
+    /**
+     * Duyệt toàn bộ sách trong một lượt, không sao chép; caller phải đóng stream
+     */
+    public Stream<Book> streamAllBooks() {
+        return bookRepository.streamAll();
+    }
+    
+    public long countBooks() {
+        return bookRepository.count();
+    }
+    
+    public long countAvailableBooks() {
+        return bookRepository.countAvailable();
+    }
+    
     public List<Book> getBooksByAuthor(String author) {
         if (author == null || author.trim().isEmpty()) {
             throw new IllegalArgumentException("Author cannot be null or empty");
@@ -83,7 +155,7 @@ public class BookService {
         
         Book book = bookOpt.get();
         
-        // Business rule: Check availability
+        // Business rule: Check availability (fast path, re-checked atomically below)
         if (!book.isAvailable()) {
             throw new IllegalStateException("Book '" + book.getTitle() + "' is not available for borrowing");
         }
@@ -93,9 +165,10 @@ public class BookService {
             throw new IllegalStateException("Book '" + book.getTitle() + "' is damaged and cannot be borrowed");
         }
         
-        // Business logic: Update book status
-        book.setAvailable(false);
-        bookRepository.update(book);
+        // Business logic: Update book status atomically - two concurrent borrowers cannot both win
+        if (!bookRepository.compareAndSetAvailable(bookId, true, false)) {
+            throw new IllegalStateException("Book '" + book.getTitle() + "' is not available for borrowing");
+        }
         
         System.out.println("📖 Book borrowed successfully: " + book.getTitle());
     }
@@ -109,63 +182,23 @@ public class BookService {
         
         Book book = bookOpt.get();
         
-        // Business rule: Check if book is already available
+        // Business rule: Check if book is already available (fast path, re-checked atomically below)
         if (book.isAvailable()) {
             throw new IllegalStateException("Book '" + book.getTitle() + "' is already available");
         }
         
-        // Business logic: Update book status
-        book.setAvailable(true);
-        bookRepository.update(book);
+        // Business logic: Update book status atomically
+        if (!bookRepository.compareAndSetAvailable(bookId, false, true)) {
+            throw new IllegalStateException("Book '" + book.getTitle() + "' is already available");
+        }
         
         System.out.println("📚 Book returned successfully: " + book.getTitle());
     }
     
     // Business logic methods
     private boolean isValidISBN(String isbn) {
-        if (isbn == null || isbn.trim().isEmpty()) {
-            return false;
-        }
-        
-        // Remove hyphens and spaces
-        String cleanISBN = isbn.replaceAll("[\\s-]", "");
-        
-        // Check if it's ISBN-13 (13 digits)
-        if (cleanISBN.length() == 13 && cleanISBN.matches("\\d{13}")) {
-            return validateISBN13(cleanISBN);
-        }
-        
-        // Check if it's ISBN-10 (10 digits)
-        if (cleanISBN.length() == 10 && cleanISBN.matches("\\d{9}[\\dX]")) {
-            return validateISBN10(cleanISBN);
-        }
-        
-        return false;
-    }
-    
-    private boolean validateISBN13(String isbn) {
-        // ISBN-13 validation using check digit
-        int sum = 0;
-        for (int i = 0; i < 12; i++) {
-            int digit = Character.getNumericValue(isbn.charAt(i));
-            sum += (i % 2 == 0) ? digit : digit * 3;
-        }
-        int checkDigit = (10 - (sum % 10)) % 10;
-        return checkDigit == Character.getNumericValue(isbn.charAt(12));
-    }
-    
-    private boolean validateISBN10(String isbn) {
-        // ISBN-10 validation using check digit
-        int sum = 0;
-        for (int i = 0; i < 9; i++) {
-            sum += Character.getNumericValue(isbn.charAt(i)) * (10 - i);
-        }
-        int checkDigit = sum % 11;
-        char lastChar = isbn.charAt(9);
-        if (checkDigit == 10) {
-            return lastChar == 'X';
-        }
-        return checkDigit == Character.getNumericValue(lastChar);
+        // Kiểm tra một lượt, không regex và không cấp phát chuỗi tạm
+        return IsbnValidator.isValid(isbn);
     }
     
     private boolean isBookDamaged(Book book) {
@@ -176,14 +209,35 @@ public class BookService {
     
     // Business logic: Get book statistics
     public BookStatistics getBookStatistics() {
-        List<Book> allBooks = bookRepository.findAll();
-        long totalBooks = allBooks.size();
-        long availableBooks = allBooks.stream().filter(Book::isAvailable).count();
+        // Bộ thống kê hoặc repository duy trì sẵn bộ đếm, không cần sao chép và quét toàn bộ sách
+        long totalBooks = statistics != null ? statistics.getTotalBooks() : bookRepository.count();
+        long availableBooks = statistics != null ? statistics.getAvailableBooks() : bookRepository.countAvailable();
         long borrowedBooks = totalBooks - availableBooks;
         
         return new BookStatistics(totalBooks, availableBooks, borrowedBooks);
     }
     
+    // Business logic: Số sách theo từng tác giả
+    public Map<String, Long> getBookCountsByAuthor() {
+        if (statistics != null) {
+            return statistics.getBookCountsByAuthor();
+        }
+        // Không có bộ thống kê: quét một lượt, gom theo cùng khóa fold và cách viết gặp đầu tiên như bộ thống kê
+        Map<String, String> names = new HashMap<>();
+        Map<String, Long> countsByKey = new HashMap<>();
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                String name = book.getAuthor() == null ? "" : book.getAuthor();
+                String key = AuthorIndex.fold(name);
+                names.putIfAbsent(key, name);
+                countsByKey.merge(key, 1L, Long::sum);
+            });
+        }
+        Map<String, Long> counts = new TreeMap<>();
+        countsByKey.forEach((key, count) -> counts.put(names.get(key), count));
+        return counts;
+    }
+    
     // Inner class for business data
     public static class BookStatistics {
         private final long totalBooks;
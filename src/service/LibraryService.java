@@ -1,14 +1,20 @@
 package service;
 
+import ledger.FineLedger;
+import ledger.Money;
 import model.Book;
 import model.Member;
+import notification.Notification;
 import notification.NotificationService;
 import payment.PaymentProcessor;
+import payment.PaymentRequest;
 import repository.BookRepository;
 import repository.MemberRepository;
 import report.ReportGenerator;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Service chính của thư viện
@@ -20,17 +26,28 @@ public class LibraryService {
     private final NotificationService notificationService;
     private final PaymentProcessor paymentProcessor;
     private final ReportGenerator reportGenerator;
+    private final FineLedger fineLedger;
     
     public LibraryService(BookService bookService, 
                          MemberService memberService,
                          NotificationService notificationService,
                          PaymentProcessor paymentProcessor,
                          ReportGenerator reportGenerator) {
+        this(bookService, memberService, notificationService, paymentProcessor, reportGenerator, new FineLedger());
+    }
+    
+    public LibraryService(BookService bookService, 
+                         MemberService memberService,
+                         NotificationService notificationService,
+                         PaymentProcessor paymentProcessor,
+                         ReportGenerator reportGenerator,
+                         FineLedger fineLedger) {
         this.bookService = bookService;
         this.memberService = memberService;
         this.notificationService = notificationService;
         this.paymentProcessor = paymentProcessor;
         this.reportGenerator = reportGenerator;
+        this.fineLedger = fineLedger;
     }
     
     public void borrowBook(String memberId, String bookId) {
@@ -43,13 +60,13 @@ public class LibraryService {
         // Mượn sách
         bookService.borrowBook(bookId);
         
-        // Gửi thông báo
+        System.out.println("✅ Book borrowed successfully!");
+        
+        // Gửi thông báo (có thể bất đồng bộ, sau khi thao tác đã hoàn tất)
         notificationService.sendNotification(
             "You have successfully borrowed book with ID: " + bookId,
             member.get().getEmail()
         );
-        
-        System.out.println("✅ Book borrowed successfully!");
     }
     
     public void returnBook(String memberId, String bookId) {
@@ -62,48 +79,159 @@ public class LibraryService {
         // Trả sách
         bookService.returnBook(bookId);
         
-        // Gửi thông báo
+        System.out.println("✅ Book returned successfully!");
+        
+        // Gửi thông báo (có thể bất đồng bộ, sau khi thao tác đã hoàn tất)
         notificationService.sendNotification(
             "You have successfully returned book with ID: " + bookId,
             member.get().getEmail()
         );
-        
-        System.out.println("✅ Book returned successfully!");
     }
     
     public void processFinePayment(String memberId, double amount) {
+        processFinePayment(null, memberId, amount);
+    }
+    
+    /**
+     * Thu phí phạt với khóa idempotency: client gửi lại cùng khóa khi thử lại sẽ không bị thu tiền hai lần
+     * (khi paymentProcessor là IdempotentPaymentProcessor)
+     */
+    public void processFinePayment(String idempotencyKey, String memberId, double amount) {
         // Kiểm tra thành viên
         var member = memberService.getMemberById(memberId);
         if (member.isEmpty()) {
             throw new IllegalArgumentException("Member not found");
         }
         
-        // Xử lý thanh toán
-        boolean success = paymentProcessor.processPayment(amount, memberId);
+        // Giữ chỗ trong sổ phạt trước khi thu tiền: không thu vượt số còn nợ
+        long amountMinor = requirePositiveMinorUnits(amount);
+        fineLedger.reservePayment(memberId, amountMinor);
+        boolean success = false;
+        try {
+            success = paymentProcessor.processPayment(idempotencyKey, amount, memberId);
+        } finally {
+            if (success) {
+                fineLedger.settlePayment(memberId, amountMinor);
+            } else {
+                fineLedger.releasePayment(memberId, amountMinor);
+            }
+        }
         if (success) {
+            System.out.println("✅ Fine payment processed successfully!");
             notificationService.sendNotification(
-                "Fine payment of $" + amount + " processed successfully",
+                "Fine payment of " + Money.format(amountMinor) + " processed successfully",
                 member.get().getEmail()
             );
-            System.out.println("✅ Fine payment processed successfully!");
         } else {
             System.out.println("❌ Payment failed!");
         }
     }
     
-    public void generateLibraryReport() {
-        List<Book> books = bookService.getAllBooks();
-        List<Member> members = memberService.getAllMembers();
+    /**
+     * Thu phí phạt hàng loạt (accountNumber của mỗi yêu cầu là mã thành viên).
+     * Các khoản thanh toán được gửi tới PaymentProcessor theo lô để có thể xử lý song song.
+     * Trả về số khoản thanh toán thành công.
+     */
+    public int processFinePayments(List<PaymentRequest> fines) {
+        // Kiểm tra toàn bộ thành viên trước khi thu tiền
+        List<Member> payers = new ArrayList<>(fines.size());
+        for (PaymentRequest fine : fines) {
+            var member = memberService.getMemberById(fine.getAccountNumber());
+            if (member.isEmpty()) {
+                throw new IllegalArgumentException("Member not found: " + fine.getAccountNumber());
+            }
+            payers.add(member.get());
+        }
+        // Kiểm tra số tiền (sau khi làm tròn tới cent) trước khi thu: sổ phạt không nhận khoản <= 0
+        long[] amountsMinor = new long[fines.size()];
+        for (int i = 0; i < fines.size(); i++) {
+            amountsMinor[i] = requirePositiveMinorUnits(fines.get(i).getAmount());
+        }
+        // Giữ chỗ cả lô trước khi thu: một khoản vượt số còn nợ thì không thu khoản nào
+        for (int i = 0; i < fines.size(); i++) {
+            try {
+                fineLedger.reservePayment(fines.get(i).getAccountNumber(), amountsMinor[i]);
+            } catch (RuntimeException e) {
+                releasePayments(fines, amountsMinor, i);
+                throw e;
+            }
+        }
         
+        // Xử lý thanh toán
+        List<Boolean> results;
+        try {
+            results = paymentProcessor.processPayments(fines);
+        } catch (RuntimeException | Error e) {
+            releasePayments(fines, amountsMinor, fines.size());
+            throw e;
+        }
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < fines.size(); i++) {
+            long amountMinor = amountsMinor[i];
+            if (!results.get(i)) {
+                fineLedger.releasePayment(fines.get(i).getAccountNumber(), amountMinor);
+            } else {
+                fineLedger.settlePayment(fines.get(i).getAccountNumber(), amountMinor);
+                notifications.add(new Notification(
+                    "Fine payment of " + Money.format(amountMinor) + " processed successfully",
+                    payers.get(i).getEmail()
+                ));
+            }
+        }
+        if (!notifications.isEmpty()) {
+            notificationService.sendNotifications(notifications);
+        }
+        System.out.println("✅ Processed " + notifications.size() + "/" + fines.size() + " fine payments successfully!");
+        return notifications.size();
+    }
+    
+    /**
+     * Ghi nhận một khoản phạt cho thành viên vào sổ phạt
+     */
+    public void assessFine(String memberId, double amount) {
+        if (memberService.getMemberById(memberId).isEmpty()) {
+            throw new IllegalArgumentException("Member not found");
+        }
+        fineLedger.charge(memberId, Money.toMinorUnits(amount));
+    }
+    
+    /**
+     * Số tiền phạt thành viên còn nợ, tính bằng cent
+     */
+    public long getOutstandingFine(String memberId) {
+        return fineLedger.getOutstanding(memberId);
+    }
+    
+    private void releasePayments(List<PaymentRequest> fines, long[] amountsMinor, int count) {
+        for (int i = 0; i < count; i++) {
+            fineLedger.releasePayment(fines.get(i).getAccountNumber(), amountsMinor[i]);
+        }
+    }
+    
+    /**
+     * Số tiền đổi ra cent phải dương: 0.004 làm tròn thành 0 cent nên cũng bị từ chối
+     */
+    private static long requirePositiveMinorUnits(double amount) {
+        long amountMinor = Money.toMinorUnits(amount);
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Fine amount must be at least " + Money.format(1) + ": " + amount);
+        }
+        return amountMinor;
+    }
+    
+    public void generateLibraryReport() {
+        // Các con số lấy từ bộ đếm của repository, không sao chép danh sách
         System.out.println("📚 LIBRARY REPORT");
         System.out.println("=================");
-        System.out.println("Total Books: " + books.size());
-        System.out.println("Total Members: " + members.size());
-        System.out.println("Available Books: " + bookService.getAvailableBooks().size());
+        System.out.println("Total Books: " + bookService.countBooks());
+        System.out.println("Total Members: " + memberService.countMembers());
+        System.out.println("Available Books: " + bookService.countAvailableBooks());
         System.out.println();
         
-        // Sử dụng report generator
-        reportGenerator.generateReport(books);
+        // Sử dụng report generator - duyệt sách một lượt qua stream
+        try (Stream<Book> books = bookService.streamAllBooks()) {
+            reportGenerator.generateReport(books);
+        }
     }
 }
 
@@ -2,8 +2,10 @@ package service;
 
 import model.Member;
 import repository.MemberRepository;
+import statistics.MemberStatisticsCollector;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service quản lý thành viên
@@ -11,9 +13,18 @@ import java.util.Optional;
  */
 public class MemberService {
     private final MemberRepository memberRepository;
+    private final MemberStatisticsCollector statistics;
     
     public MemberService(MemberRepository memberRepository) {
+        this(memberRepository, null);
+    }
+    
+    /**
+     * statistics: bộ thống kê đã gắn vào repository (xem MemberStatisticsCollector.attach), có thể null
+     */
+    public MemberService(MemberRepository memberRepository, MemberStatisticsCollector statistics) {
         this.memberRepository = memberRepository;
+        this.statistics = statistics;
     }
     
     public void registerMember(Member member) {
@@ -42,7 +53,7 @@ public class MemberService {
             throw new IllegalArgumentException("Invalid phone number format: " + member.getPhone());
         }
         
-        // Delegate to repository
+        // Delegate to repository - repository giữ chỗ email nguyên tử nên đăng ký đồng thời vẫn không trùng email
         memberRepository.save(member);
         System.out.println("✅ Member registered successfully: " + member.getName());
     }
@@ -55,6 +66,17 @@ public class MemberService {
         return memberRepository.findAll();
     }
     
+    /**
+     * Duyệt toàn bộ thành viên trong một lượt, không sao chép; caller phải đóng stream
+     */
+    public Stream<Member> streamAllMembers() {
+        return memberRepository.streamAll();
+    }
+    
+    public long countMembers() {
+        return memberRepository.count();
+    }
+    
     public List<Member> searchMembersByName(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Name cannot be null or empty");
@@ -89,18 +111,24 @@ public class MemberService {
     }
     
     private boolean isEmailAlreadyRegistered(String email) {
-        // Business logic: Check if email is already used
-        return memberRepository.findAll().stream()
-                .anyMatch(member -> email.equals(member.getEmail()));
+        // Business logic: Check if email is already used (O(1) qua chỉ mục email của repository)
+        return memberRepository.findByEmail(email).isPresent();
     }
     
     // Business logic: Get member statistics
     public MemberStatistics getMemberStatistics() {
-        List<Member> allMembers = memberRepository.findAll();
-        long totalMembers = allMembers.size();
-        long membersWithPhone = allMembers.stream()
-                .filter(member -> member.getPhone() != null && !member.getPhone().trim().isEmpty())
-                .count();
+        if (statistics != null) {
+            // O(1): bộ thống kê được cập nhật theo từng thay đổi của repository
+            return new MemberStatistics(statistics.getTotalMembers(), statistics.getMembersWithPhone());
+        }
+        
+        long totalMembers = memberRepository.count();
+        long membersWithPhone;
+        try (Stream<Member> members = memberRepository.streamAll()) {
+            membersWithPhone = members
+                    .filter(member -> member.getPhone() != null && !member.getPhone().trim().isEmpty())
+                    .count();
+        }
         
         return new MemberStatistics(totalMembers, membersWithPhone);
     }
@@ -0,0 +1,180 @@
+package statistics;
+
+import model.Book;
+import repository.BookChangeListener;
+import repository.BookRepository;
+import repository.impl.AuthorIndex;
+import repository.impl.ObservableBookRepository;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Thống kê sách được cập nhật dần theo từng sự kiện của repository
+ * Đọc số liệu là O(1) và không quét dữ liệu; bộ đếm dùng LongAdder (chia stripe) nên nhiều luồng
+ * mượn/trả cùng lúc không tranh chấp một biến đếm. Mỗi sách chỉ giữ lại tác giả và trạng thái
+ * để tính đúng phần chênh lệch khi sách bị ghi đè, cập nhật hoặc xóa.
+ * Số sách theo tác giả được gom theo AuthorIndex.fold, tức không phân biệt hoa/thường như findByAuthor.
+ */
+public class BookStatisticsCollector implements BookChangeListener {
+    private final Map<String, Tracked> books = new ConcurrentHashMap<>();
+    // Khóa là tên tác giả đã fold; authorNames giữ cách viết gặp đầu tiên để hiển thị
+    private final Map<String, LongAdder> booksByAuthor = new ConcurrentHashMap<>();
+    private final Map<String, String> authorNames = new ConcurrentHashMap<>();
+    private final LongAdder totalBooks = new LongAdder();
+    private final LongAdder availableBooks = new LongAdder();
+    private final ObservableBookRepository repository;
+
+    private BookStatisticsCollector(ObservableBookRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Tạo bộ thống kê, đăng ký vào repository rồi nạp dữ liệu đang có.
+     * Nên gọi trước khi phục vụ request: sách bị xóa trong lúc nạp có thể vẫn được đếm.
+     */
+    public static BookStatisticsCollector attach(ObservableBookRepository repository) {
+        BookStatisticsCollector collector = new BookStatisticsCollector(repository);
+        repository.addListener(collector);
+        try (Stream<Book> existing = repository.streamAll()) {
+            collector.load(existing);
+        }
+        return collector;
+    }
+
+    public void load(Stream<Book> existing) {
+        existing.forEach(this::onSaved);
+    }
+
+    @Override
+    public void onSaved(Book book) {
+        Tracked current = Tracked.of(book);
+        books.compute(book.getId(), (id, previous) -> {
+            if (previous != null) {
+                remove(previous);
+            }
+            add(current);
+            return current;
+        });
+    }
+
+    @Override
+    public void onUpdated(Book book) {
+        Tracked current = Tracked.of(book);
+        books.computeIfPresent(book.getId(), (id, previous) -> {
+            remove(previous);
+            add(current);
+            return current;
+        });
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        books.computeIfPresent(id, (key, previous) -> {
+            remove(previous);
+            return null;
+        });
+    }
+
+    @Override
+    public void onAvailabilityChanged(String id, boolean available) {
+        books.computeIfPresent(id, (key, previous) -> {
+            if (previous.available == available) {
+                return previous;
+            }
+            if (available) {
+                availableBooks.increment();
+            } else {
+                availableBooks.decrement();
+            }
+            return new Tracked(previous.author, previous.authorName, available);
+        });
+    }
+
+    /**
+     * true nếu bộ thống kê nhận sự kiện từ chính repository này
+     */
+    public boolean isAttachedTo(BookRepository repository) {
+        return this.repository == repository;
+    }
+
+    public long getTotalBooks() {
+        return totalBooks.sum();
+    }
+
+    public long getAvailableBooks() {
+        return availableBooks.sum();
+    }
+
+    public long getBookCountByAuthor(String author) {
+        LongAdder count = booksByAuthor.get(author == null ? "" : AuthorIndex.fold(author));
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Số sách theo từng tác giả, sắp theo tên tác giả
+     */
+    public Map<String, Long> getBookCountsByAuthor() {
+        Map<String, Long> counts = new TreeMap<>();
+        booksByAuthor.forEach((author, count) -> {
+            long value = count.sum();
+            if (value > 0) {
+                counts.put(authorNames.getOrDefault(author, author), value);
+            }
+        });
+        return counts;
+    }
+
+    private void add(Tracked book) {
+        totalBooks.increment();
+        if (book.available) {
+            availableBooks.increment();
+        }
+        // Tạo, đếm và bỏ bộ đếm theo tác giả đều nằm trong compute của cùng khóa nên không mất lượt đếm
+        booksByAuthor.compute(book.author, (author, count) -> {
+            if (count == null) {
+                count = new LongAdder();
+                authorNames.put(author, book.authorName);
+            }
+            count.increment();
+            return count;
+        });
+    }
+
+    private void remove(Tracked book) {
+        totalBooks.decrement();
+        if (book.available) {
+            availableBooks.decrement();
+        }
+        // Bỏ bộ đếm về 0 để tác giả không còn sách không nằm lại trong bộ nhớ
+        booksByAuthor.computeIfPresent(book.author, (author, count) -> {
+            count.decrement();
+            if (count.sum() > 0) {
+                return count;
+            }
+            authorNames.remove(author);
+            return null;
+        });
+    }
+
+    // Chỉ những trường mà thống kê cần; Book là mutable nên phải chụp lại giá trị
+    private static class Tracked {
+        private final String author;      // đã fold
+        private final String authorName;  // như trong Book
+        private final boolean available;
+
+        Tracked(String author, String authorName, boolean available) {
+            this.author = author;
+            this.authorName = authorName;
+            this.available = available;
+        }
+
+        static Tracked of(Book book) {
+            String name = book.getAuthor() == null ? "" : book.getAuthor();
+            return new Tracked(AuthorIndex.fold(name), name, book.isAvailable());
+        }
+    }
+}
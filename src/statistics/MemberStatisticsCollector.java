@@ -0,0 +1,93 @@
+package statistics;
+
+import model.Member;
+import repository.MemberChangeListener;
+import repository.impl.ObservableMemberRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Thống kê thành viên được cập nhật dần theo từng sự kiện của repository
+ * Đọc số liệu là O(1); mỗi thành viên chỉ giữ lại cờ "có số điện thoại" để tính đúng khi cập nhật hoặc xóa.
+ */
+public class MemberStatisticsCollector implements MemberChangeListener {
+    private final Map<String, Boolean> hasPhoneById = new ConcurrentHashMap<>();
+    private final LongAdder totalMembers = new LongAdder();
+    private final LongAdder membersWithPhone = new LongAdder();
+
+    /**
+     * Tạo bộ thống kê, đăng ký vào repository rồi nạp dữ liệu đang có.
+     * Nên gọi trước khi phục vụ request: thành viên bị xóa trong lúc nạp có thể vẫn được đếm.
+     */
+    public static MemberStatisticsCollector attach(ObservableMemberRepository repository) {
+        MemberStatisticsCollector collector = new MemberStatisticsCollector();
+        repository.addListener(collector);
+        try (Stream<Member> existing = repository.streamAll()) {
+            collector.load(existing);
+        }
+        return collector;
+    }
+
+    public void load(Stream<Member> existing) {
+        existing.forEach(this::onSaved);
+    }
+
+    @Override
+    public void onSaved(Member member) {
+        boolean hasPhone = hasPhone(member);
+        hasPhoneById.compute(member.getId(), (id, previous) -> {
+            if (previous != null) {
+                remove(previous);
+            }
+            add(hasPhone);
+            return hasPhone;
+        });
+    }
+
+    @Override
+    public void onUpdated(Member member) {
+        boolean hasPhone = hasPhone(member);
+        hasPhoneById.computeIfPresent(member.getId(), (id, previous) -> {
+            remove(previous);
+            add(hasPhone);
+            return hasPhone;
+        });
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        hasPhoneById.computeIfPresent(id, (key, previous) -> {
+            remove(previous);
+            return null;
+        });
+    }
+
+    public long getTotalMembers() {
+        return totalMembers.sum();
+    }
+
+    public long getMembersWithPhone() {
+        return membersWithPhone.sum();
+    }
+
+    private void add(boolean hasPhone) {
+        totalMembers.increment();
+        if (hasPhone) {
+            membersWithPhone.increment();
+        }
+    }
+
+    private void remove(boolean hasPhone) {
+        totalMembers.decrement();
+        if (hasPhone) {
+            membersWithPhone.decrement();
+        }
+    }
+
+    private static boolean hasPhone(Member member) {
+        return member.getPhone() != null && !member.getPhone().trim().isEmpty();
+    }
+}
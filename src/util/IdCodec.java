@@ -0,0 +1,51 @@
+package util;
+
+/**
+ * Mã hóa ID ngắn (vd: "B001", "M42") thành một số long dương để dùng làm khóa nguyên thủy
+ * Mỗi ký tự ASCII (1..127) chiếm 7 bit, tối đa 9 ký tự = 63 bit; ký tự đầu nằm ở các bit cao nhất.
+ * Vì không có ký tự 0 nên phép mã hóa là đơn ánh và decode luôn trả lại đúng chuỗi ban đầu.
+ * ID dài hơn hoặc có ký tự ngoài ASCII không mã hóa được (NOT_ENCODABLE); repository dùng khóa chuỗi cho chúng.
+ */
+public final class IdCodec {
+    public static final long NOT_ENCODABLE = -1;
+    public static final int MAX_LENGTH = 9;
+
+    private static final int BITS_PER_CHAR = 7;
+
+    private IdCodec() {
+    }
+
+    /**
+     * @return khóa > 0, hoặc NOT_ENCODABLE nếu ID null/rỗng/quá dài/có ký tự ngoài 1..127
+     */
+    public static long encode(CharSequence id) {
+        if (id == null || id.length() == 0 || id.length() > MAX_LENGTH) {
+            return NOT_ENCODABLE;
+        }
+        long key = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                return NOT_ENCODABLE;
+            }
+            key |= (long) c << (BITS_PER_CHAR * (MAX_LENGTH - 1 - i));
+        }
+        return key;
+    }
+
+    public static String decode(long key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Invalid encoded ID: " + key);
+        }
+        char[] chars = new char[MAX_LENGTH];
+        int length = 0;
+        for (int i = 0; i < MAX_LENGTH; i++) {
+            char c = (char) ((key >>> (BITS_PER_CHAR * (MAX_LENGTH - 1 - i))) & 0x7F);
+            if (c == 0) {
+                break;
+            }
+            chars[length++] = c;
+        }
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,75 @@
+package util;
+
+/**
+ * Kiểm tra và chuẩn hóa mã ISBN-10/ISBN-13
+ * Duyệt chuỗi một lần, bỏ qua dấu gạch ngang và khoảng trắng, tính đồng thời check digit của cả hai dạng.
+ * isValid không cấp phát bộ nhớ và không dùng regex nên phù hợp cho việc nhập catalog số lượng lớn.
+ */
+public final class IsbnValidator {
+    private IsbnValidator() {
+    }
+
+    public static boolean isValid(CharSequence isbn) {
+        return scan(isbn, null) > 0;
+    }
+
+    /**
+     * Trả về ISBN chỉ gồm chữ số (và 'X' cuối với ISBN-10), hoặc null nếu không hợp lệ
+     */
+    public static String normalize(CharSequence isbn) {
+        char[] digits = new char[13];
+        int length = scan(isbn, digits);
+        return length > 0 ? new String(digits, 0, length) : null;
+    }
+
+    /**
+     * @return số ký tự của ISBN hợp lệ (10 hoặc 13), hoặc 0 nếu không hợp lệ
+     */
+    private static int scan(CharSequence isbn, char[] out) {
+        if (isbn == null) {
+            return 0;
+        }
+        int count = 0;
+        int sum10 = 0;
+        int sum13 = 0;
+        boolean checkX = false;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || isWhitespace(c)) {
+                continue;
+            }
+            // 'X' chỉ được phép là ký tự cuối cùng của ISBN-10
+            if (checkX || count == 13) {
+                return 0;
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c == 'X' && count == 9) {
+                digit = 10;
+                checkX = true;
+            } else {
+                return 0;
+            }
+            if (out != null) {
+                out[count] = c;
+            }
+            // ISBN-10: trọng số 10..1, tổng chia hết cho 11; ISBN-13: trọng số 1,3 xen kẽ, tổng chia hết cho 10
+            sum10 += digit * (10 - count);
+            sum13 += (count & 1) == 0 ? digit : digit * 3;
+            count++;
+        }
+        if (count == 13) {
+            return sum13 % 10 == 0 ? 13 : 0;
+        }
+        if (count == 10) {
+            return sum10 % 11 == 0 ? 10 : 0;
+        }
+        return 0;
+    }
+
+    // Cùng tập ký tự với \s trong regex Java
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
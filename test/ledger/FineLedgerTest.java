@@ -0,0 +1,111 @@
+package ledger;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FineLedger: số dư và tổng theo thành viên, giữ chỗ thanh toán không vượt số còn nợ
+ */
+class FineLedgerTest {
+    @Test
+    void memberTotalsSurviveTableGrowth() {
+        FineLedger ledger = new FineLedger();
+        // Vượt dung lượng ban đầu để bảng băm và các cột theo thành viên phải mở rộng
+        int members = 5_000;
+        for (int i = 0; i < members; i++) {
+            ledger.charge("M" + i, 1_000 + i);
+            ledger.recordPayment("M" + i, 100);
+            ledger.waive("M" + i, i % 2 == 0 ? 50 : 1);
+        }
+        ledger.charge("M7", 5);
+
+        assertEquals(members, ledger.getMemberCount());
+        for (int i = 0; i < members; i++) {
+            String id = "M" + i;
+            long charged = 1_000 + i + (i == 7 ? 5 : 0);
+            long waived = i % 2 == 0 ? 50 : 1;
+            assertEquals(charged, ledger.sumForMember(id, FineLedger.EntryType.CHARGE), id);
+            assertEquals(100, ledger.sumForMember(id, FineLedger.EntryType.PAYMENT), id);
+            assertEquals(waived, ledger.sumForMember(id, FineLedger.EntryType.WAIVER), id);
+            assertEquals(charged - 100 - waived, ledger.getOutstanding(id), id);
+        }
+        assertEquals(0, ledger.sumForMember("unknown", FineLedger.EntryType.CHARGE));
+        assertEquals(0, ledger.getOutstanding("unknown"));
+    }
+
+    @Test
+    void paymentsCannotExceedOutstandingBalance() {
+        FineLedger ledger = new FineLedger();
+        assertThrows(IllegalArgumentException.class, () -> ledger.reservePayment("M1", 100));
+
+        ledger.charge("M1", 1_000);
+        ledger.reservePayment("M1", 600);
+        // Khoản đang giữ chỗ được trừ ra trước khi so với số còn nợ
+        assertThrows(IllegalArgumentException.class, () -> ledger.reservePayment("M1", 500));
+        ledger.releasePayment("M1", 600);
+        ledger.reservePayment("M1", 1_000);
+        ledger.settlePayment("M1", 1_000);
+
+        assertEquals(0, ledger.getOutstanding("M1"));
+        assertEquals(1_000, ledger.sumForMember("M1", FineLedger.EntryType.PAYMENT));
+        assertThrows(IllegalArgumentException.class, () -> ledger.reservePayment("M1", 1));
+        assertThrows(IllegalStateException.class, () -> ledger.settlePayment("M1", 1));
+    }
+
+    @Test
+    void concurrentReservationsNeverOverdraw() throws Exception {
+        FineLedger ledger = new FineLedger();
+        ledger.charge("M1", 10_000);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> settled = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                settled.add(executor.submit(() -> {
+                    start.await();
+                    int count = 0;
+                    for (int i = 0; i < 1_000; i++) {
+                        try {
+                            ledger.reservePayment("M1", 7);
+                        } catch (IllegalArgumentException e) {
+                            continue;
+                        }
+                        ledger.settlePayment("M1", 7);
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> future : settled) {
+                total += future.get();
+            }
+            assertEquals(10_000 / 7, total);
+            assertEquals(10_000 % 7, ledger.getOutstanding("M1"));
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void formatHandlesNegativeAndExtremeAmounts() {
+        assertEquals("$12.34", Money.format(1_234));
+        assertEquals("-$0.05", Money.format(-5));
+        assertEquals("-$92233720368547758.08", Money.format(Long.MIN_VALUE));
+        assertEquals("$92233720368547758.07", Money.format(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,106 @@
+package notification.impl;
+
+import notification.NotificationService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AsyncNotificationService: chính sách khi hàng đợi đầy và gửi hết thông báo khi đóng
+ */
+class AsyncNotificationServiceTest {
+    @Test
+    void flushWaitsForEveryQueuedNotification() {
+        RecordingChannel channel = new RecordingChannel(null);
+        try (AsyncNotificationService service = new AsyncNotificationService(channel, 16, 2, 4,
+                AsyncNotificationService.OverflowPolicy.BLOCK)) {
+            for (int i = 0; i < 500; i++) {
+                service.sendNotification("message " + i, "user" + i);
+            }
+            service.flush();
+            assertEquals(500, channel.delivered.size());
+            assertEquals(0, service.getDroppedCount());
+        }
+    }
+
+    @Test
+    void dropPolicyCountsRejectedNotifications() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingChannel channel = new RecordingChannel(release);
+        try (AsyncNotificationService service = new AsyncNotificationService(channel, 1, 1, 1,
+                AsyncNotificationService.OverflowPolicy.DROP)) {
+            service.sendNotification("first", "a");
+            assertTrue(channel.blocked.await(5, TimeUnit.SECONDS));
+            service.sendNotification("second", "a");
+            service.sendNotification("third", "a");
+            assertEquals(1, service.getDroppedCount());
+            release.countDown();
+            service.flush();
+            assertEquals(List.of("first", "second"), channel.delivered);
+        }
+    }
+
+    @Test
+    void blockedProducerIsReleasedWhenServiceCloses() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingChannel channel = new RecordingChannel(release);
+        AsyncNotificationService service = new AsyncNotificationService(channel, 1, 1, 1,
+                AsyncNotificationService.OverflowPolicy.BLOCK);
+        service.sendNotification("first", "a");
+        assertTrue(channel.blocked.await(5, TimeUnit.SECONDS));
+        service.sendNotification("second", "a");
+
+        // Hàng đợi đầy và worker đang kẹt ở kênh gửi: luồng gọi phải chờ
+        Thread producer = new Thread(() -> service.sendNotification("third", "a"));
+        producer.start();
+        producer.join(300);
+        assertTrue(producer.isAlive());
+
+        Thread closer = new Thread(service::close);
+        closer.start();
+        // close() vẫn đang chờ worker, nhưng luồng gọi không được kẹt theo
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        assertTrue(closer.isAlive());
+
+        release.countDown();
+        closer.join(10_000);
+        assertFalse(closer.isAlive());
+        assertEquals(3, channel.delivered.size());
+        assertTrue(channel.delivered.containsAll(List.of("first", "second", "third")));
+        assertEquals(0, service.getDroppedCount());
+    }
+
+    /**
+     * Kênh giả ghi lại thông báo; nếu có release thì thông báo "first" bị giữ lại cho tới khi release mở
+     */
+    private static class RecordingChannel implements NotificationService {
+        private final CountDownLatch release;
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+
+        RecordingChannel(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void sendNotification(String message, String recipient) {
+            if (release != null && message.equals("first")) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            delivered.add(message);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package notification.impl;
+
+import notification.NotificationService;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CoalescingNotificationService: gom theo người nhận trong cửa sổ, bỏ nội dung trùng và không làm mất thông báo khi đóng
+ */
+class CoalescingNotificationServiceTest {
+
+    @Test
+    void messagesToOneRecipientBecomeOneDigest() throws Exception {
+        RecordingChannel channel = new RecordingChannel();
+        try (CoalescingNotificationService service = new CoalescingNotificationService(channel, 200)) {
+            service.sendNotification("Borrowed A", "M1");
+            service.sendNotification("Borrowed B", "M1");
+            service.sendNotification("Borrowed A", "M1");
+            service.sendNotification("Welcome", "M2");
+
+            assertTrue(channel.awaitDeliveries(2));
+            assertEquals(List.of("Borrowed A", "Borrowed B"), channel.messagesFor("M1"));
+            assertEquals(List.of("Welcome"), channel.messagesFor("M2"));
+            assertTrue(channel.texts.stream().anyMatch(text -> text.startsWith("You have 2 notifications:")));
+            assertEquals(4, service.getReceivedCount());
+            assertEquals(1, service.getDuplicateCount());
+            assertEquals(2, service.getDeliveredCount());
+        }
+    }
+
+    @Test
+    void fullDigestIsSentWithoutWaitingForWindow() {
+        RecordingChannel channel = new RecordingChannel();
+        try (CoalescingNotificationService service = new CoalescingNotificationService(channel, 60_000, 3)) {
+            service.sendNotification("one", "M1");
+            service.sendNotification("two", "M1");
+            assertEquals(0, channel.texts.size());
+            service.sendNotification("three", "M1");
+
+            assertEquals(List.of("one", "two", "three"), channel.messagesFor("M1"));
+            assertEquals(1, service.getDeliveredCount());
+        }
+    }
+
+    @Test
+    void closeFlushesPendingAndLaterSendsGoDirectly() {
+        RecordingChannel channel = new RecordingChannel();
+        CoalescingNotificationService service = new CoalescingNotificationService(channel, 60_000);
+        service.sendNotification("pending", "M1");
+        service.close();
+        assertEquals(List.of("pending"), channel.messagesFor("M1"));
+
+        service.sendNotification("late", "M1");
+        assertEquals(List.of("pending", "late"), channel.messagesFor("M1"));
+    }
+
+    @Test
+    void sendsRacingCloseAreNeverLost() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            RecordingChannel channel = new RecordingChannel();
+            CoalescingNotificationService service = new CoalescingNotificationService(channel, 60_000);
+            int threads = 4;
+            int perThread = 200;
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            service.sendNotification("m" + thread + "-" + i, "M" + (i % 5));
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                service.close();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            Set<String> delivered = new HashSet<>();
+            for (int r = 0; r < 5; r++) {
+                delivered.addAll(channel.messagesFor("M" + r));
+            }
+            assertEquals(threads * perThread, delivered.size(), "round " + round);
+        }
+    }
+
+    /**
+     * Kênh giả ghi lại nội dung gửi đi và tách digest thành từng thông báo gốc
+     */
+    private static class RecordingChannel implements NotificationService {
+        final List<String> recipients = new CopyOnWriteArrayList<>();
+        final List<String> texts = new CopyOnWriteArrayList<>();
+
+        @Override
+        public synchronized void sendNotification(String message, String recipient) {
+            recipients.add(recipient);
+            texts.add(message);
+            notifyAll();
+        }
+
+        synchronized boolean awaitDeliveries(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (texts.size() < count && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            return texts.size() >= count;
+        }
+
+        List<String> messagesFor(String recipient) {
+            List<String> messages = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                if (!recipients.get(i).equals(recipient)) {
+                    continue;
+                }
+                String text = texts.get(i);
+                if (!text.startsWith("You have ")) {
+                    messages.add(text);
+                    continue;
+                }
+                for (String line : text.split(System.lineSeparator())) {
+                    if (line.startsWith("- ")) {
+                        messages.add(line.substring(2));
+                    }
+                }
+            }
+            return messages;
+        }
+    }
+}
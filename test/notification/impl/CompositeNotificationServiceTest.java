@@ -0,0 +1,109 @@
+package notification.impl;
+
+import notification.NotificationService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CompositeNotificationService: gửi tới mọi kênh, cô lập kênh lỗi, giới hạn tốc độ và thời gian chờ của luồng gọi
+ */
+class CompositeNotificationServiceTest {
+
+    @Test
+    void everyChannelReceivesAndFailuresStayIsolated() {
+        RecordingChannel email = new RecordingChannel();
+        RecordingChannel push = new RecordingChannel();
+        try (CompositeNotificationService service = new CompositeNotificationService()) {
+            service.addChannel("email", email)
+                    .addChannel("sms", (message, recipient) -> {
+                        throw new IllegalStateException("gateway down");
+                    })
+                    .addChannel("push", push);
+            for (int i = 0; i < 10; i++) {
+                service.sendNotification("message " + i, "user");
+            }
+
+            assertEquals(10, email.delivered.size());
+            assertEquals(10, push.delivered.size());
+            Map<String, CompositeNotificationService.ChannelStatistics> statistics = service.getChannelStatistics();
+            assertEquals(List.of("email", "sms", "push"), List.copyOf(statistics.keySet()));
+            assertEquals(10, statistics.get("email").getSent());
+            assertEquals(0, statistics.get("sms").getSent());
+            assertEquals(10, statistics.get("sms").getFailed());
+        }
+    }
+
+    @Test
+    void rateLimitedChannelDropsBeyondBurst() {
+        RecordingChannel sms = new RecordingChannel();
+        RecordingChannel email = new RecordingChannel();
+        try (CompositeNotificationService service = new CompositeNotificationService()) {
+            // Tốc độ nạp rất thấp nên trong lúc test chỉ có burst ban đầu được gửi
+            service.addChannel("sms", sms, 0.001, 3).addChannel("email", email);
+            for (int i = 0; i < 10; i++) {
+                service.sendNotification("message " + i, "user");
+            }
+
+            assertEquals(List.of("message 0", "message 1", "message 2"), sms.delivered);
+            assertEquals(10, email.delivered.size());
+            CompositeNotificationService.ChannelStatistics statistics = service.getChannelStatistics().get("sms");
+            assertEquals(3, statistics.getSent());
+            assertEquals(7, statistics.getDropped());
+        }
+    }
+
+    @Test
+    void callerStopsWaitingForSlowChannel() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingChannel fast = new RecordingChannel();
+        CountDownLatch slowDone = new CountDownLatch(1);
+        try (CompositeNotificationService service = new CompositeNotificationService(2, 10, 100)) {
+            service.addChannel("fast", fast).addChannel("slow", (message, recipient) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                slowDone.countDown();
+            });
+
+            long start = System.nanoTime();
+            service.sendNotification("hello", "user");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(elapsedMillis < 5_000, "waited " + elapsedMillis + "ms");
+            assertEquals(1, service.getTimedOutCount());
+            assertEquals(List.of("hello"), fast.delivered);
+            // Kênh chậm vẫn gửi tiếp ở nền
+            release.countDown();
+            assertTrue(slowDone.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void rejectsSendsAfterClose() {
+        CompositeNotificationService service = new CompositeNotificationService();
+        service.addChannel("email", new RecordingChannel());
+        service.close();
+        assertThrows(IllegalStateException.class, () -> service.sendNotification("late", "user"));
+        assertThrows(IllegalArgumentException.class, () -> new CompositeNotificationService(0, 10, 100));
+    }
+
+    private static class RecordingChannel implements NotificationService {
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void sendNotification(String message, String recipient) {
+            delivered.add(message);
+        }
+    }
+}
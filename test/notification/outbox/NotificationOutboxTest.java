@@ -0,0 +1,110 @@
+package notification.outbox;
+
+import notification.Notification;
+import notification.NotificationService;
+import notification.impl.OutboxNotificationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outbox: thông báo chưa ACK được gửi lại sau khi mở lại, dead letter không bị compact xóa mất
+ */
+class NotificationOutboxTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void unacknowledgedEntriesSurviveReopen() throws Exception {
+        Path file = directory.resolve("outbox");
+        try (NotificationOutbox outbox = new NotificationOutbox(file)) {
+            long first = outbox.append(new Notification("Sách đã sẵn sàng", "a@email.com"));
+            long second = outbox.append(new Notification("Sắp tới hạn trả", "b@email.com"));
+            outbox.acknowledge(first);
+            outbox.awaitDurable(second);
+        }
+        try (NotificationOutbox outbox = new NotificationOutbox(file)) {
+            List<NotificationOutbox.Entry> pending = outbox.pending();
+            assertEquals(1, pending.size());
+            assertEquals("b@email.com", pending.get(0).getNotification().getRecipient());
+            assertEquals("Sắp tới hạn trả", pending.get(0).getNotification().getMessage());
+        }
+    }
+
+    @Test
+    void deadLettersSurviveCompactionAndCanBeRequeued() {
+        Path file = directory.resolve("outbox");
+        try (NotificationOutbox outbox = new NotificationOutbox(file)) {
+            Notification notification = new Notification("Phí trễ hạn", "c@email.com");
+            outbox.deadLetter(new NotificationOutbox.Entry(outbox.append(notification), notification));
+            assertEquals(0, outbox.getPendingCount());
+        }
+        try (NotificationOutbox outbox = new NotificationOutbox(file)) {
+            assertTrue(outbox.pending().isEmpty());
+            assertEquals(1, outbox.deadLetters().size());
+            assertEquals("c@email.com", outbox.deadLetters().get(0).getNotification().getRecipient());
+
+            List<NotificationOutbox.Entry> requeued = outbox.requeueDeadLetters();
+            assertEquals(1, requeued.size());
+            assertTrue(outbox.deadLetters().isEmpty());
+            assertEquals(1, outbox.getPendingCount());
+        }
+        try (NotificationOutbox outbox = new NotificationOutbox(file)) {
+            assertEquals(1, outbox.pending().size());
+        }
+    }
+
+    @Test
+    void serviceDeadLettersAfterMaxAttemptsAndRedeliversOnRequeue() throws Exception {
+        Path file = directory.resolve("outbox");
+        FlakyChannel channel = new FlakyChannel();
+        channel.failing = true;
+        try (OutboxNotificationService service =
+                     new OutboxNotificationService(channel, new NotificationOutbox(file), 2)) {
+            service.sendNotification("Thẻ thư viện hết hạn", "d@email.com");
+            awaitTrue(() -> service.getDeadLetteredCount() == 1);
+            assertEquals(2, service.getFailedCount());
+            assertEquals(0, service.getPendingCount());
+        }
+
+        channel.failing = false;
+        try (OutboxNotificationService service =
+                     new OutboxNotificationService(channel, new NotificationOutbox(file), 2)) {
+            assertEquals(0, service.getReplayedCount());
+            assertEquals(1, service.getDeadLetters().size());
+            assertEquals(1, service.requeueDeadLetters());
+            awaitTrue(() -> service.getDeliveredCount() == 1);
+            assertEquals(List.of("d@email.com"), channel.delivered);
+            assertTrue(service.getDeadLetters().isEmpty());
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class FlakyChannel implements NotificationService {
+        private final List<String> delivered = new CopyOnWriteArrayList<>();
+        private volatile boolean failing;
+
+        @Override
+        public void sendNotification(String message, String recipient) {
+            if (failing) {
+                throw new IllegalStateException("Channel is down");
+            }
+            delivered.add(recipient);
+        }
+    }
+}
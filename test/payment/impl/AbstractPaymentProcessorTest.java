@@ -0,0 +1,123 @@
+package payment.impl;
+
+import org.junit.jupiter.api.Test;
+import payment.PaymentProcessor;
+import payment.PaymentRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Xử lý thanh toán bất đồng bộ: lỗi đi qua future, và số yêu cầu chưa xong có giới hạn
+ */
+class AbstractPaymentProcessorTest {
+    @Test
+    void defaultAsyncMethodsReportErrorsThroughTheFuture() {
+        PaymentProcessor failing = new PaymentProcessor() {
+            @Override
+            public boolean processPayment(double amount, String accountNumber) {
+                throw new IllegalStateException("Gateway down");
+            }
+
+            @Override
+            public String getPaymentMethod() {
+                return "Failing";
+            }
+
+            @Override
+            public List<Boolean> processPayments(List<PaymentRequest> payments) {
+                throw new IllegalStateException("Gateway down");
+            }
+        };
+
+        CompletableFuture<Boolean> single = failing.processPaymentAsync(10, "A1");
+        CompletionException error = assertThrows(CompletionException.class, single::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+
+        CompletableFuture<List<Boolean>> batch = failing.processPaymentsAsync(List.of(new PaymentRequest(10, "A1")));
+        assertThrows(CompletionException.class, batch::join);
+    }
+
+    @Test
+    void submissionsBlockOnceTheQueueIsFull() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        BlockingProcessor processor = new BlockingProcessor(gate);
+        // maxInFlight = 1: một yêu cầu đang chạy và 4 yêu cầu chờ
+        int capacity = 5;
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        CountDownLatch submitted = new CountDownLatch(capacity);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < capacity + 1; i++) {
+                futures.add(processor.processPaymentAsync(1, "A" + i));
+                submitted.countDown();
+            }
+        });
+        producer.start();
+
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+        // Yêu cầu thứ capacity + 1 phải chờ cho tới khi có chỗ
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        assertEquals(1, processor.started.get());
+
+        gate.countDown();
+        producer.join(5_000);
+        assertFalse(producer.isAlive());
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(capacity + 1, processor.started.get());
+    }
+
+    @Test
+    void batchLargerThanTheQueueStillCompletes() {
+        CountDownLatch open = new CountDownLatch(0);
+        BlockingProcessor processor = new BlockingProcessor(open);
+        List<PaymentRequest> payments = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            payments.add(new PaymentRequest(i == 50 ? -1 : 1, "A" + i));
+        }
+        List<Boolean> results = processor.processPayments(payments);
+        assertEquals(100, results.size());
+        assertFalse(results.get(50));
+        assertEquals(99, results.stream().filter(Boolean::booleanValue).count());
+    }
+
+    private static class BlockingProcessor extends AbstractPaymentProcessor {
+        private final CountDownLatch gate;
+        final AtomicInteger started = new AtomicInteger();
+
+        BlockingProcessor(CountDownLatch gate) {
+            super(1, 0);
+            this.gate = gate;
+        }
+
+        @Override
+        public boolean processPayment(double amount, String accountNumber) {
+            started.incrementAndGet();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return callGateway(amount, accountNumber);
+        }
+
+        @Override
+        public String getPaymentMethod() {
+            return "Blocking";
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package payment.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import payment.PaymentProcessor;
+import payment.PaymentUnavailableException;
+import payment.impl.FailoverPaymentProcessor.CircuitState;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FailoverPaymentProcessor: trạng thái circuit breaker và điều kiện chuyển sang backend kế tiếp
+ */
+class FailoverPaymentProcessorTest {
+    private static final long OPEN_MILLIS = 200;
+
+    private final StubBackend primary = new StubBackend("Primary");
+    private final StubBackend secondary = new StubBackend("Secondary");
+    private FailoverPaymentProcessor failover;
+
+    @AfterEach
+    void tearDown() {
+        primary.gate.countDown();
+        if (failover != null) {
+            failover.close();
+        }
+    }
+
+    @Test
+    void circuitOpensAtFailureThresholdAndSkipsBackend() {
+        failover = failover(2, 500);
+        primary.behavior.set(Behavior.SUCCEED);
+        assertTrue(failover.processPayment(10, "A1"));
+        assertTrue(failover.processPayment(10, "A1"));
+        primary.behavior.set(Behavior.UNAVAILABLE);
+        // Lỗi thứ nhất: 1/3 dưới ngưỡng 50%, mạch vẫn đóng và thanh toán chuyển sang backend kế tiếp
+        assertTrue(failover.processPayment(10, "A1"));
+        assertEquals(CircuitState.CLOSED, state("Primary"));
+        assertEquals(1, secondary.calls.get());
+        // Lỗi thứ hai: 2/4 chạm ngưỡng, mạch mở
+        assertTrue(failover.processPayment(10, "A1"));
+        assertEquals(CircuitState.OPEN, state("Primary"));
+
+        int primaryCalls = primary.calls.get();
+        assertTrue(failover.processPayment(10, "A1"));
+        assertEquals(primaryCalls, primary.calls.get());
+        assertEquals(3, secondary.calls.get());
+    }
+
+    @Test
+    void halfOpenAllowsSingleTrialThenCloses() throws Exception {
+        failover = failover(2, 2_000);
+        openPrimary();
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        primary.behavior.set(Behavior.BLOCK);
+        CompletableFuture<Boolean> trial = CompletableFuture.supplyAsync(() -> failover.processPayment(10, "A1"));
+        assertTrue(primary.entered.await(5, TimeUnit.SECONDS));
+        assertEquals(CircuitState.HALF_OPEN, state("Primary"));
+
+        // Lượt thử đang chạy: các thanh toán khác không được gửi tới backend đang half-open
+        int secondaryCalls = secondary.calls.get();
+        assertTrue(failover.processPayment(10, "A2"));
+        assertEquals(secondaryCalls + 1, secondary.calls.get());
+
+        primary.gate.countDown();
+        assertTrue(trial.get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitState.CLOSED, state("Primary"));
+    }
+
+    @Test
+    void failedTrialReopensCircuit() throws Exception {
+        failover = failover(2, 500);
+        openPrimary();
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        int primaryCalls = primary.calls.get();
+        assertTrue(failover.processPayment(10, "A1"));
+        assertEquals(primaryCalls + 1, primary.calls.get());
+        assertEquals(CircuitState.OPEN, state("Primary"));
+    }
+
+    @Test
+    void interruptedTrialReleasesPermission() throws Exception {
+        failover = failover(2, 5_000);
+        openPrimary();
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        primary.behavior.set(Behavior.BLOCK);
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                failover.processPayment(10, "A1");
+            } catch (RuntimeException e) {
+                error.set(e);
+            }
+        });
+        caller.start();
+        assertTrue(primary.entered.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(5_000);
+        assertTrue(error.get() instanceof IllegalStateException);
+
+        // Lượt thử bị bỏ dở không được ghi nhận, nhưng quyền thử phải được trả lại
+        assertEquals(CircuitState.HALF_OPEN, state("Primary"));
+        primary.behavior.set(Behavior.SUCCEED);
+        int primaryCalls = primary.calls.get();
+        assertTrue(failover.processPayment(10, "A2"));
+        assertEquals(primaryCalls + 1, primary.calls.get());
+        assertEquals(CircuitState.CLOSED, state("Primary"));
+    }
+
+    @Test
+    void failsOverOnlyWhenPaymentIsKnownNotCharged() {
+        // minimumCalls = cửa sổ: mạch chưa mở trong lúc kiểm tra từng loại kết quả
+        failover = failover(4, 200);
+
+        primary.behavior.set(Behavior.DECLINE);
+        assertFalse(failover.processPayment(10, "A1"));
+
+        primary.behavior.set(Behavior.ERROR);
+        assertThrows(IllegalStateException.class, () -> failover.processPayment(10, "A1"));
+
+        primary.behavior.set(Behavior.BLOCK);
+        assertThrows(IllegalStateException.class, () -> failover.processPayment(10, "A1"));
+        assertEquals(0, secondary.calls.get());
+
+        primary.behavior.set(Behavior.UNAVAILABLE);
+        assertTrue(failover.processPayment(10, "A1"));
+        assertEquals(1, secondary.calls.get());
+
+        secondary.behavior.set(Behavior.UNAVAILABLE);
+        assertThrows(PaymentUnavailableException.class, () -> failover.processPayment(10, "A1"));
+    }
+
+    @Test
+    void saturatedPoolRejectsWithoutCountingFailure() throws Exception {
+        failover = new FailoverPaymentProcessor(List.of(primary, secondary), 5_000, 4, 2, 0.5, OPEN_MILLIS, 1);
+        primary.behavior.set(Behavior.BLOCK);
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> failover.processPayment(10, "A1"));
+        assertTrue(primary.entered.await(5, TimeUnit.SECONDS));
+
+        assertThrows(PaymentUnavailableException.class, () -> failover.processPayment(10, "A2"));
+        assertEquals(0, secondary.calls.get());
+        assertEquals(0.0, failover.getBackendStatistics().get("Primary").getFailureRate());
+
+        primary.gate.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+    }
+
+    private FailoverPaymentProcessor failover(int minimumCalls, long timeoutMillis) {
+        return new FailoverPaymentProcessor(List.of(primary, secondary), timeoutMillis, 4, minimumCalls, 0.5,
+                OPEN_MILLIS);
+    }
+
+    private void openPrimary() {
+        primary.behavior.set(Behavior.UNAVAILABLE);
+        while (state("Primary") != CircuitState.OPEN) {
+            assertTrue(failover.processPayment(10, "A0"));
+        }
+    }
+
+    private CircuitState state(String backend) {
+        return failover.getBackendStatistics().get(backend).getState();
+    }
+
+    private enum Behavior {
+        SUCCEED,
+        DECLINE,
+        UNAVAILABLE,
+        ERROR,
+        BLOCK
+    }
+
+    private static class StubBackend implements PaymentProcessor {
+        private final String name;
+        final AtomicReference<Behavior> behavior = new AtomicReference<>(Behavior.SUCCEED);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        StubBackend(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean processPayment(double amount, String accountNumber) {
+            calls.incrementAndGet();
+            switch (behavior.get()) {
+                case DECLINE:
+                    return false;
+                case UNAVAILABLE:
+                    throw new PaymentUnavailableException(name + " unreachable");
+                case ERROR:
+                    throw new IllegalStateException(name + " failed after sending");
+                case BLOCK:
+                    entered.countDown();
+                    try {
+                        gate.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted", e);
+                    }
+                    return true;
+                default:
+                    return true;
+            }
+        }
+
+        @Override
+        public String getPaymentMethod() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package payment.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import payment.PaymentProcessor;
+import payment.PaymentRequest;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chống thanh toán trùng: kết quả theo khóa, lỗi không được lưu, mục đang chạy không bị loại,
+ * file kết quả bị ghi dở vẫn nạp được
+ */
+class IdempotentPaymentProcessorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void repeatedKeyReturnsCachedResultWithoutCharging() {
+        CountingGateway gateway = new CountingGateway();
+        IdempotentPaymentProcessor processor = new IdempotentPaymentProcessor(gateway);
+
+        assertTrue(processor.processPayment("K1", 5.0, "ACC-1"));
+        assertTrue(processor.processPayment("K1", 5.0, "ACC-1"));
+        assertEquals(1, gateway.calls("ACC-1"));
+        assertThrows(IllegalArgumentException.class, () -> processor.processPayment("K1", 7.0, "ACC-1"));
+    }
+
+    @Test
+    void failedBatchItemCanBeRetriedWithSameKey() {
+        CountingGateway gateway = new CountingGateway();
+        gateway.failuresLeft.set(1);
+        IdempotentPaymentProcessor processor = new IdempotentPaymentProcessor(gateway);
+
+        List<Boolean> first = processor.processPayments(List.of(new PaymentRequest("K1", 5.0, "ACC-1")));
+        assertEquals(List.of(false), first);
+        assertEquals(0, processor.size());
+
+        List<Boolean> retry = processor.processPayments(List.of(new PaymentRequest("K1", 5.0, "ACC-1")));
+        assertEquals(List.of(true), retry);
+        assertEquals(2, gateway.calls("ACC-1"));
+        // Thành công thì được lưu như đường đơn lẻ
+        assertTrue(processor.processPayment("K1", 5.0, "ACC-1"));
+        assertEquals(2, gateway.calls("ACC-1"));
+    }
+
+    @Test
+    void duplicateKeysInOneBatchChargeOnce() {
+        CountingGateway gateway = new CountingGateway();
+        IdempotentPaymentProcessor processor = new IdempotentPaymentProcessor(gateway);
+
+        List<Boolean> results = processor.processPayments(List.of(
+                new PaymentRequest("K1", 5.0, "ACC-1"),
+                new PaymentRequest("K1", 5.0, "ACC-1"),
+                new PaymentRequest(5.0, "ACC-2")));
+        assertEquals(List.of(true, true, true), results);
+        assertEquals(1, gateway.calls("ACC-1"));
+    }
+
+    @Test
+    void inFlightPaymentIsNeverEvicted() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingGateway gateway = new CountingGateway() {
+            @Override
+            public boolean processPayment(double amount, String accountNumber) {
+                if (accountNumber.equals("SLOW")) {
+                    started.countDown();
+                    await(release);
+                }
+                return super.processPayment(amount, accountNumber);
+            }
+        };
+        IdempotentPaymentProcessor processor = new IdempotentPaymentProcessor(gateway, 1, TimeUnit.HOURS.toMillis(1));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> slow = executor.submit(() -> processor.processPayment("SLOW-KEY", 5.0, "SLOW"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // Cache đầy (tối đa 1 mục) trong khi SLOW-KEY vẫn đang chạy
+            assertTrue(processor.processPayment("OTHER-KEY", 5.0, "ACC-2"));
+            Future<Boolean> retry = executor.submit(() -> processor.processPayment("SLOW-KEY", 5.0, "SLOW"));
+            release.countDown();
+            assertTrue(slow.get(5, TimeUnit.SECONDS));
+            assertTrue(retry.get(5, TimeUnit.SECONDS));
+            assertEquals(1, gateway.calls("SLOW"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void tornLastRecordIsTreatedAsTruncation() throws IOException {
+        Path file = directory.resolve("idempotency.bin");
+        CountingGateway gateway = new CountingGateway();
+        try (IdempotentPaymentProcessor processor =
+                     new IdempotentPaymentProcessor(gateway, 100, TimeUnit.HOURS.toMillis(1), file)) {
+            assertTrue(processor.processPayment("K1", 5.0, "ACC-1"));
+        }
+        // Bản ghi cuối ghi dở: độ dài khóa hợp lệ nhưng byte UTF-8 (modified) sai
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND))) {
+            out.writeShort(2);
+            out.write(new byte[] {(byte) 0xC0, 0x00});
+        }
+
+        try (IdempotentPaymentProcessor processor =
+                     new IdempotentPaymentProcessor(gateway, 100, TimeUnit.HOURS.toMillis(1), file)) {
+            assertEquals(1, processor.size());
+            assertTrue(processor.processPayment("K1", 5.0, "ACC-1"));
+            assertEquals(1, gateway.calls("ACC-1"));
+        }
+    }
+
+    @Test
+    void gatewayExceptionIsNotCached() {
+        CountingGateway gateway = new CountingGateway();
+        gateway.failuresLeft.set(1);
+        IdempotentPaymentProcessor processor = new IdempotentPaymentProcessor(gateway);
+
+        assertThrows(IllegalStateException.class, () -> processor.processPayment("K1", 5.0, "ACC-1"));
+        assertTrue(processor.processPayment("K1", 5.0, "ACC-1"));
+        assertEquals(1, processor.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gateway giả: đếm số lần tính tiền theo tài khoản, ném lỗi failuresLeft lần đầu
+     */
+    private static class CountingGateway implements PaymentProcessor {
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        private final AtomicInteger failuresLeft = new AtomicInteger();
+
+        @Override
+        public boolean processPayment(double amount, String accountNumber) {
+            calls.computeIfAbsent(accountNumber, account -> new AtomicInteger()).incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("Gateway timeout");
+            }
+            return true;
+        }
+
+        @Override
+        public String getPaymentMethod() {
+            return "Test";
+        }
+
+        int calls(String accountNumber) {
+            AtomicInteger count = calls.get(accountNumber);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package report.export;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import report.ExportableReport;
+import report.impl.BookReportExporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ReportExporter: dữ liệu ghi ra CSV và định dạng cột đọc lại phải giống hệt dữ liệu gốc
+ */
+class ReportExporterTest {
+    private static final List<String> HEADER = List.of("ID", "Title", "Author", "ISBN", "Available");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void columnarRoundTripAcrossRowGroups() {
+        // Nhiều hơn một row group, có null, chữ có dấu và ký tự đặc biệt
+        List<Book> books = books(ColumnarRowWriter.ROW_GROUP_SIZE + 1_234);
+        for (String name : new String[] {"books.col", "books.col.gz"}) {
+            File file = directory.resolve(name).toFile();
+            assertEquals(books.size(), new BookReportExporter(Stream::empty).exportToFile(file, books.stream()));
+
+            List<List<String>> header = new ArrayList<>();
+            List<Object[]> rows = new ArrayList<>();
+            assertEquals(books.size(), ColumnarReader.read(file, header::add, rows::add));
+
+            assertEquals(List.of(HEADER), header);
+            assertEquals(books.size(), rows.size());
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                assertArrayEquals(new Object[] {book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                        book.isAvailable()}, rows.get(i), name + " row " + i);
+            }
+        }
+    }
+
+    @Test
+    void csvRoundTripEscapesSpecialCharacters() throws IOException {
+        List<Book> books = books(5_000);
+        for (String name : new String[] {"books.csv", "books.csv.gz"}) {
+            File file = directory.resolve(name).toFile();
+            new BookReportExporter(Stream::empty).exportToFile(file, books.stream());
+
+            List<List<String>> records = parseCsv(read(file));
+            assertEquals(HEADER, records.get(0));
+            assertEquals(books.size() + 1, records.size());
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                // CSV không phân biệt null với chuỗi rỗng
+                String author = book.getAuthor() == null ? "" : book.getAuthor();
+                assertEquals(List.of(book.getId(), book.getTitle(), author, book.getIsbn(),
+                        String.valueOf(book.isAvailable())), records.get(i + 1), name + " row " + i);
+            }
+        }
+    }
+
+    @Test
+    void rowsOfOtherTypesAreSkipped() {
+        File file = directory.resolve("mixed.col").toFile();
+        Book book = new Book("B1", "Title", "Author", "978-0-13-235088-4");
+        assertEquals(1, new BookReportExporter(Stream::empty).exportToFile(file, Stream.of("text", book, 42)));
+        assertEquals(1, ColumnarReader.read(file, header -> { }, row -> assertEquals("B1", row[0])));
+    }
+
+    @Test
+    void readerRejectsOtherFormats() throws IOException {
+        File csv = directory.resolve("books.csv").toFile();
+        Files.writeString(csv.toPath(), "ID\r\n");
+        assertThrows(IllegalArgumentException.class, () -> ColumnarReader.read(csv, header -> { }, row -> { }));
+
+        File fake = directory.resolve("fake.col").toFile();
+        Files.writeString(fake.toPath(), "not columnar");
+        assertThrows(IllegalArgumentException.class, () -> ColumnarReader.read(fake, header -> { }, row -> { }));
+    }
+
+    @Test
+    void exportOfGivenDataIsOptionalForReports() {
+        ExportableReport report = new ExportableReport() {
+            @Override
+            public void exportToFile(File file) {
+            }
+
+            @Override
+            public String getSupportedFormats() {
+                return "none";
+            }
+        };
+        assertThrows(UnsupportedOperationException.class,
+                () -> report.exportToFile(directory.resolve("x.csv").toFile(), Stream.empty()));
+    }
+
+    private static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = switch (i % 4) {
+                case 0 -> "Title " + i;
+                case 1 -> "Lập trình \"Java\", tập " + i;
+                case 2 -> "Dòng 1\r\nDòng 2, " + i;
+                default -> "";
+            };
+            Book book = new Book("B" + i, title, i % 7 == 0 ? null : "Tác giả " + (i % 100), "978-0-13-235088-4");
+            book.setAvailable(i % 3 != 0);
+            books.add(book);
+        }
+        return books;
+    }
+
+    private static String read(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            InputStream source = file.getName().endsWith(".gz") ? new GZIPInputStream(in) : in;
+            return new String(source.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Bộ đọc CSV RFC 4180 tối giản cho test: ngoặc kép, "" và xuống dòng trong giá trị
+    private static List<List<String>> parseCsv(String text) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+                i++;
+            } else {
+                field.append(c);
+            }
+        }
+        return records;
+    }
+}
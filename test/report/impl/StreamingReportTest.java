@@ -0,0 +1,135 @@
+package report.impl;
+
+import model.Book;
+import model.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import report.ReportGenerator;
+import repository.impl.DatabaseBookRepository;
+import repository.impl.InMemoryMemberRepository;
+import repository.jdbc.ConnectionPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Báo cáo dạng stream: cùng nội dung như bản List, và cursor database trả kết nối khi stream đóng
+ */
+class StreamingReportTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    private PrintStream originalOut;
+    private ByteArrayOutputStream captured;
+
+    @BeforeEach
+    void captureOutput() {
+        originalOut = System.out;
+        captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void restoreOutput() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    void streamAndListProduceTheSameReport() {
+        List<Book> books = IntStream.range(0, 20)
+                .mapToObj(n -> new Book("B" + n, "Title " + n, "Author " + n, ISBN))
+                .collect(Collectors.toList());
+        books.get(3).setAvailable(false);
+        List<Member> members = List.of(new Member("M1", "An", "an@example.com", "0901234567"));
+
+        new BookReportGenerator().generateReport(books);
+        String fromList = drain();
+        new BookReportGenerator().generateReport(books.stream());
+        assertEquals(fromList, drain());
+        assertTrue(fromList.contains("Title 19"));
+
+        new MemberReportGenerator().generateReport(members);
+        fromList = drain();
+        new MemberReportGenerator().generateReport(members.stream());
+        assertEquals(fromList, drain());
+        assertTrue(fromList.contains("an@example.com"));
+    }
+
+    @Test
+    void legacyGeneratorReceivesCollectedList() {
+        List<List<?>> received = new ArrayList<>();
+        ReportGenerator legacy = new ReportGenerator() {
+            @Override
+            public void generateReport(List<?> data) {
+                received.add(data);
+            }
+
+            @Override
+            public String getReportType() {
+                return "Legacy";
+            }
+        };
+        legacy.generateReport(Stream.of("a", "b", "c"));
+        assertEquals(List.of(List.of("a", "b", "c")), received);
+    }
+
+    @Test
+    void databaseCursorReleasesConnectionWhenClosed() {
+        // Pool chỉ có một kết nối: nếu stream không trả kết nối thì thao tác sau sẽ bị chặn
+        try (ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                null, null, 1)) {
+            DatabaseBookRepository books = new DatabaseBookRepository(pool);
+            books.saveAll(IntStream.range(0, 2_000)
+                    .mapToObj(n -> new Book("B" + n, "Title " + n, "Author", ISBN))
+                    .collect(Collectors.toList()));
+
+            for (int round = 0; round < 3; round++) {
+                try (Stream<Book> all = books.streamAll()) {
+                    assertEquals(2_000, all.count());
+                }
+            }
+            // Đọc dở rồi đóng cũng phải trả kết nối
+            try (Stream<Book> all = books.streamAll()) {
+                Iterator<Book> iterator = all.iterator();
+                assertTrue(iterator.hasNext());
+                iterator.next();
+            }
+            assertEquals("Title 7", books.findById("B7").orElseThrow().getTitle());
+
+            drain();
+            try (Stream<Book> all = books.streamAll()) {
+                new BookReportGenerator().generateReport(all);
+            }
+            assertEquals(2_000, drain().split("---").length - 1);
+        }
+    }
+
+    @Test
+    void memberRepositoryStreamsAndCounts() {
+        InMemoryMemberRepository members = new InMemoryMemberRepository();
+        for (int i = 0; i < 100; i++) {
+            members.save(new Member("M" + i, "Member " + i, "m" + i + "@example.com", null));
+        }
+        assertEquals(100, members.count());
+        try (Stream<Member> all = members.streamAll()) {
+            assertEquals(100, all.map(Member::getId).distinct().count());
+        }
+    }
+
+    private String drain() {
+        String output = captured.toString(StandardCharsets.UTF_8);
+        captured.reset();
+        return output;
+    }
+}
@@ -0,0 +1,71 @@
+package repository.impl;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+import repository.BookRepository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AuthorIndex: findByAuthor qua chỉ mục phải trả đúng như quét toàn bộ với equalsIgnoreCase
+ */
+class AuthorIndexTest {
+
+    @Test
+    void foldMatchesEqualsIgnoreCase() {
+        String[] authors = {"Nguyễn Du", "NGUYỄN DU", "nguyễn du", "Straße", "STRASSE", "İstanbul", "istanbul", "ǅemal", "ǆemal"};
+        for (String a : authors) {
+            for (String b : authors) {
+                assertEquals(a.equalsIgnoreCase(b), AuthorIndex.fold(a).equals(AuthorIndex.fold(b)), a + " / " + b);
+            }
+        }
+        String lower = "already folded";
+        assertSame(lower, AuthorIndex.fold(lower));
+    }
+
+    @Test
+    void lookupIsCaseInsensitiveAndFollowsWrites() {
+        BookRepository repository = new InMemoryBookRepository();
+        repository.save(new Book("B1", "One", "Nam Cao", "isbn"));
+        repository.save(new Book("B2", "Two", "NAM CAO", "isbn"));
+        repository.save(new Book("B3", "Three", "To Hoai", "isbn"));
+
+        assertEquals(Set.of("B1", "B2"), ids(repository.findByAuthor("nam cao")));
+        assertTrue(repository.findByAuthor(null).isEmpty());
+        assertTrue(repository.findByAuthor("Unknown").isEmpty());
+
+        repository.update(new Book("B2", "Two", "To Hoai", "isbn"));
+        assertEquals(Set.of("B1"), ids(repository.findByAuthor("Nam Cao")));
+        assertEquals(Set.of("B2", "B3"), ids(repository.findByAuthor("to hoai")));
+
+        repository.delete("B3");
+        assertEquals(Set.of("B2"), ids(repository.findByAuthor("To Hoai")));
+    }
+
+    @Test
+    void updateAfterInPlaceMutationMovesTheBook() {
+        BookRepository repository = new InMemoryBookRepository();
+        Book book = new Book("B1", "One", "Old Author", "isbn");
+        repository.save(book);
+
+        // Sửa trực tiếp đối tượng đang lưu rồi mới update(): chỉ mục phải bỏ khóa cũ
+        book.setAuthor("New Author");
+        repository.update(book);
+        assertTrue(repository.findByAuthor("Old Author").isEmpty());
+        assertEquals(Set.of("B1"), ids(repository.findByAuthor("new author")));
+
+        book.setAuthor(null);
+        repository.update(book);
+        assertTrue(repository.findByAuthor("New Author").isEmpty());
+    }
+
+    private static Set<String> ids(List<Book> books) {
+        return books.stream().map(Book::getId).collect(Collectors.toSet());
+    }
+}
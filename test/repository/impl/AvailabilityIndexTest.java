@@ -0,0 +1,81 @@
+package repository.impl;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+import repository.BookRepository;
+import service.BookService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AvailabilityIndex: findAvailableBooks/countAvailable/count phải luôn khớp với trạng thái thật của từng Book
+ */
+class AvailabilityIndexTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    @Test
+    void countersFollowEveryKindOfWrite() {
+        for (BookRepository repository : List.of(new InMemoryBookRepository(), new ConcurrentBookRepository())) {
+            for (int i = 0; i < 10; i++) {
+                repository.save(new Book("B" + i, "Title " + i, "Author", ISBN));
+            }
+            assertEquals(10, repository.count());
+            assertEquals(10, repository.countAvailable());
+
+            assertTrue(repository.compareAndSetAvailable("B0", true, false));
+            Book returned = new Book("B1", "Title 1", "Author", ISBN);
+            returned.setAvailable(false);
+            repository.update(returned);
+            repository.delete("B2");
+            // update() lên ID chưa có không được thêm vào chỉ mục
+            repository.update(new Book("B99", "Ghost", "Author", ISBN));
+
+            assertEquals(9, repository.count());
+            assertEquals(7, repository.countAvailable());
+            Set<String> available = repository.findAvailableBooks().stream()
+                    .map(Book::getId).collect(Collectors.toSet());
+            assertEquals(Set.of("B3", "B4", "B5", "B6", "B7", "B8", "B9"), available);
+
+            BookService.BookStatistics statistics = new BookService(repository).getBookStatistics();
+            assertEquals(9, statistics.getTotalBooks());
+            assertEquals(7, statistics.getAvailableBooks());
+            assertEquals(2, statistics.getBorrowedBooks());
+        }
+    }
+
+    @Test
+    void concurrentBorrowAndReturnConvergeOnLatestState() throws Exception {
+        ConcurrentBookRepository repository = new ConcurrentBookRepository();
+        repository.save(new Book("B1", "Title", "Author", ISBN));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                boolean borrower = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        repository.compareAndSetAvailable("B1", borrower, !borrower);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        boolean available = repository.findById("B1").orElseThrow().isAvailable();
+        assertEquals(available ? 1 : 0, repository.countAvailable());
+        assertEquals(available ? 1 : 0, repository.findAvailableBooks().size());
+    }
+}
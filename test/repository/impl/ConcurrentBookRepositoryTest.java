@@ -0,0 +1,151 @@
+package repository.impl;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ConcurrentBookRepository: ghi song song trên các stripe khóa giữ store và các chỉ mục nhất quán,
+ * mượn/trả bằng CAS không khóa không bị lẫn với delete/update chạy song song
+ */
+class ConcurrentBookRepositoryTest {
+    @Test
+    void stripeCountMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBookRepository(0));
+        // Số stripe không phải lũy thừa của 2 vẫn dùng được
+        ConcurrentBookRepository repository = new ConcurrentBookRepository(3);
+        repository.save(book(1));
+        assertTrue(repository.findById("B1").isPresent());
+    }
+
+    @Test
+    void concurrentWritesKeepIndexesConsistent() throws Exception {
+        ConcurrentBookRepository repository = new ConcurrentBookRepository(4);
+        int threads = 8;
+        int perThread = 2_000;
+        runConcurrently(threads, t -> {
+            for (int i = 0; i < perThread; i++) {
+                int n = t * perThread + i;
+                repository.save(book(n));
+                if (n % 3 == 0) {
+                    repository.delete("B" + n);
+                } else if (n % 3 == 1) {
+                    Book updated = book(n);
+                    updated.setAvailable(false);
+                    repository.update(updated);
+                }
+            }
+        });
+
+        long expected = threads * perThread - (threads * perThread + 2) / 3;
+        assertEquals(expected, repository.count());
+        assertConsistent(repository);
+        assertEquals(repository.findAll().size(), repository.findByAuthor("AUTHOR 0").size()
+                + repository.findByAuthor("author 1").size());
+    }
+
+    @Test
+    void exactlyOneConcurrentBorrowWins() throws Exception {
+        ConcurrentBookRepository repository = new ConcurrentBookRepository();
+        for (int round = 0; round < 50; round++) {
+            repository.save(book(round));
+            String id = "B" + round;
+            AtomicInteger winners = new AtomicInteger();
+            runConcurrently(8, t -> {
+                if (repository.compareAndSetAvailable(id, true, false)) {
+                    winners.incrementAndGet();
+                }
+            });
+            assertEquals(1, winners.get(), id);
+            assertFalse(repository.findById(id).orElseThrow().isAvailable());
+        }
+        assertEquals(0, repository.countAvailable());
+        assertFalse(repository.compareAndSetAvailable("missing", true, false));
+    }
+
+    @Test
+    void borrowRacingWithDeleteAndReplaceKeepsIndexConsistent() throws Exception {
+        ConcurrentBookRepository repository = new ConcurrentBookRepository();
+        int books = 16;
+        for (int i = 0; i < books; i++) {
+            repository.save(book(i));
+        }
+        runConcurrently(8, t -> {
+            Random random = new Random(t);
+            for (int i = 0; i < 20_000; i++) {
+                String id = "B" + random.nextInt(books);
+                if (t == 0) {
+                    // Một luồng liên tục xóa và thay object Book trong store
+                    if (random.nextBoolean()) {
+                        repository.delete(id);
+                    }
+                    repository.save(book(Integer.parseInt(id.substring(1))));
+                } else if (random.nextBoolean()) {
+                    repository.compareAndSetAvailable(id, true, false);
+                } else {
+                    repository.compareAndSetAvailable(id, false, true);
+                }
+            }
+        });
+        assertConsistent(repository);
+
+        repository.delete("B0");
+        assertFalse(repository.compareAndSetAvailable("B0", true, false));
+        assertFalse(repository.compareAndSetAvailable("B0", false, true));
+        assertConsistent(repository);
+    }
+
+    static void assertConsistent(ConcurrentBookRepository repository) {
+        long available = repository.findAll().stream().filter(Book::isAvailable).count();
+        assertEquals(available, repository.countAvailable());
+        assertEquals(available, repository.findAvailableBooks().size());
+        for (Book book : repository.findAvailableBooks()) {
+            assertTrue(book.isAvailable());
+            assertTrue(repository.findById(book.getId()).filter(current -> current == book).isPresent());
+        }
+    }
+
+    static Book book(int n) {
+        return new Book("B" + n, "Title " + n, "Author " + (n % 2), "978-0-13-235088-4");
+    }
+
+    interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    static void runConcurrently(int threads, Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
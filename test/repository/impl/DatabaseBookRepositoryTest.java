@@ -0,0 +1,149 @@
+package repository.impl;
+
+import model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DatabaseBookRepository chạy trên H2 nhúng: đọc/ghi khứ hồi, thao tác hàng loạt và ghi song song
+ */
+class DatabaseBookRepositoryTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    private DatabaseBookRepository books;
+
+    @BeforeEach
+    void open() {
+        books = new DatabaseBookRepository("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    void close() {
+        books.close();
+    }
+
+    @Test
+    void singleRowRoundTrip() {
+        books.save(book(1, "Robert Martin"));
+        books.save(book(2, "ROBERT MARTIN"));
+        books.save(book(3, null));
+
+        Book found = books.findById("B1").orElseThrow();
+        assertEquals("Title 1", found.getTitle());
+        assertEquals(ISBN, found.getIsbn());
+        assertTrue(found.isAvailable());
+        assertEquals(2, books.findByAuthor("robert martin").size());
+
+        books.update(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+        assertEquals("Clean Code", books.findById("B1").orElseThrow().getTitle());
+        // save() lên ID đã có là ghi đè
+        books.save(new Book("B1", "Clean Code 2nd", "Robert Martin", ISBN));
+        assertEquals("Clean Code 2nd", books.findById("B1").orElseThrow().getTitle());
+
+        assertTrue(books.compareAndSetAvailable("B1", true, false));
+        assertFalse(books.compareAndSetAvailable("B1", true, false));
+        assertEquals(3, books.count());
+        assertEquals(2, books.countAvailable());
+        assertEquals(2, books.findAvailableBooks().size());
+
+        books.delete("B3");
+        assertTrue(books.findById("B3").isEmpty());
+        try (Stream<Book> all = books.streamAll()) {
+            assertEquals(Set.of("B1", "B2"), all.map(Book::getId).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    void batchWritesUpdateExistingAndInsertMissingRows() {
+        books.saveAll(IntStream.range(0, 1500).mapToObj(n -> book(n, "Author")).collect(Collectors.toList()));
+        // Nửa đã có (UPDATE), nửa mới (INSERT), vượt qua ranh giới BATCH_SIZE
+        List<Book> mixed = IntStream.range(1000, 2500)
+                .mapToObj(n -> new Book("B" + n, "Revised " + n, "Author", ISBN)).collect(Collectors.toList());
+        books.saveAll(mixed);
+
+        assertEquals(2500, books.count());
+        assertEquals("Title 999", books.findById("B999").orElseThrow().getTitle());
+        assertEquals("Revised 1000", books.findById("B1000").orElseThrow().getTitle());
+        assertEquals("Revised 2499", books.findById("B2499").orElseThrow().getTitle());
+
+        List<String> ids = IntStream.range(2000, 3200).mapToObj(n -> "B" + n).collect(Collectors.toList());
+        assertEquals(500, books.findExistingIds(ids).size());
+
+        books.updateAll(List.of(new Book("B0", "Updated", "Author", ISBN), new Book("B9999", "Ghost", "A", ISBN)));
+        assertEquals("Updated", books.findById("B0").orElseThrow().getTitle());
+        assertTrue(books.findById("B9999").isEmpty());
+
+        books.deleteAll(ids);
+        assertEquals(2000, books.count());
+    }
+
+    @Test
+    void concurrentBatchSavesOfOverlappingIdsAllSucceed() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * 50;
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 5; round++) {
+                        // Các luồng chồng lấn một nửa ID với luồng kế bên, nên INSERT thường đụng nhau
+                        books.saveAll(IntStream.range(offset, offset + 100)
+                                .mapToObj(n -> book(n, "Author")).collect(Collectors.toList()));
+                    }
+                }));
+                futures.add(executor.submit(() -> books.save(book(offset + 25, "Author"))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * 50 + 50, books.count());
+    }
+
+    @Test
+    void compareAndSetAvailableHasSingleWinner() throws Exception {
+        books.save(book(1, "Author"));
+        AtomicInteger winners = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> borrowers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                borrowers.add(() -> books.compareAndSetAvailable("B1", true, false));
+            }
+            for (Future<Boolean> result : executor.invokeAll(borrowers)) {
+                if (result.get()) {
+                    winners.incrementAndGet();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, winners.get());
+        assertEquals(0, books.countAvailable());
+    }
+
+    private static Book book(int n, String author) {
+        return new Book("B" + n, "Title " + n, author, ISBN);
+    }
+}
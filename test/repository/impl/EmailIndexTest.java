@@ -0,0 +1,97 @@
+package repository.impl;
+
+import model.Member;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * EmailIndex: findByEmail theo sau mọi thao tác ghi và một email chỉ thuộc về một thành viên
+ */
+class EmailIndexTest {
+
+    @Test
+    void lookupFollowsWrites() {
+        InMemoryMemberRepository members = new InMemoryMemberRepository();
+        members.save(new Member("M1", "An", "an@example.com", null));
+
+        assertEquals("M1", members.findByEmail("an@example.com").orElseThrow().getId());
+        assertFalse(members.findByEmail("AN@example.com").isPresent());
+        assertFalse(members.findByEmail(null).isPresent());
+
+        members.update(new Member("M1", "An", "an@new.example.com", null));
+        assertFalse(members.findByEmail("an@example.com").isPresent());
+        assertEquals("M1", members.findByEmail("an@new.example.com").orElseThrow().getId());
+
+        // Email cũ đã được giải phóng nên thành viên khác dùng lại được
+        members.save(new Member("M2", "Binh", "an@example.com", null));
+        assertEquals("M2", members.findByEmail("an@example.com").orElseThrow().getId());
+
+        members.delete("M1");
+        assertFalse(members.findByEmail("an@new.example.com").isPresent());
+        // update() lên ID chưa có không được giữ chỗ email
+        members.update(new Member("M9", "Ghost", "ghost@example.com", null));
+        assertFalse(members.findByEmail("ghost@example.com").isPresent());
+    }
+
+    @Test
+    void duplicateEmailLeavesRepositoryUnchanged() {
+        InMemoryMemberRepository members = new InMemoryMemberRepository();
+        members.save(new Member("M1", "An", "an@example.com", null));
+        members.save(new Member("M2", "Binh", "binh@example.com", null));
+
+        assertThrows(IllegalStateException.class, () -> members.save(new Member("M3", "Chi", "an@example.com", null)));
+        assertThrows(IllegalStateException.class, () -> members.update(new Member("M2", "Binh", "an@example.com", null)));
+
+        assertEquals(2, members.count());
+        assertFalse(members.findById("M3").isPresent());
+        assertEquals("binh@example.com", members.findById("M2").orElseThrow().getEmail());
+        assertEquals("M2", members.findByEmail("binh@example.com").orElseThrow().getId());
+    }
+
+    @Test
+    void concurrentRegistrationsWithSameEmailHaveOneWinner() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            InMemoryMemberRepository members = new InMemoryMemberRepository();
+            int threads = 8;
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger winners = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    String id = "M" + t;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            members.save(new Member(id, "Same", "same@example.com", null));
+                            winners.incrementAndGet();
+                        } catch (IllegalStateException expected) {
+                            // thua cuộc đua giữ chỗ email
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(1, winners.get());
+            assertEquals(1, members.count());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package repository.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * LongKeyMap: bảng địa chỉ mở phải khớp với HashMap qua resize và xóa dịch lùi
+ */
+class LongKeyMapTest {
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        LongKeyMap<String> map = new LongKeyMap<>();
+        Map<Long, String> oracle = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Khoảng khóa nhỏ để put/remove hay trúng khóa đã có và tạo chuỗi va chạm dài
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(oracle.remove(key), map.remove(key), "remove " + key);
+            } else {
+                String value = "v" + i;
+                assertEquals(oracle.put(key, value), map.put(key, value), "put " + key);
+            }
+        }
+        assertEquals(oracle.size(), map.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertEquals(oracle.get(key), map.get(key), "get " + key);
+        }
+        assertEquals(new HashSet<>(oracle.values()), new HashSet<>(map.values()));
+    }
+
+    @Test
+    void keysDifferingOnlyInHighBitsStayReachableAfterDeletes() {
+        LongKeyMap<Long> map = new LongKeyMap<>();
+        for (long i = 1; i <= 1_000; i++) {
+            map.put(i << 50, i);
+        }
+        for (long i = 1; i <= 1_000; i += 2) {
+            assertEquals(i, map.remove(i << 50));
+        }
+        assertEquals(500, map.size());
+        for (long i = 1; i <= 1_000; i++) {
+            assertEquals(i % 2 == 0 ? Long.valueOf(i) : null, map.get(i << 50));
+        }
+    }
+
+    @Test
+    void missingKeysAndReservedZero() {
+        LongKeyMap<String> map = new LongKeyMap<>();
+        assertNull(map.get(7));
+        assertNull(map.remove(7));
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "x"));
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,139 @@
+package repository.impl;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MappedBookRepository: snapshot map vào bộ nhớ cộng lớp phủ overlay phải hành xử như một repository thường
+ */
+class MappedBookRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void opensLazilyAndAnswersFromSnapshot() {
+        MappedBookRepository repository = open(1_000);
+
+        assertEquals(1_000, repository.count());
+        assertEquals(500, repository.countAvailable());
+        assertEquals(0, repository.getOverlaySize());
+        assertEquals("Title 42", repository.findById("B42").orElseThrow().getTitle());
+        assertEquals(1, repository.getOverlaySize());
+        assertFalse(repository.findById("missing").isPresent());
+        assertEquals(100, repository.findByAuthor("AUTHOR 7").size());
+        assertEquals(500, repository.findAvailableBooks().size());
+    }
+
+    @Test
+    void writesShadowSnapshotRows() {
+        MappedBookRepository repository = open(100);
+
+        repository.delete("B1");
+        Book renamed = book(2);
+        renamed.setAuthor("Someone Else");
+        repository.update(renamed);
+        repository.save(book(100));
+        assertTrue(repository.compareAndSetAvailable("B0", true, false));
+        assertFalse(repository.compareAndSetAvailable("B1", true, false));
+
+        assertFalse(repository.findById("B1").isPresent());
+        assertEquals(100, repository.count());
+        assertEquals(50, repository.countAvailable());
+        assertEquals(List.of("B2"), ids(repository.findByAuthor("someone else")));
+        assertFalse(ids(repository.findByAuthor("author 2")).contains("B2"));
+        assertFalse(ids(repository.findAvailableBooks()).contains("B0"));
+        assertEquals(repository.countAvailable(), repository.findAvailableBooks().size());
+        assertStreamsEachIdOnce(repository, 100);
+    }
+
+    @Test
+    void rewrittenSnapshotKeepsOverlayChanges() {
+        MappedBookRepository repository = open(100);
+        repository.delete("B3");
+        repository.save(book(500));
+        assertTrue(repository.compareAndSetAvailable("B0", true, false));
+
+        Path next = directory.resolve("next.snapshot");
+        assertEquals(100, repository.writeSnapshot(next));
+        MappedBookRepository reopened = new MappedBookRepository(next);
+        assertEquals(100, reopened.count());
+        assertFalse(reopened.findById("B3").isPresent());
+        assertTrue(reopened.findById("B500").isPresent());
+        assertFalse(reopened.findById("B0").orElseThrow().isAvailable());
+        assertEquals(repository.countAvailable(), reopened.countAvailable());
+    }
+
+    @Test
+    void streamSeesEveryBookOnceWhileRowsAreMaterialized() throws Exception {
+        int size = 20_000;
+        MappedBookRepository repository = open(size);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Luồng khác liên tục materialize/ghi lại các dòng snapshot trong lúc duyệt
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < size; i++) {
+                    if (i % 2 == 0) {
+                        repository.findById("B" + i);
+                    } else {
+                        repository.update(book(i));
+                    }
+                }
+            });
+            while (!writer.isDone()) {
+                assertStreamsEachIdOnce(repository, size);
+            }
+            writer.get(30, TimeUnit.SECONDS);
+            assertStreamsEachIdOnce(repository, size);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MappedBookRepository open(int size) {
+        Path file = directory.resolve("catalog-" + size + ".snapshot");
+        MappedBookRepository.writeSnapshot(file, IntStream.range(0, size).mapToObj(MappedBookRepositoryTest::book));
+        return new MappedBookRepository(file);
+    }
+
+    private static void assertStreamsEachIdOnce(MappedBookRepository repository, int expected) {
+        List<String> ids;
+        try (Stream<Book> books = repository.streamAll()) {
+            ids = books.map(Book::getId).collect(Collectors.toList());
+        }
+        Set<String> unique = new HashSet<>(ids);
+        assertEquals(ids.size(), unique.size());
+        assertEquals(expected, unique.size());
+    }
+
+    private static List<String> ids(List<Book> books) {
+        List<String> ids = new ArrayList<>();
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+
+    private static Book book(int n) {
+        Book book = new Book("B" + n, "Title " + n, "Author " + (n % 10), "978-0-13-235088-4");
+        book.setAvailable(n % 2 == 0);
+        return book;
+    }
+}
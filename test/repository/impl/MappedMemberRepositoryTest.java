@@ -0,0 +1,88 @@
+package repository.impl;
+
+import model.Member;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MappedMemberRepository: tra cứu email/tên trên snapshot và ràng buộc email duy nhất giữa snapshot và overlay
+ */
+class MappedMemberRepositoryTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsMembersByIdEmailAndName() {
+        MappedMemberRepository repository = open(200);
+
+        assertEquals(200, repository.count());
+        assertEquals("Member 7", repository.findById("M7").orElseThrow().getName());
+        assertEquals("M8", repository.findByEmail("member8@email.com").orElseThrow().getId());
+        assertFalse(repository.findByEmail("nobody@email.com").isPresent());
+        assertEquals(Set.of("M12", "M120", "M121", "M122", "M123", "M124", "M125", "M126", "M127", "M128",
+                "M129"), ids(repository.findByName("member 12")));
+    }
+
+    @Test
+    void emailStaysUniqueAcrossSnapshotAndOverlay() {
+        MappedMemberRepository repository = open(10);
+
+        assertThrows(IllegalStateException.class,
+                () -> repository.save(new Member("M99", "Copy", "member3@email.com", null)));
+        assertFalse(repository.findById("M99").isPresent());
+
+        // Đổi email giải phóng email cũ của bản snapshot
+        repository.update(new Member("M3", "Member 3", "new3@email.com", null));
+        assertFalse(repository.findByEmail("member3@email.com").isPresent());
+        assertEquals("M3", repository.findByEmail("new3@email.com").orElseThrow().getId());
+        repository.save(new Member("M99", "Copy", "member3@email.com", null));
+        assertEquals("M99", repository.findByEmail("member3@email.com").orElseThrow().getId());
+
+        // Xóa cũng giải phóng email
+        repository.delete("M4");
+        repository.save(new Member("M100", "Other", "member4@email.com", null));
+        assertEquals(11, repository.count());
+    }
+
+    @Test
+    void deletedAndUpdatedRowsAreStreamedOnce() {
+        MappedMemberRepository repository = open(50);
+        repository.delete("M1");
+        repository.update(new Member("M2", "Renamed", "member2@email.com", null));
+        repository.findById("M3");
+
+        List<String> ids;
+        try (Stream<Member> members = repository.streamAll()) {
+            ids = members.map(Member::getId).collect(Collectors.toList());
+        }
+        assertEquals(49, ids.size());
+        assertEquals(49, new HashSet<>(ids).size());
+        assertFalse(ids.contains("M1"));
+        assertTrue(ids(repository.findByName("renamed")).contains("M2"));
+        assertFalse(ids(repository.findByName("member 2")).contains("M2"));
+    }
+
+    private MappedMemberRepository open(int size) {
+        Path file = directory.resolve("members-" + size + ".snapshot");
+        MappedMemberRepository.writeSnapshot(file, IntStream.range(0, size)
+                .mapToObj(n -> new Member("M" + n, "Member " + n, "member" + n + "@email.com", "0123456789")));
+        return new MappedMemberRepository(file);
+    }
+
+    private static Set<String> ids(List<Member> members) {
+        return members.stream().map(Member::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,80 @@
+package repository.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * NameIndex: tìm chuỗi con không phân biệt hoa/thường, kể cả truy vấn ngắn 1-2 ký tự
+ */
+class NameIndexTest {
+    @Test
+    void shortAndLongQueriesMatchSubstrings() {
+        NameIndex index = new NameIndex();
+        index.index("M1", "Nguyễn Văn An");
+        index.index("M2", "Trần Thị Bình");
+        index.index("M3", "Anna");
+
+        assertEquals(Set.of("M1", "M3"), Set.copyOf(index.search("a")));
+        assertEquals(Set.of("M1", "M3"), Set.copyOf(index.search("AN")));
+        assertEquals(Set.of("M2"), Set.copyOf(index.search("bìn")));
+        assertEquals(Set.of("M1"), Set.copyOf(index.search("văn an")));
+        assertTrue(index.search("zz").isEmpty());
+        assertEquals(3, index.search("").size());
+    }
+
+    @Test
+    void renameAndRemoveUnlinkOldGrams() {
+        NameIndex index = new NameIndex();
+        index.index("M1", "Alice");
+        index.index("M1", "Bob");
+        assertTrue(index.search("al").isEmpty());
+        assertEquals(List.of("M1"), index.search("b"));
+
+        index.remove("M1");
+        assertTrue(index.search("b").isEmpty());
+        assertTrue(index.search("bob").isEmpty());
+    }
+
+    @Test
+    void resultsMatchBruteForceScan() {
+        Random random = new Random(42);
+        NameIndex index = new NameIndex();
+        Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String name = randomName(random);
+            names.put("M" + i, name);
+            index.index("M" + i, name);
+        }
+        for (int i = 0; i < 200; i++) {
+            String name = randomName(random);
+            int from = random.nextInt(name.length());
+            String query = name.substring(from, Math.min(name.length(), from + 1 + random.nextInt(5)));
+            Set<String> expected = new HashSet<>();
+            names.forEach((id, candidate) -> {
+                if (NameIndex.fold(candidate).contains(NameIndex.fold(query))) {
+                    expected.add(id);
+                }
+            });
+            assertEquals(expected, Set.copyOf(index.search(query)), query);
+        }
+    }
+
+    private static String randomName(Random random) {
+        String letters = "abcdeghiklmnoptuvyABCDEGHIKLMNOPTUVY ";
+        StringBuilder name = new StringBuilder();
+        int length = 3 + random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            name.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package repository.impl;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * OffHeapBookRepository: view flyweight tuân theo hợp đồng của Book, compact giữ view còn sống, close()
+ */
+class OffHeapBookRepositoryTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    @Test
+    void viewsReadAndWriteThroughToTheRepository() {
+        OffHeapBookRepository books = new OffHeapBookRepository();
+        books.save(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+        books.save(new Book("B2", "Refactoring", "Martin Fowler", ISBN));
+
+        Book view = books.findById("B1").orElseThrow();
+        view.setTitle("Clean Code 2nd");
+        assertTrue(view.compareAndSetAvailable(true, false));
+        assertEquals("Clean Code 2nd", books.findById("B1").orElseThrow().getTitle());
+        assertFalse(books.findById("B1").orElseThrow().isAvailable());
+        assertEquals(1, books.countAvailable());
+        assertEquals(1, books.findByAuthor("ROBERT MARTIN").size());
+        assertEquals("B2", books.findAvailableBooks().get(0).getId());
+    }
+
+    @Test
+    void changingIdDetachesTheViewLikeAPlainBook() {
+        OffHeapBookRepository books = new OffHeapBookRepository();
+        books.save(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+
+        Book view = books.findById("B1").orElseThrow();
+        view.setId("B9");
+        view.setTitle("Copy");
+        assertEquals("B9", view.getId());
+        assertEquals("Copy", view.getTitle());
+        assertEquals("Robert Martin", view.getAuthor());
+        // Repository không đổi cho tới khi lưu bản đã tách
+        assertEquals("Clean Code", books.findById("B1").orElseThrow().getTitle());
+        assertTrue(books.findById("B9").isEmpty());
+
+        books.save(view);
+        assertEquals("Copy", books.findById("B9").orElseThrow().getTitle());
+        assertEquals(2, books.count());
+    }
+
+    @Test
+    void settersOnDeletedBookViewBehaveLikeAPlainBook() {
+        OffHeapBookRepository books = new OffHeapBookRepository();
+        books.save(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+        Book view = books.findById("B1").orElseThrow();
+        books.delete("B1");
+
+        view.setTitle("Gone");
+        assertEquals("Gone", view.getTitle());
+        view.setAvailable(true);
+        assertTrue(view.isAvailable());
+        assertTrue(view.compareAndSetAvailable(true, false));
+        assertFalse(view.isAvailable());
+        assertTrue(books.findById("B1").isEmpty());
+        assertEquals(0, books.countAvailable());
+    }
+
+    @Test
+    void compactionReclaimsWasteAndKeepsLiveViews() {
+        OffHeapBookRepository books = new OffHeapBookRepository();
+        for (int i = 0; i < 1000; i++) {
+            books.save(new Book("B" + i, "Title " + i, "Author " + (i % 10), ISBN));
+        }
+        Book live = books.findById("B1").orElseThrow();
+        Book deleted = books.findById("B2").orElseThrow();
+        books.delete("B2");
+        for (int i = 0; i < 1000; i++) {
+            if (i != 2) {
+                books.update(new Book("B" + i, "Revised " + i, "Writer", ISBN));
+            }
+        }
+        assertTrue(books.getWastedBytes() > 0);
+
+        books.compact();
+        assertEquals(0, books.getWastedBytes());
+        assertEquals(1, books.getAuthorCount());
+        assertEquals("Revised 1", live.getTitle());
+        assertNull(deleted.getTitle());
+        assertEquals(999, books.count());
+        try (Stream<Book> all = books.streamAll()) {
+            assertEquals(999, all.filter(book -> book.getTitle().startsWith("Revised")).count());
+        }
+    }
+
+    @Test
+    void closedRepositoryRejectsUse() {
+        OffHeapBookRepository books = new OffHeapBookRepository();
+        books.save(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+        Book view = books.findById("B1").orElseThrow();
+        books.close();
+
+        assertThrows(IllegalStateException.class, () -> books.findById("B1"));
+        assertThrows(IllegalStateException.class, () -> books.save(new Book("B2", "T", "A", ISBN)));
+        assertThrows(IllegalStateException.class, view::getTitle);
+    }
+}
@@ -0,0 +1,97 @@
+package repository.impl;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+import util.IdCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PrimitiveKeyBookRepository: khóa long và khóa chuỗi dự phòng phải cho cùng kết quả như repository thường
+ */
+class PrimitiveKeyBookRepositoryTest {
+
+    @Test
+    void servesEncodableAndFallbackIdsAlike() {
+        PrimitiveKeyBookRepository repository = new PrimitiveKeyBookRepository();
+        String longId = "BOOK-0000000001";
+        repository.save(new Book("B1", "Short", "Author A", "isbn-1"));
+        repository.save(new Book(longId, "Long", "Author A", "isbn-2"));
+
+        assertEquals(2, repository.count());
+        assertEquals("Short", repository.findById("B1").orElseThrow().getTitle());
+        assertEquals("Short", repository.findByKey(IdCodec.encode("B1")).orElseThrow().getTitle());
+        assertEquals("Long", repository.findById(longId).orElseThrow().getTitle());
+        assertEquals(2, repository.findByAuthor("Author A").size());
+        assertEquals(2, repository.countAvailable());
+
+        assertTrue(repository.compareAndSetAvailable(longId, true, false));
+        assertEquals(1, repository.countAvailable());
+        assertEquals(List.of("B1"), repository.findAvailableBooks().stream()
+                .map(Book::getId).collect(Collectors.toList()));
+
+        repository.delete("B1");
+        repository.delete(longId);
+        assertEquals(0, repository.count());
+        assertEquals(0, repository.countAvailable());
+        assertTrue(repository.findByAuthor("Author A").isEmpty());
+    }
+
+    @Test
+    void updateOfMissingBookIsIgnoredAndReindexesAuthor() {
+        PrimitiveKeyBookRepository repository = new PrimitiveKeyBookRepository();
+        repository.update(new Book("B9", "Ghost", "Nobody", "isbn"));
+        assertFalse(repository.findById("B9").isPresent());
+        assertEquals(0, repository.count());
+
+        repository.save(new Book("B1", "Title", "Old", "isbn"));
+        repository.update(new Book("B1", "Title", "New", "isbn"));
+        assertTrue(repository.findByAuthor("Old").isEmpty());
+        assertEquals(1, repository.findByAuthor("New").size());
+    }
+
+    @Test
+    void readersSeeEveryBookWhileWritersResizeTheTable() throws Exception {
+        PrimitiveKeyBookRepository repository = new PrimitiveKeyBookRepository();
+        int stable = 1_000;
+        for (int i = 0; i < stable; i++) {
+            repository.save(new Book("S" + i, "Title " + i, "Author", "isbn"));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            // Ghi thêm nhiều sách mới để bảng phải resize trong khi luồng đọc dùng optimistic read
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    repository.save(new Book("N" + i, "New", "Writer", "isbn"));
+                }
+            }));
+            for (int reader = 0; reader < 3; reader++) {
+                futures.add(executor.submit(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        for (int i = 0; i < stable; i++) {
+                            assertTrue(repository.findById("S" + i).isPresent(), "S" + i);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(stable + 50_000, repository.count());
+        assertEquals(stable + 50_000, repository.countAvailable());
+    }
+}
@@ -0,0 +1,71 @@
+package repository.jdbc;
+
+import org.junit.jupiter.api.Test;
+import repository.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ConnectionPool trên H2 nhúng: tái sử dụng, thay kết nối hỏng, close() chờ kết nối đang mượn
+ */
+class ConnectionPoolTest {
+    private static String url() {
+        return "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Test
+    void idleConnectionIsReused() {
+        try (ConnectionPool pool = new ConnectionPool(url(), null, null, 2)) {
+            Connection first;
+            try (PooledConnection connection = pool.acquire()) {
+                first = connection.connection();
+            }
+            try (PooledConnection connection = pool.acquire()) {
+                assertSame(first, connection.connection());
+            }
+        }
+    }
+
+    @Test
+    void brokenConnectionIsReplacedOnBorrow() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(url(), null, null, 1)) {
+            Connection broken;
+            try (PooledConnection connection = pool.acquire()) {
+                broken = connection.connection();
+                broken.close();
+            }
+            // Pool chỉ có một chỗ: kết nối hỏng phải được trả lại chỗ thì mới mở được kết nối mới
+            try (PooledConnection connection = pool.acquire()) {
+                assertNotSame(broken, connection.connection());
+                assertTrue(connection.connection().isValid(1));
+            }
+        }
+    }
+
+    @Test
+    void closeWaitsForBorrowedConnections() throws Exception {
+        ConnectionPool pool = new ConnectionPool(url(), null, null, 2);
+        PooledConnection borrowed = pool.acquire();
+        CompletableFuture<Void> closing = CompletableFuture.runAsync(pool::close);
+
+        assertThrows(TimeoutException.class, () -> closing.get(200, TimeUnit.MILLISECONDS));
+        // Kết nối đang mượn vẫn dùng được trong lúc pool đang đóng
+        assertFalse(borrowed.connection().isClosed());
+        assertThrows(DataAccessException.class, pool::acquire);
+
+        borrowed.close();
+        closing.get(5, TimeUnit.SECONDS);
+        assertTrue(borrowed.connection().isClosed());
+    }
+}
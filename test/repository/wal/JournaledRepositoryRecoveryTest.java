@@ -0,0 +1,235 @@
+package repository.wal;
+
+import model.Book;
+import model.Member;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Khôi phục JournaledBookRepository/JournaledMemberRepository sau crash:
+ * đuôi WAL ghi dở, snapshot chụp trong lúc có ghi song song, và ghi log thất bại
+ */
+class JournaledRepositoryRecoveryTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void truncatedTailIsDiscardedAndLogStaysWritable() throws IOException {
+        try (JournaledBookRepository books = new JournaledBookRepository(directory)) {
+            for (int i = 0; i < 100; i++) {
+                books.save(book(i));
+            }
+        }
+        // Crash giữa lúc ghi bản ghi cuối: chỉ một phần của nó nằm trên đĩa
+        Path segment = lastSegment(directory.resolve("books-wal"));
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.truncate(file.size() - 5);
+        }
+
+        try (JournaledBookRepository books = new JournaledBookRepository(directory)) {
+            assertEquals(99, books.getRecoveredRecordCount());
+            assertEquals(99, books.count());
+            assertTrue(books.findById("B99").isEmpty());
+            books.save(book(100));
+        }
+        try (JournaledBookRepository books = new JournaledBookRepository(directory)) {
+            assertEquals(100, books.count());
+            assertTrue(books.findById("B100").isPresent());
+        }
+    }
+
+    @Test
+    void garbageAfterLastRecordIsIgnored() throws IOException {
+        try (JournaledMemberRepository members = new JournaledMemberRepository(directory)) {
+            for (int i = 0; i < 10; i++) {
+                members.save(member(i));
+            }
+        }
+        // Header hợp lệ về độ dài nhưng CRC sai, như khi trang cuối chỉ được ghi một nửa
+        Path segment = lastSegment(directory.resolve("members-wal"));
+        ByteBuffer garbage = ByteBuffer.allocate(4 + 4 + 8 + 8);
+        garbage.putInt(8).putInt(0xDEADBEEF).putLong(11).putLong(42).flip();
+        Files.write(segment, garbage.array(), StandardOpenOption.APPEND);
+
+        try (JournaledMemberRepository members = new JournaledMemberRepository(directory)) {
+            assertEquals(10, members.getRecoveredRecordCount());
+            assertEquals(10, members.count());
+            members.save(member(10));
+        }
+        try (JournaledMemberRepository members = new JournaledMemberRepository(directory)) {
+            assertEquals(11, members.count());
+        }
+    }
+
+    @Test
+    void snapshotTakenDuringWritesReplaysToFinalState() throws Exception {
+        Map<String, String> expected;
+        try (JournaledBookRepository books = new JournaledBookRepository(directory)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread writer = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (running.get()) {
+                        int n = random.nextInt(200);
+                        String id = "B" + n;
+                        switch (random.nextInt(4)) {
+                            case 0:
+                                books.save(book(n));
+                                break;
+                            case 1:
+                                books.update(new Book(id, "Revised " + random.nextInt(1000), "Author", ISBN));
+                                break;
+                            case 2:
+                                books.delete(id);
+                                break;
+                            default:
+                                books.compareAndSetAvailable(id, true, false);
+                                break;
+                        }
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            for (int i = 0; i < 20; i++) {
+                books.snapshot();
+                Thread.sleep(5);
+            }
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            expected = state(books.streamAll());
+        }
+
+        try (JournaledBookRepository books = new JournaledBookRepository(directory)) {
+            assertEquals(expected, state(books.streamAll()));
+        }
+    }
+
+    @Test
+    void repeatedSnapshotWithoutWritesKeepsActiveSegment() {
+        // Snapshot định kỳ khi không có ghi mới: lần thứ hai không được xóa segment đang ghi
+        try (JournaledBookRepository books = new JournaledBookRepository(directory)) {
+            books.save(book(1));
+            books.snapshot();
+            books.snapshot();
+            books.save(book(2));
+        }
+        try (JournaledBookRepository books = new JournaledBookRepository(directory)) {
+            assertEquals(2, books.count());
+            assertTrue(books.findById("B2").isPresent());
+        }
+
+        try (JournaledMemberRepository members = new JournaledMemberRepository(directory)) {
+            members.save(member(1));
+            members.snapshot();
+            members.snapshot();
+            members.save(member(2));
+        }
+        try (JournaledMemberRepository members = new JournaledMemberRepository(directory)) {
+            assertEquals(2, members.count());
+            assertTrue(members.findByEmail("member2@email.com").isPresent());
+        }
+    }
+
+    @Test
+    void duplicateEmailIsRejectedBeforeLogging() {
+        try (JournaledMemberRepository members = new JournaledMemberRepository(directory)) {
+            members.save(member(1));
+            assertThrows(IllegalStateException.class,
+                    () -> members.save(new Member("M2", "Other", "member1@email.com", "0123456789")));
+            assertTrue(members.findById("M2").isEmpty());
+        }
+        try (JournaledMemberRepository members = new JournaledMemberRepository(directory)) {
+            assertEquals(1, members.getRecoveredRecordCount());
+            assertTrue(members.findById("M2").isEmpty());
+        }
+    }
+
+    @Test
+    void failedAppendLeavesBookStoreUnchanged() {
+        JournaledBookRepository books = new JournaledBookRepository(directory);
+        books.save(book(1));
+        books.close();
+
+        assertThrows(IllegalStateException.class, () -> books.save(book(2)));
+        assertTrue(books.findById("B2").isEmpty());
+
+        assertThrows(IllegalStateException.class,
+                () -> books.update(new Book("B1", "Changed", "Author", ISBN)));
+        assertEquals("Title 1", books.findById("B1").orElseThrow().getTitle());
+
+        assertThrows(IllegalStateException.class, () -> books.compareAndSetAvailable("B1", true, false));
+        assertTrue(books.findById("B1").orElseThrow().isAvailable());
+
+        assertThrows(IllegalStateException.class, () -> books.delete("B1"));
+        assertTrue(books.findById("B1").isPresent());
+    }
+
+    @Test
+    void failedAppendLeavesMemberStoreUnchanged() {
+        JournaledMemberRepository members = new JournaledMemberRepository(directory);
+        members.save(member(1));
+        members.close();
+
+        assertThrows(IllegalStateException.class, () -> members.save(member(2)));
+        assertTrue(members.findById("M2").isEmpty());
+        assertTrue(members.findByEmail("member2@email.com").isEmpty());
+
+        assertThrows(IllegalStateException.class,
+                () -> members.update(new Member("M1", "Changed", "changed@email.com", "0123456789")));
+        assertEquals("member1@email.com", members.findById("M1").orElseThrow().getEmail());
+        assertTrue(members.findByEmail("member1@email.com").isPresent());
+
+        assertThrows(IllegalStateException.class, () -> members.delete("M1"));
+        assertTrue(members.findById("M1").isPresent());
+    }
+
+    private static Book book(int n) {
+        return new Book("B" + n, "Title " + n, "Author " + (n % 10), ISBN);
+    }
+
+    private static Member member(int n) {
+        return new Member("M" + n, "Member " + n, "member" + n + "@email.com", "0123456789");
+    }
+
+    private static Map<String, String> state(Stream<Book> books) {
+        try (books) {
+            return books.collect(Collectors.toMap(Book::getId,
+                    book -> book.getTitle() + "|" + book.getAuthor() + "|" + book.isAvailable(),
+                    (a, b) -> a, TreeMap::new));
+        }
+    }
+
+    private static Path lastSegment(Path walDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(walDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                    .sorted()
+                    .reduce((first, second) -> second)
+                    .orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package service;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+import repository.impl.InMemoryBookRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BookService.addBooks: validate cả lô trước khi ghi, kiểm tra ID đã có trong một lượt và ghi bằng một lần saveAll
+ */
+class BookServiceBatchTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    @Test
+    void validBatchIsWrittenInOneCall() {
+        CountingRepository repository = new CountingRepository();
+        BookService service = new BookService(repository);
+        List<Book> books = books(1, 100);
+        books.get(0).setAvailable(false);
+
+        service.addBooks(books);
+
+        assertEquals(100, repository.count());
+        assertEquals(100, repository.countAvailable());
+        assertEquals(1, repository.existingLookups);
+        assertEquals(1, repository.batchSaves);
+        assertEquals(0, repository.singleSaves);
+    }
+
+    @Test
+    void oneBadBookRejectsTheWholeBatch() {
+        CountingRepository repository = new CountingRepository();
+        BookService service = new BookService(repository);
+        service.addBooks(books(1, 1));
+
+        List<Book> badIsbn = books(10, 5);
+        badIsbn.get(3).setIsbn("not-an-isbn");
+        assertThrows(IllegalArgumentException.class, () -> service.addBooks(badIsbn));
+
+        List<Book> duplicateInBatch = books(10, 5);
+        duplicateInBatch.add(new Book("B10", "Again", "Author", ISBN));
+        assertThrows(IllegalStateException.class, () -> service.addBooks(duplicateInBatch));
+
+        List<Book> clashesWithStored = books(10, 5);
+        clashesWithStored.add(new Book("B1", "Again", "Author", ISBN));
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> service.addBooks(clashesWithStored));
+        assertTrue(error.getMessage().contains("B1"));
+
+        List<Book> nullId = books(10, 5);
+        nullId.add(new Book(null, "No ID", "Author", ISBN));
+        assertThrows(IllegalArgumentException.class, () -> service.addBooks(nullId));
+        assertThrows(IllegalArgumentException.class, () -> service.addBooks(null));
+
+        assertEquals(1, repository.count());
+        assertEquals(1, repository.batchSaves);
+    }
+
+    @Test
+    void repositoryBatchDefaultsApplyEveryElement() {
+        InMemoryBookRepository repository = new InMemoryBookRepository();
+        repository.saveAll(books(1, 10));
+        assertEquals(Set.of("B3", "B5"), repository.findExistingIds(List.of("B3", "B5", "B42")));
+
+        List<Book> updated = books(1, 3);
+        updated.forEach(book -> book.setTitle("Updated"));
+        repository.updateAll(updated);
+        assertEquals("Updated", repository.findById("B2").orElseThrow().getTitle());
+
+        repository.deleteAll(List.of("B1", "B2", "B42"));
+        assertEquals(8, repository.count());
+    }
+
+    private static List<Book> books(int first, int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            books.add(new Book("B" + i, "Title " + i, "Author", ISBN));
+        }
+        return books;
+    }
+
+    private static class CountingRepository extends InMemoryBookRepository {
+        int existingLookups;
+        int batchSaves;
+        int singleSaves;
+
+        @Override
+        public Set<String> findExistingIds(Collection<String> ids) {
+            existingLookups++;
+            return super.findExistingIds(ids);
+        }
+
+        @Override
+        public void saveAll(Collection<Book> books) {
+            batchSaves++;
+            for (Book book : books) {
+                super.save(book);
+            }
+        }
+
+        @Override
+        public void save(Book book) {
+            singleSaves++;
+            super.save(book);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package service;
+
+import ledger.FineLedger;
+import model.Member;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import payment.PaymentProcessor;
+import payment.PaymentRequest;
+import report.impl.BookReportGenerator;
+import repository.impl.ConcurrentBookRepository;
+import repository.impl.InMemoryMemberRepository;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * LibraryService: chỉ thu tiền phạt trong phạm vi số còn nợ, và không thu gì khi bị từ chối
+ */
+class LibraryServiceFineTest {
+    private final AtomicInteger charges = new AtomicInteger();
+    private volatile boolean gatewayApproves = true;
+    private FineLedger ledger;
+    private LibraryService library;
+
+    @BeforeEach
+    void setUp() {
+        MemberService members = new MemberService(new InMemoryMemberRepository());
+        members.registerMember(new Member("M1", "Alice", "alice@email.com", "0123456789"));
+        members.registerMember(new Member("M2", "Bob", "bob@email.com", "0123456789"));
+        PaymentProcessor gateway = new PaymentProcessor() {
+            @Override
+            public boolean processPayment(double amount, String accountNumber) {
+                charges.incrementAndGet();
+                return gatewayApproves;
+            }
+
+            @Override
+            public String getPaymentMethod() {
+                return "Test";
+            }
+        };
+        ledger = new FineLedger();
+        library = new LibraryService(new BookService(new ConcurrentBookRepository()), members,
+                (message, recipient) -> { }, gateway, new BookReportGenerator(), ledger);
+    }
+
+    @Test
+    void paymentWithoutFineIsRejectedBeforeCharging() {
+        assertThrows(IllegalArgumentException.class, () -> library.processFinePayment("M1", 25.0));
+        assertEquals(0, charges.get());
+        assertEquals(0, ledger.getEntryCount());
+    }
+
+    @Test
+    void paymentUpToOutstandingIsRecorded() {
+        library.assessFine("M1", 25.0);
+        assertThrows(IllegalArgumentException.class, () -> library.processFinePayment("M1", 25.01));
+        library.processFinePayment("M1", 10.0);
+        library.processFinePayment("M1", 15.0);
+
+        assertEquals(2, charges.get());
+        assertEquals(0, library.getOutstandingFine("M1"));
+        assertThrows(IllegalArgumentException.class, () -> library.processFinePayment("M1", 0.01));
+    }
+
+    @Test
+    void declinedPaymentReleasesReservation() {
+        library.assessFine("M1", 25.0);
+        gatewayApproves = false;
+        library.processFinePayment("M1", 25.0);
+        assertEquals(2_500, library.getOutstandingFine("M1"));
+
+        gatewayApproves = true;
+        library.processFinePayment("M1", 25.0);
+        assertEquals(0, library.getOutstandingFine("M1"));
+    }
+
+    @Test
+    void batchOverpaymentChargesNothing() {
+        library.assessFine("M1", 10.0);
+        library.assessFine("M2", 10.0);
+        // Tổng hai khoản của M1 vượt số còn nợ: cả lô bị từ chối trước khi thu
+        List<PaymentRequest> batch = List.of(new PaymentRequest(6.0, "M1"), new PaymentRequest(10.0, "M2"),
+                new PaymentRequest(6.0, "M1"));
+        assertThrows(IllegalArgumentException.class, () -> library.processFinePayments(batch));
+        assertEquals(0, charges.get());
+
+        assertEquals(2, library.processFinePayments(List.of(new PaymentRequest(6.0, "M1"),
+                new PaymentRequest(10.0, "M2"))));
+        assertEquals(400, library.getOutstandingFine("M1"));
+        assertEquals(0, library.getOutstandingFine("M2"));
+    }
+}
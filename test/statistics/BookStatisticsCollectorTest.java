@@ -0,0 +1,80 @@
+package statistics;
+
+import model.Book;
+import org.junit.jupiter.api.Test;
+import repository.impl.AuthorIndex;
+import repository.impl.ConcurrentBookRepository;
+import repository.impl.ObservableBookRepository;
+import service.BookService;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thống kê theo tác giả: gom không phân biệt hoa/thường, bỏ tác giả hết sách,
+ * và BookService cho cùng kết quả dù có hay không có bộ thống kê
+ */
+class BookStatisticsCollectorTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    @Test
+    void authorsAreGroupedByFoldedName() {
+        ObservableBookRepository books = new ObservableBookRepository(new ConcurrentBookRepository());
+        BookStatisticsCollector statistics = BookStatisticsCollector.attach(books);
+        books.save(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+        books.save(new Book("B2", "Clean Architecture", "robert martin", ISBN));
+        books.save(new Book("B3", "Refactoring", "Martin Fowler", ISBN));
+
+        assertEquals(2, statistics.getBookCountByAuthor("ROBERT MARTIN"));
+        assertEquals(Map.of("Robert Martin", 2L, "Martin Fowler", 1L), statistics.getBookCountsByAuthor());
+    }
+
+    @Test
+    void authorWithoutBooksIsDropped() {
+        ObservableBookRepository books = new ObservableBookRepository(new ConcurrentBookRepository());
+        BookStatisticsCollector statistics = BookStatisticsCollector.attach(books);
+        books.save(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+        books.update(new Book("B1", "Clean Code", "Uncle Bob", ISBN));
+        books.save(new Book("B2", "Clean Coder", "robert martin", ISBN));
+
+        // Cách viết hiển thị bắt đầu lại sau khi tác giả đã về 0
+        assertEquals(Map.of("Uncle Bob", 1L, "robert martin", 1L), statistics.getBookCountsByAuthor());
+        books.delete("B1");
+        books.delete("B2");
+        assertTrue(statistics.getBookCountsByAuthor().isEmpty());
+        assertEquals(0, statistics.getTotalBooks());
+    }
+
+    @Test
+    void serviceCountsDoNotDependOnWiring() {
+        ObservableBookRepository books = new ObservableBookRepository(new ConcurrentBookRepository());
+        BookStatisticsCollector statistics = BookStatisticsCollector.attach(books);
+        books.save(new Book("B1", "Clean Code", "Robert Martin", ISBN));
+        books.save(new Book("B2", "Clean Architecture", "ROBERT MARTIN", ISBN));
+        books.save(new Book("B3", "Anonymous", null, ISBN));
+
+        // Cách viết hiển thị là cách gặp đầu tiên nên có thể khác nhau; khóa fold và số đếm thì phải giống
+        assertEquals(folded(new BookService(books, statistics).getBookCountsByAuthor()),
+                folded(new BookService(books).getBookCountsByAuthor()));
+        assertEquals(2, new BookService(books).getBookCountsByAuthor().size());
+    }
+
+    @Test
+    void collectorMustBeAttachedToTheServiceRepository() {
+        ObservableBookRepository books = new ObservableBookRepository(new ConcurrentBookRepository());
+        BookStatisticsCollector statistics = BookStatisticsCollector.attach(
+                new ObservableBookRepository(new ConcurrentBookRepository()));
+
+        assertThrows(IllegalArgumentException.class, () -> new BookService(books, statistics));
+    }
+
+    private static Map<String, Long> folded(Map<String, Long> counts) {
+        Map<String, Long> result = new TreeMap<>();
+        counts.forEach((author, count) -> result.put(AuthorIndex.fold(author), count));
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IdCodec: mã hóa phải đơn ánh, giải mã đúng chuỗi gốc và từ chối ID không biểu diễn được
+ */
+class IdCodecTest {
+
+    @Test
+    void roundTripsShortAsciiIds() {
+        for (String id : new String[]{"B", "B001", "M42", "123456789", "~~~~~~~~~"}) {
+            long key = IdCodec.encode(id);
+            assertTrue(key > 0, id);
+            assertEquals(id, IdCodec.decode(key));
+        }
+        assertNotEquals(IdCodec.encode("B1"), IdCodec.encode("B10"));
+    }
+
+    @Test
+    void rejectsIdsItCannotEncode() {
+        assertEquals(IdCodec.NOT_ENCODABLE, IdCodec.encode(null));
+        assertEquals(IdCodec.NOT_ENCODABLE, IdCodec.encode(""));
+        assertEquals(IdCodec.NOT_ENCODABLE, IdCodec.encode("1234567890"));
+        assertEquals(IdCodec.NOT_ENCODABLE, IdCodec.encode("Bé"));
+        assertThrows(IllegalArgumentException.class, () -> IdCodec.decode(0));
+        assertThrows(IllegalArgumentException.class, () -> IdCodec.decode(IdCodec.NOT_ENCODABLE));
+    }
+}
@@ -0,0 +1,68 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IsbnValidator: check digit ISBN-10/ISBN-13, ký tự phân cách và chuẩn hóa
+ */
+class IsbnValidatorTest {
+
+    @Test
+    void acceptsValidIsbnsWithSeparators() {
+        assertTrue(IsbnValidator.isValid("978-0-13-235088-4"));
+        assertTrue(IsbnValidator.isValid("9780132350884"));
+        assertTrue(IsbnValidator.isValid(" 978 0 13 235088 4\t"));
+        assertTrue(IsbnValidator.isValid("0-306-40615-2"));
+        assertTrue(IsbnValidator.isValid("0-8044-2957-X"));
+    }
+
+    @Test
+    void rejectsBadCheckDigitsAndMalformedInput() {
+        assertFalse(IsbnValidator.isValid("978-0-13-235088-5"));
+        assertFalse(IsbnValidator.isValid("0-306-40615-3"));
+        assertFalse(IsbnValidator.isValid(null));
+        assertFalse(IsbnValidator.isValid(""));
+        assertFalse(IsbnValidator.isValid("---"));
+        // 'X' chỉ hợp lệ ở vị trí cuối của ISBN-10
+        assertFalse(IsbnValidator.isValid("X-8044-2957-0"));
+        assertFalse(IsbnValidator.isValid("080442957X0"));
+        assertFalse(IsbnValidator.isValid("978013235088X"));
+        assertFalse(IsbnValidator.isValid("0-8044-2957-x"));
+        assertFalse(IsbnValidator.isValid("97801323508840"));
+        assertFalse(IsbnValidator.isValid("978_0132350884"));
+        // Chữ số không phải ASCII không được tính như \d
+        assertFalse(IsbnValidator.isValid("٩٧٨٠١٣٢٣٥٠٨٨٤"));
+    }
+
+    @Test
+    void normalizeStripsSeparators() {
+        assertEquals("9780132350884", IsbnValidator.normalize("978-0-13-235088-4"));
+        assertEquals("080442957X", IsbnValidator.normalize("0 8044 2957 X"));
+        assertNull(IsbnValidator.normalize("978-0-13-235088-5"));
+    }
+
+    @Test
+    void agreesWithReferenceChecksumOnRandomIsbn13() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder isbn = new StringBuilder();
+            int sum = 0;
+            for (int d = 0; d < 13; d++) {
+                int digit = random.nextInt(10);
+                isbn.append(digit);
+                if (d < 12) {
+                    sum += d % 2 == 0 ? digit : digit * 3;
+                }
+            }
+            boolean expected = (10 - sum % 10) % 10 == isbn.charAt(12) - '0';
+            assertEquals(expected, IsbnValidator.isValid(isbn), isbn.toString());
+        }
+    }
+}
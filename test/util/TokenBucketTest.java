@@ -0,0 +1,33 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TokenBucket: cho phép burst bằng capacity rồi chỉ nạp lại theo tốc độ đã cấu hình
+ */
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstThenRefills() throws Exception {
+        TokenBucket bucket = new TokenBucket(20, 2);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        // 20 token/giây: sau 200ms chắc chắn đã có lại ít nhất một token, nhưng không vượt capacity
+        Thread.sleep(200);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0.5));
+    }
+}